@@ -0,0 +1,23 @@
+package com.cgvsu.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Точка входа benchmarks.jar: те же параметры, что у org.openjdk.jmh.Main, но если профилировщики
+// не заданы (-prof), подключается gc - к пропускной способности добавляется скорость выделения памяти
+// (gc.alloc.rate.norm - байт на операцию), по которой удобнее всего ловить регрессии.
+public class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()
+                || !commandLine.getProfilers().isEmpty()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+    }
+}
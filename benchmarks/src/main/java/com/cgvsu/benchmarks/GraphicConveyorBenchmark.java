@@ -0,0 +1,100 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.GraphicConveyor;
+import com.cgvsu.render_engine.ScreenSpaceBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Преобразование вершин: по одной через multiplyMatrix4ByVector3 (с новым Vector3f на каждую и в один
+// переиспользуемый), пачкой через Matrix4f.transformPoints (по осям и тройками подряд) и через
+// transformVertices в ScreenSpaceBuffer, как в кадре. Операция - одна вершина
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphicConveyorBenchmark {
+
+    private static final int VERTICES = 4096;
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    private final Vector3f[] vertices = new Vector3f[VERTICES];
+    private final Vector3f result = new Vector3f();
+    private final float[] interleaved = new float[3 * VERTICES];
+    private final float[] outX = new float[VERTICES];
+    private final float[] outY = new float[VERTICES];
+    private final float[] outZ = new float[VERTICES];
+    private final float[] outInterleaved = new float[3 * VERTICES];
+    private final ScreenSpaceBuffer screen = new ScreenSpaceBuffer();
+    private PackedMesh mesh;
+    private Matrix4f modelViewProjection;
+
+    @Setup
+    public void setUp() {
+        mesh = MeshGenerator.generate(2 * VERTICES);
+        for (int i = 0; i < VERTICES; ++i) {
+            vertices[i] = new Vector3f(mesh.vertexX[i], mesh.vertexY[i], mesh.vertexZ[i]);
+            interleaved[3 * i] = mesh.vertexX[i];
+            interleaved[3 * i + 1] = mesh.vertexY[i];
+            interleaved[3 * i + 2] = mesh.vertexZ[i];
+        }
+        modelViewProjection = GraphicConveyor.lookAt(new Vector3f(0, 50, 100), new Vector3f(0, 0, 0));
+        modelViewProjection.mul(GraphicConveyor.perspective(1.0F, (float) WIDTH / HEIGHT, 0.1F, 1000));
+        screen.resize(mesh.getVertexCount());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERTICES)
+    public void multiplyMatrix4ByVector3(Blackhole blackhole) {
+        for (Vector3f vertex : vertices) {
+            blackhole.consume(GraphicConveyor.multiplyMatrix4ByVector3(modelViewProjection, vertex));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERTICES)
+    public void multiplyMatrix4ByVector3Reused(Blackhole blackhole) {
+        for (Vector3f vertex : vertices) {
+            blackhole.consume(GraphicConveyor.multiplyMatrix4ByVector3(modelViewProjection, vertex, result).x);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERTICES)
+    public float[] transformPoints() {
+        modelViewProjection.transformPoints(mesh.vertexX, mesh.vertexY, mesh.vertexZ, outX, outY, outZ, 0, VERTICES);
+        return outX;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERTICES)
+    public float[] transformPointsInterleaved() {
+        modelViewProjection.transformPoints(interleaved, 0, outInterleaved, 0, VERTICES);
+        return outInterleaved;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERTICES)
+    public ScreenSpaceBuffer transformVertices() {
+        GraphicConveyor.transformVertices(modelViewProjection, mesh.vertexX, mesh.vertexY, mesh.vertexZ,
+                0, VERTICES, WIDTH, HEIGHT, screen);
+        return screen;
+    }
+}
@@ -0,0 +1,96 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.objWriter.objWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+// Синтетическая модель заданного размера: рельеф на сетке, каждая клетка - два треугольника,
+// у каждой вершины текстурная координата и нормаль (f v/vt/vn, как в выгрузках из редакторов).
+// Высоты берутся из SplittableRandom с постоянным зерном, поэтому при тех же faces и seed модель
+// одна и та же на любой машине и JVM - результаты замеров можно сравнивать между запусками.
+public class MeshGenerator {
+
+    public static final long DEFAULT_SEED = 20240229L;
+
+    private MeshGenerator() {
+    }
+
+    public static PackedMesh generate(int faces) {
+        return generate(faces, DEFAULT_SEED);
+    }
+
+    // Ровно faces треугольников: сетка почти квадратная, в последней строке может не хватать клеток
+    public static PackedMesh generate(int faces, long seed) {
+        final int cells = (faces + 1) / 2;
+        final int columns = Math.max(1, (int) Math.ceil(Math.sqrt(cells)));
+        final int rows = (cells + columns - 1) / columns;
+        final int nVertices = (columns + 1) * (rows + 1);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        PackedMesh mesh = new PackedMesh();
+        mesh.vertexX = new float[nVertices];
+        mesh.vertexY = new float[nVertices];
+        mesh.vertexZ = new float[nVertices];
+        mesh.textureU = new float[nVertices];
+        mesh.textureV = new float[nVertices];
+        mesh.normalX = new float[nVertices];
+        mesh.normalY = new float[nVertices];
+        mesh.normalZ = new float[nVertices];
+        // модель вписана в квадрат [-50, 50] по x и z, как примерно и модели, которые открывают в окне
+        final float step = 100.0F / Math.max(columns, rows);
+        for (int row = 0; row <= rows; ++row) {
+            for (int column = 0; column <= columns; ++column) {
+                final int v = row * (columns + 1) + column;
+                mesh.vertexX[v] = column * step - 50;
+                mesh.vertexZ[v] = row * step - 50;
+                mesh.vertexY[v] = (float) (5 * Math.sin(column * 0.05) * Math.cos(row * 0.05) + random.nextDouble(-0.5, 0.5));
+                mesh.textureU[v] = (float) column / columns;
+                mesh.textureV[v] = (float) row / rows;
+                final float nx = (float) random.nextDouble(-0.1, 0.1);
+                final float nz = (float) random.nextDouble(-0.1, 0.1);
+                final float length = (float) Math.sqrt(nx * nx + 1 + nz * nz);
+                mesh.normalX[v] = nx / length;
+                mesh.normalY[v] = 1 / length;
+                mesh.normalZ[v] = nz / length;
+            }
+        }
+
+        mesh.polygons.faceOffsets = new int[faces + 1];
+        mesh.polygons.vertexIndices = new int[3 * faces];
+        int face = 0;
+        for (int cell = 0; cell < cells; ++cell) {
+            final int row = cell / columns;
+            final int column = cell % columns;
+            final int v00 = row * (columns + 1) + column;
+            final int v01 = v00 + 1;
+            final int v10 = v00 + columns + 1;
+            final int v11 = v10 + 1;
+            face = addTriangle(mesh, face, v00, v10, v01);
+            if (face < faces) {
+                face = addTriangle(mesh, face, v01, v10, v11);
+            }
+        }
+        mesh.polygons.textureVertexIndices = mesh.polygons.vertexIndices.clone();
+        mesh.polygons.normalIndices = mesh.polygons.vertexIndices.clone();
+        return mesh;
+    }
+
+    // Та же модель в OBJ во временном файле; удаляет вызывающий
+    public static Path writeObj(int faces) throws IOException {
+        Path file = Files.createTempFile("cgvsu-bench-" + faces + "-", ".obj");
+        new objWriter().write(generate(faces), file.toString());
+        return file;
+    }
+
+    private static int addTriangle(PackedMesh mesh, int face, int a, int b, int c) {
+        mesh.polygons.vertexIndices[3 * face] = a;
+        mesh.polygons.vertexIndices[3 * face + 1] = b;
+        mesh.polygons.vertexIndices[3 * face + 2] = c;
+        mesh.polygons.faceOffsets[face + 1] = 3 * (face + 1);
+        return face + 1;
+    }
+}
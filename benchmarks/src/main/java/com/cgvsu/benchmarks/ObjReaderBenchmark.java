@@ -0,0 +1,65 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.objreader.ObjReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Чтение OBJ из файла: объектная модель, упакованная и упакованная по частям в несколько потоков.
+// 10M граней - это около 600 МБ текста, а Model из них - несколько ГБ: для этого размера
+// нужна куча побольше (-jvmArgsAppend -Xmx12g)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjReaderBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int faces;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = MeshGenerator.writeObj(faces);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Model read() throws IOException {
+        return ObjReader.read(file);
+    }
+
+    @Benchmark
+    public PackedMesh readMesh() throws IOException {
+        return ObjReader.readMesh(file);
+    }
+
+    @Benchmark
+    public PackedMesh readMeshParallel() throws IOException {
+        return ObjReader.readMeshParallel(file);
+    }
+}
@@ -0,0 +1,73 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.objWriter.objWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Запись OBJ: в файл и в строку, из упакованной и из объектной модели
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjWriterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int faces;
+
+    private final objWriter writer = new objWriter();
+    private PackedMesh mesh;
+    private Model model;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        mesh = MeshGenerator.generate(faces);
+        model = mesh.toModel();
+        file = Files.createTempFile("cgvsu-bench-write-", ".obj");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void writeMesh() throws IOException {
+        writer.write(mesh, file.toString());
+    }
+
+    @Benchmark
+    public void writeModel() throws IOException {
+        writer.write(model, file.toString());
+    }
+
+    @Benchmark
+    public String writeMeshToString() throws IOException {
+        return writer.writeToString(mesh);
+    }
+
+    @Benchmark
+    public String writeModelToString() throws IOException {
+        return writer.writeToString(model);
+    }
+}
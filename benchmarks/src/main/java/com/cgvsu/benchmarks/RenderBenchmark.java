@@ -0,0 +1,82 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonBvh;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameBuffer;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderSettings;
+import com.cgvsu.render_engine.ScreenSpaceBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Целый кадр RenderEngine.rasterize в FrameBuffer в памяти, без окна: очистка, преобразование,
+// отбор по BVH и заливка. Буфер экранных координат сбрасывается перед каждым кадром,
+// иначе при неподвижной камере вершины не пересчитывались бы (это отдельный замер staticCamera)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    @Param({"10000", "100000", "1000000"})
+    public int faces;
+
+    private final FrameBuffer frame = new FrameBuffer();
+    private final ScreenSpaceBuffer screen = new ScreenSpaceBuffer();
+    private final RenderSettings serial = new RenderSettings();
+    private final RenderSettings tiled = new RenderSettings();
+    private PackedMesh mesh;
+    private Camera camera;
+
+    @Setup
+    public void setUp() {
+        mesh = MeshGenerator.generate(faces);
+        mesh.bvh = PolygonBvh.build(mesh);
+        camera = new Camera(new Vector3f(0, 60, 90), new Vector3f(0, 0, 0), 1.0F, (float) WIDTH / HEIGHT, 0.1F, 1000);
+        serial.parallelTransform = false;
+        serial.parallelRasterize = false;
+        frame.resize(WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public FrameBuffer rasterizeSerial() {
+        return frame(serial);
+    }
+
+    @Benchmark
+    public FrameBuffer rasterizeTiled() {
+        return frame(tiled);
+    }
+
+    @Benchmark
+    public FrameBuffer staticCamera() {
+        frame.clear(0);
+        RenderEngine.rasterize(frame, camera, mesh, WIDTH, HEIGHT, screen, tiled);
+        return frame;
+    }
+
+    private FrameBuffer frame(RenderSettings settings) {
+        screen.invalidate();
+        frame.clear(0);
+        RenderEngine.rasterize(frame, camera, mesh, WIDTH, HEIGHT, screen, settings);
+        return frame;
+    }
+}
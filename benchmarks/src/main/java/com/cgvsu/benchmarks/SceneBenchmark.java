@@ -0,0 +1,95 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonBvh;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameBuffer;
+import com.cgvsu.render_engine.ModelInstance;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderSettings;
+import com.cgvsu.render_engine.SceneRenderer;
+import com.cgvsu.render_engine.ScreenBufferPool;
+import com.cgvsu.render_engine.ScreenSpaceBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Кадр сцены из одной большой модели и множества мелких: модели по очереди через RenderEngine
+// против SceneRenderer, где преобразование и отбор каждой модели - своя задача в пуле.
+// Перед каждым кадром всё сбрасывается, чтобы вершины пересчитывались, как при движущейся камере
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SceneBenchmark {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    @Param({"1000000"})
+    public int hugeFaces;
+
+    @Param({"200"})
+    public int tinyModels;
+
+    private final FrameBuffer frame = new FrameBuffer();
+    // общий буфер последовательного варианта: модели вытесняют друг друга и преобразуются каждый кадр
+    private final ScreenSpaceBuffer screen = new ScreenSpaceBuffer();
+    // столько же буферов, сколько у окна приложения
+    private final ScreenBufferPool screenBuffers = new ScreenBufferPool(64);
+    private final SceneRenderer sceneRenderer = new SceneRenderer(screenBuffers);
+    private final RenderSettings settings = new RenderSettings();
+    private final List<ModelInstance> scene = new ArrayList<>();
+    private Camera camera;
+
+    @Setup
+    public void setUp() {
+        PackedMesh huge = MeshGenerator.generate(hugeFaces, 1);
+        huge.bvh = PolygonBvh.build(huge);
+        PackedMesh tiny = MeshGenerator.generate(500, 2);
+        tiny.bvh = PolygonBvh.build(tiny);
+
+        ModelInstance ground = new ModelInstance(huge);
+        scene.add(ground);
+        for (int i = 0; i < tinyModels; ++i) {
+            ModelInstance instance = new ModelInstance(tiny);
+            instance.transform.setScale(0.1F, 0.1F, 0.1F);
+            instance.transform.setTranslation(-40 + 80.0F * (i % 20) / 20, 10, -40 + 80.0F * (i / 20) / 10);
+            scene.add(instance);
+        }
+        camera = new Camera(new Vector3f(0, 60, 90), new Vector3f(0, 0, 0), 1.0F, (float) WIDTH / HEIGHT, 0.1F, 1000);
+        frame.resize(WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public FrameBuffer sequential() {
+        frame.clear(0);
+        for (ModelInstance instance : scene) {
+            RenderEngine.rasterize(frame, camera, instance, WIDTH, HEIGHT, screen, settings);
+        }
+        return frame;
+    }
+
+    @Benchmark
+    public FrameBuffer perModelTasks() {
+        screenBuffers.invalidate();
+        frame.clear(0);
+        sceneRenderer.rasterize(frame, camera, scene, WIDTH, HEIGHT, settings);
+        return frame;
+    }
+}
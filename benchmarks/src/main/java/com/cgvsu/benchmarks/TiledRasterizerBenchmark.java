@@ -0,0 +1,119 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameBuffer;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderSettings;
+import com.cgvsu.render_engine.ScreenSpaceBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Заливка кадра 4K со сферой из ~2 млн треугольников: без тайлов в одном потоке против тайлов
+// в пуле из threads потоков. Камера неподвижна, так что вершины преобразуются только в первом кадре
+// и замер - это сама заливка
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TiledRasterizerBenchmark {
+
+    private static final int WIDTH = 3840;
+    private static final int HEIGHT = 2160;
+
+    // сторона сетки сферы: gridSize x gridSize четырёхугольников
+    @Param({"1000"})
+    public int gridSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private final FrameBuffer frame = new FrameBuffer();
+    private final ScreenSpaceBuffer screen = new ScreenSpaceBuffer();
+    private final RenderSettings serial = new RenderSettings();
+    private final RenderSettings tiled = new RenderSettings();
+    private PackedMesh sphere;
+    private Camera camera;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        sphere = createSphere(gridSize, 40);
+        camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0F, (float) WIDTH / HEIGHT, 0.01F, 1000);
+        serial.parallelTransform = false;
+        serial.parallelRasterize = false;
+        pool = new ForkJoinPool(threads);
+        tiled.pool = pool;
+        frame.resize(WIDTH, HEIGHT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public FrameBuffer serial() {
+        frame.clear(0);
+        RenderEngine.rasterize(frame, camera, sphere, WIDTH, HEIGHT, screen, serial);
+        return frame;
+    }
+
+    @Benchmark
+    public FrameBuffer tiled() {
+        frame.clear(0);
+        RenderEngine.rasterize(frame, camera, sphere, WIDTH, HEIGHT, screen, tiled);
+        return frame;
+    }
+
+    // Сфера из gridSize x gridSize четырёхугольников
+    private static PackedMesh createSphere(int gridSize, float radius) {
+        final int nVertices = (gridSize + 1) * (gridSize + 1);
+        PackedMesh mesh = new PackedMesh();
+        mesh.vertexX = new float[nVertices];
+        mesh.vertexY = new float[nVertices];
+        mesh.vertexZ = new float[nVertices];
+        for (int i = 0; i <= gridSize; ++i) {
+            final double theta = Math.PI * i / gridSize;
+            for (int j = 0; j <= gridSize; ++j) {
+                final double phi = 2 * Math.PI * j / gridSize;
+                final int vertexInd = i * (gridSize + 1) + j;
+                mesh.vertexX[vertexInd] = (float) (radius * Math.sin(theta) * Math.cos(phi));
+                mesh.vertexY[vertexInd] = (float) (radius * Math.cos(theta));
+                mesh.vertexZ[vertexInd] = (float) (radius * Math.sin(theta) * Math.sin(phi));
+            }
+        }
+
+        final int nPolygons = gridSize * gridSize;
+        mesh.polygons.faceOffsets = new int[nPolygons + 1];
+        mesh.polygons.vertexIndices = new int[nPolygons * 4];
+        for (int i = 0; i < gridSize; ++i) {
+            for (int j = 0; j < gridSize; ++j) {
+                final int polygonInd = i * gridSize + j;
+                final int corner = i * (gridSize + 1) + j;
+                mesh.polygons.faceOffsets[polygonInd + 1] = (polygonInd + 1) * 4;
+                mesh.polygons.vertexIndices[polygonInd * 4] = corner;
+                mesh.polygons.vertexIndices[polygonInd * 4 + 1] = corner + 1;
+                mesh.polygons.vertexIndices[polygonInd * 4 + 2] = corner + gridSize + 2;
+                mesh.polygons.vertexIndices[polygonInd * 4 + 3] = corner + gridSize + 1;
+            }
+        }
+        return mesh;
+    }
+}
@@ -0,0 +1,69 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.GraphicConveyor;
+import com.cgvsu.render_engine.ScreenSpaceBuffer;
+import com.cgvsu.render_engine.VectorTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Преобразование вершин в экранные координаты одним потоком: скалярный цикл против Vector API.
+// Форк запускается с jdk.incubator.vector; на процессоре без AVX2 векторный замер молча
+// уходит в скалярный путь - в начале печатается, сколько вершин обрабатывается за итерацию.
+// Результат - микросекунды на весь массив из vertices вершин
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorTransformBenchmark {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    // 4096 вершин помещаются в L1/L2, миллион - уже нет
+    @Param({"4096", "1000000"})
+    public int vertices;
+
+    private final ScreenSpaceBuffer screen = new ScreenSpaceBuffer();
+    private PackedMesh mesh;
+    private Matrix4f modelViewProjection;
+
+    @Setup
+    public void setUp() {
+        System.out.println("VectorTransform: " + (VectorTransform.isAvailable()
+                ? VectorTransform.lanes() + " вершин за итерацию" : "недоступен, скалярный путь"));
+        mesh = MeshGenerator.generate(2 * vertices);
+        modelViewProjection = GraphicConveyor.lookAt(new Vector3f(0, 50, 100), new Vector3f(0, 0, 0));
+        modelViewProjection.mul(GraphicConveyor.perspective(1.0F, (float) WIDTH / HEIGHT, 0.1F, 1000));
+        screen.resize(mesh.getVertexCount());
+    }
+
+    @Benchmark
+    public ScreenSpaceBuffer scalar() {
+        GraphicConveyor.transformVertices(modelViewProjection, mesh.vertexX, mesh.vertexY, mesh.vertexZ,
+                0, vertices, WIDTH, HEIGHT, screen);
+        return screen;
+    }
+
+    @Benchmark
+    public ScreenSpaceBuffer vector() {
+        VectorTransform.transformVertices(modelViewProjection, mesh.vertexX, mesh.vertexY, mesh.vertexZ,
+                0, vertices, WIDTH, HEIGHT, screen);
+        return screen;
+    }
+}
@@ -0,0 +1,46 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.VertexNormals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Построение нормалей вершин для модели без vn: у сгенерированной модели нормали отбрасываются.
+// На 20 млн треугольников сама модель занимает больше гигабайта, отсюда куча побольше
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VertexNormalsBenchmark {
+
+    @Param({"1000000", "20000000"})
+    public int faces;
+
+    private PackedMesh mesh;
+
+    @Setup
+    public void setUp() {
+        mesh = MeshGenerator.generate(faces);
+        mesh.normalX = mesh.normalY = mesh.normalZ = new float[0];
+        mesh.polygons.normalIndices = null;
+    }
+
+    @Benchmark
+    public PackedMesh build() {
+        VertexNormals.build(mesh);
+        return mesh;
+    }
+}
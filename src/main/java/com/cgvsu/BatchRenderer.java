@@ -0,0 +1,327 @@
+package com.cgvsu;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.ReadProgress;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameBuffer;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderSettings;
+import com.cgvsu.render_engine.ScreenSpaceBuffer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Пакетная отрисовка превью без окна: каждая OBJ-модель заливается RenderEngine.rasterize
+// в FrameBuffer и сохраняется в PNG. JavaFX не запускается, нужен только java.desktop для ImageIO.
+// Файлы обрабатываются параллельно, по одному на поток: в памяти одновременно не больше
+// threads моделей, а кадры и буферы у каждого потока свои и переиспользуются от файла к файлу.
+//
+// java com.cgvsu.Main --batch [параметры] файл.obj|папка ...
+public class BatchRenderer {
+
+    static final String USAGE = "Параметры: [-o папка] [-size ШxВ] [-camera fit|px,py,pz,tx,ty,tz] [-fov радианы]"
+            + " [-threads N] файл.obj|папка ...";
+
+    // Что и как рисовать. По умолчанию камера смотрит вдоль -Z так, чтобы модель целиком вошла в кадр
+    public static class Options {
+        public Path outputDirectory = Path.of(".");
+        public int width = 256;
+        public int height = 256;
+        // положение и цель камеры подряд, null - подобрать по модели
+        public float[] camera = null;
+        public float fov = 1.0F;
+        public int threads = Runtime.getRuntime().availableProcessors();
+        public final List<Path> inputs = new ArrayList<>();
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException exception) {
+            System.err.println(exception.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            final int failed = renderAll(options, System.out);
+            System.exit(failed == 0 ? 0 : 1);
+        } catch (IOException | InterruptedException exception) {
+            System.err.println("Ошибка: " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; ++i) {
+            final String arg = args[i];
+            if (!arg.startsWith("-")) {
+                options.inputs.add(Path.of(arg));
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Нет значения у параметра " + arg);
+            }
+            final String value = args[++i];
+            try {
+                switch (arg) {
+                    case "-o" -> options.outputDirectory = Path.of(value);
+                    case "-size" -> {
+                        final String[] size = value.split("x");
+                        options.width = Integer.parseInt(size[0]);
+                        options.height = Integer.parseInt(size[1]);
+                        if (options.width <= 0 || options.height <= 0) {
+                            throw new IllegalArgumentException("Размер кадра должен быть положительным: " + value);
+                        }
+                    }
+                    case "-camera" -> options.camera = value.equals("fit") ? null : parseCamera(value);
+                    case "-fov" -> options.fov = Float.parseFloat(value);
+                    case "-threads" -> options.threads = Math.max(1, Integer.parseInt(value));
+                    default -> throw new IllegalArgumentException("Неизвестный параметр " + arg);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+                throw new IllegalArgumentException("Неверное значение параметра " + arg + ": " + value);
+            }
+        }
+        if (options.inputs.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны файлы");
+        }
+        return options;
+    }
+
+    private static float[] parseCamera(String value) {
+        final String[] parts = value.split(",");
+        if (parts.length != 6) {
+            throw new IllegalArgumentException("Камера задаётся шестью числами: " + value);
+        }
+        float[] camera = new float[6];
+        for (int i = 0; i < 6; ++i) {
+            camera[i] = Float.parseFloat(parts[i]);
+        }
+        return camera;
+    }
+
+    // Рисует все файлы, по строке отчёта на каждый. Возвращает, сколько файлов не удалось отрисовать
+    static int renderAll(Options options, PrintStream report) throws IOException, InterruptedException {
+        List<Path> files = collectFiles(options.inputs);
+        Files.createDirectories(options.outputDirectory);
+
+        final int nThreads = Math.min(options.threads, Math.max(1, files.size()));
+        // потоков несколько - каждый файл рисуется в одном потоке; файл один - тайлами на все ядра
+        final boolean parallelInside = nThreads == 1;
+        final ThreadLocal<Worker> workers = ThreadLocal.withInitial(() -> new Worker(parallelInside));
+        final AtomicInteger failed = new AtomicInteger();
+
+        final long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<String> names = thumbnailNames(files);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < files.size(); ++i) {
+                final Path file = files.get(i);
+                final String name = names.get(i);
+                futures.add(executor.submit(() -> {
+                    final Path output = options.outputDirectory.resolve(name);
+                    String line;
+                    try {
+                        Timings timings = workers.get().render(file, output, options);
+                        line = String.format("%s: %d полигонов, чтение %d мс, отрисовка %d мс, запись %d мс",
+                                file, timings.polygons, timings.readMillis, timings.renderMillis, timings.writeMillis);
+                        if (!name.equals(thumbnailName(file))) {
+                            line += ", превью " + name;
+                        }
+                    } catch (Exception exception) {
+                        failed.incrementAndGet();
+                        line = file + ": ошибка - " + exception.getMessage();
+                    }
+                    synchronized (report) {
+                        report.println(line);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException exception) {
+                    failed.incrementAndGet();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        report.printf("Файлов: %d, ошибок: %d, потоков: %d, всего %d мс%n",
+                files.size(), failed.get(), nThreads, (System.nanoTime() - startTime) / 1_000_000);
+        return failed.get();
+    }
+
+    // Папки раскрываются в лежащие в них .obj (без вложенных папок), по алфавиту
+    static List<Path> collectFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> list = Files.list(input)) {
+                    list.filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".obj") && Files.isRegularFile(path))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    // Имена превью по порядку файлов. Одноимённые модели из разных папок затирали бы превью друг друга,
+    // поэтому повтор получает номер: cube.png, cube_2.png, ... Номер не занимает имя другого файла.
+    // Регистр не различается - на Windows и macOS Cube.png и cube.png один файл
+    static List<String> thumbnailNames(List<Path> files) {
+        Set<String> natural = new HashSet<>();
+        for (Path file : files) {
+            natural.add(thumbnailName(file).toLowerCase(Locale.ROOT));
+        }
+        Set<String> used = new HashSet<>();
+        List<String> names = new ArrayList<>(files.size());
+        for (Path file : files) {
+            String name = thumbnailName(file);
+            if (!used.add(name.toLowerCase(Locale.ROOT))) {
+                final String base = name.substring(0, name.length() - ".png".length());
+                int number = 2;
+                do {
+                    name = base + "_" + number++ + ".png";
+                } while (natural.contains(name.toLowerCase(Locale.ROOT)) || !used.add(name.toLowerCase(Locale.ROOT)));
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    static String thumbnailName(Path file) {
+        final String name = file.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".png";
+    }
+
+    // Камера, в кадр которой модель входит целиком: описанная сфера касается краёв кадра по меньшей стороне.
+    // В кадр попадает y / w от -0.5 до 0.5, то есть половина угла обзора - atan(0.5 * tan(fov / 2))
+    static Camera createCamera(PackedMesh mesh, Options options) {
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < mesh.getVertexCount(); ++i) {
+            minX = Math.min(minX, mesh.vertexX[i]);
+            minY = Math.min(minY, mesh.vertexY[i]);
+            minZ = Math.min(minZ, mesh.vertexZ[i]);
+            maxX = Math.max(maxX, mesh.vertexX[i]);
+            maxY = Math.max(maxY, mesh.vertexY[i]);
+            maxZ = Math.max(maxZ, mesh.vertexZ[i]);
+        }
+        final float aspectRatio = (float) options.width / options.height;
+        if (mesh.getVertexCount() == 0) {
+            return new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), options.fov, aspectRatio, 0.01F, 1000);
+        }
+        Vector3f center = new Vector3f((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+        final float radius = Math.max(1e-3F, (float) Math.sqrt((maxX - minX) * (maxX - minX)
+                + (maxY - minY) * (maxY - minY) + (maxZ - minZ) * (maxZ - minZ)) / 2);
+
+        Vector3f position;
+        Vector3f target;
+        if (options.camera == null) {
+            double halfAngle = Math.atan(0.5 * Math.tan(options.fov / 2));
+            if (aspectRatio < 1) {
+                // кадр уже, чем выше: вписываем по ширине
+                halfAngle = Math.atan(Math.tan(halfAngle) * aspectRatio);
+            }
+            final float distance = (float) (radius / Math.sin(halfAngle));
+            position = new Vector3f(center.x, center.y, center.z + distance);
+            target = center;
+        } else {
+            position = new Vector3f(options.camera[0], options.camera[1], options.camera[2]);
+            target = new Vector3f(options.camera[3], options.camera[4], options.camera[5]);
+        }
+
+        // ближняя и дальняя плоскости - вплотную к модели, чтобы не терять точность глубины
+        Vector3f toCenter = new Vector3f();
+        toCenter.sub(center, position);
+        final float distance = toCenter.length();
+        final float farPlane = distance + 2 * radius;
+        final float nearPlane = distance > radius ? (distance - radius) / 2 : farPlane * 1e-4F;
+        return new Camera(position, target, options.fov, aspectRatio, nearPlane, farPlane);
+    }
+
+    private static class Timings {
+        int polygons;
+        long readMillis;
+        long renderMillis;
+        long writeMillis;
+    }
+
+    // Буферы одного потока: кадр, экранные координаты и картинка для PNG
+    private static class Worker {
+        private final FrameBuffer frame = new FrameBuffer();
+        private final ScreenSpaceBuffer screen = new ScreenSpaceBuffer();
+        private final RenderSettings settings = new RenderSettings();
+        private BufferedImage image;
+
+        Worker(boolean parallelInside) {
+            settings.parallelTransform = parallelInside;
+            settings.parallelRasterize = parallelInside;
+        }
+
+        Timings render(Path file, Path output, Options options) throws IOException {
+            Timings timings = new Timings();
+            long time = System.nanoTime();
+            PackedMesh mesh = ObjReader.readMesh(file, false, ReadProgress.NONE);
+            timings.polygons = mesh.getPolygonCount();
+            long now = System.nanoTime();
+            timings.readMillis = (now - time) / 1_000_000;
+
+            time = now;
+            final int width = options.width;
+            final int height = options.height;
+            frame.resize(width, height);
+            frame.clear(0); // прозрачный фон
+            try {
+                RenderEngine.rasterize(frame, createCamera(mesh, options), mesh, width, height, screen, settings);
+            } finally {
+                // буфер живёт до следующего файла и иначе держал бы эту модель в памяти
+                screen.invalidate();
+            }
+            now = System.nanoTime();
+            timings.renderMillis = (now - time) / 1_000_000;
+
+            time = now;
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            }
+            System.arraycopy(frame.color, 0, ((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0, width * height);
+            if (!ImageIO.write(image, "png", output.toFile())) {
+                throw new IOException("PNG не поддерживается");
+            }
+            timings.writeMillis = (System.nanoTime() - time) / 1_000_000;
+            return timings;
+        }
+    }
+}
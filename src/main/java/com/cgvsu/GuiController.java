@@ -2,30 +2,46 @@ package com.cgvsu;
 
 import com.cgvsu.objWriter.objWriter;
 import com.cgvsu.render_engine.RenderEngine;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.event.ActionEvent;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import javafx.stage.FileChooser;
-import javafx.util.Duration;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.io.IOException;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import javax.vecmath.Vector3f;
-
-import com.cgvsu.model.Model;
-import com.cgvsu.objreader.ObjReader;
+import java.util.Map;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.meshcache.MeshCache;
+import com.cgvsu.meshcache.SourceStamp;
+import com.cgvsu.model.EdgeList;
+import com.cgvsu.model.LodChain;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonBvh;
+import com.cgvsu.model.VertexNormals;
+import com.cgvsu.objreader.ReadProgress;
 import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameBuffer;
+import com.cgvsu.render_engine.ModelInstance;
+import com.cgvsu.render_engine.RenderSettings;
+import com.cgvsu.render_engine.SceneRenderer;
+import com.cgvsu.render_engine.ScreenBufferPool;
+import com.cgvsu.render_engine.VectorTransform;
 
 import com.cgvsu.objWriter.objWriter;
 
@@ -44,17 +60,50 @@ public class GuiController {
     @FXML
     private Label statusLabel;
 
-    private List<Model> models = new ArrayList<>();
-    private Model selectedModel = null;
+    @FXML
+    private CheckMenuItem vectorTransformItem;
+
+    final private float ROTATION = (float) Math.toRadians(15);
+
+    // экземпляры в порядке modelSelector; у копий одной модели сетка общая
+    private List<ModelInstance> models = new ArrayList<>();
+    private ModelInstance selectedModel = null;
+    // уже прочитанные файлы: повторное открытие добавляет экземпляр, не читая файл заново,
+    // пока размер и время изменения файла те же, что при чтении
+    private final Map<Path, LoadedMesh> loadedMeshes = new HashMap<>();
+    private final Map<PackedMesh, String> meshNames = new HashMap<>();
 
     private ComboBox<String> modelSelector;
 
+    // повторное открытие того же OBJ берёт готовую модель из двоичного кэша
+    private final MeshCache meshCache = MeshCache.inTempDirectory();
+
     private Camera camera = new Camera(
             new Vector3f(0, 00, 100),
             new Vector3f(0, 0, 0),
-            1.0F, 1, 0.01F, 100);
-
-    private Timeline timeline;
+            1.0F, 1, 0.01F, 1000);
+
+    // экранные координаты вершин, по буферу на экземпляр, но не больше SCREEN_BUFFERS буферов
+    private static final int SCREEN_BUFFERS = 64;
+    private final ScreenBufferPool screenBuffers = new ScreenBufferPool(SCREEN_BUFFERS);
+    private final RenderSettings renderSettings = new RenderSettings();
+    // кадр для режима заливки и картинка, через которую он выводится на Canvas
+    private final FrameBuffer frameBuffer = new FrameBuffer();
+    private WritableImage frameImage;
+    // режим сцены: каждый кадр рисуются все загруженные модели, а не только выбранная с копиями
+    private boolean sceneMode = false;
+    private final SceneRenderer sceneRenderer = new SceneRenderer(screenBuffers);
+    // сколько самых долгих моделей сцены показывать в строке состояния
+    private static final int SLOWEST_MODELS_SHOWN = 5;
+
+    // кадр рисуется только по запросу (requestRedraw); запросы до отрисовки склеиваются в один кадр
+    private boolean redrawScheduled = false;
+
+    // загрузка, которая идёт сейчас, или null
+    private Task<LoadedMesh> loadingTask;
+
+    private record LoadedMesh(PackedMesh mesh, SourceStamp stamp) {
+    }
 
 
     @FXML
@@ -64,6 +113,13 @@ public class GuiController {
         anchorPane.prefHeightProperty().addListener((ov, oldValue, newValue) -> canvas.setHeight(newValue.doubleValue()));
 
 
+        // без --add-modules jdk.incubator.vector векторного пути нет, переключать нечего
+        if (!VectorTransform.isAvailable()) {
+            vectorTransformItem.setSelected(false);
+            vectorTransformItem.setDisable(true);
+            renderSettings.vectorTransform = false;
+        }
+
         modelSelector = new ComboBox<>();
         modelSelector.setLayoutX(10);
         modelSelector.setLayoutY(35);
@@ -72,25 +128,106 @@ public class GuiController {
         modelSelector.setOnAction(e -> onModelSelected());
         anchorPane.getChildren().add(modelSelector);
 
-        // Создаём Timeline для анимации
-        timeline = new Timeline();
-        timeline.setCycleCount(Animation.INDEFINITE);
+        // щелчок по модели показывает, какой полигон под курсором
+        canvas.setOnMouseClicked(event -> onCanvasClicked(event.getX(), event.getY()));
 
-        KeyFrame frame = new KeyFrame(Duration.millis(15), event -> {
-            double width = canvas.getWidth();
-            double height = canvas.getHeight();
+        // размер Canvas меняется вместе с окном - перерисовать под новый размер
+        canvas.widthProperty().addListener((ov, oldValue, newValue) -> requestRedraw());
+        canvas.heightProperty().addListener((ov, oldValue, newValue) -> requestRedraw());
+        requestRedraw();
+    }
+
+    // Перерисовка, когда что-то поменялось: камера, модель, настройки или размер окна.
+    // Пока ничего не происходит, ничего и не рисуется, FX-поток простаивает. Кадр рисуется,
+    // как только FX-поток освободится, - не позже, чем при прежней перерисовке по таймеру раз в 15 мс
+    private void requestRedraw() {
+        if (redrawScheduled) {
+            return;
+        }
+        redrawScheduled = true;
+        Platform.runLater(this::redraw);
+    }
 
-            canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
-            camera.setAspectRatio((float) (width / height));
+    private void redraw() {
+        redrawScheduled = false;
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
 
-            // Рисуем модель
-            if (selectedModel != null) {
-                RenderEngine.render(canvas.getGraphicsContext2D(), camera, selectedModel, (int) width, (int) height);
+        canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
+        camera.setAspectRatio((float) (width / height));
+
+        // Рисуем всю сцену или выбранную модель вместе со всеми её копиями
+        if (sceneMode && !models.isEmpty()) {
+            if (renderSettings.rasterize) {
+                drawRasterized(canvas.getGraphicsContext2D(), models, (int) width, (int) height);
+            } else {
+                sceneRenderer.render(canvas.getGraphicsContext2D(), camera, models, (int) width, (int) height, renderSettings);
             }
-        });
+            showSceneTimings();
+        } else if (selectedModel != null) {
+            List<ModelInstance> instances = instancesOf(selectedModel.mesh);
+            if (renderSettings.rasterize) {
+                drawRasterized(canvas.getGraphicsContext2D(), instances, (int) width, (int) height);
+            } else {
+                for (ModelInstance instance : instances) {
+                    RenderEngine.render(canvas.getGraphicsContext2D(), camera, instance, (int) width, (int) height,
+                            screenBuffers.acquire(instance), renderSettings);
+                }
+            }
+        }
+    }
 
-        timeline.getKeyFrames().add(frame);
-        timeline.play();
+    // Время кадра и самых долгих моделей: преобразование с отбором + рисование
+    private void showSceneTimings() {
+        // пока идёт загрузка, в строке состояния её прогресс
+        if (loadingTask != null) {
+            return;
+        }
+        StringBuilder status = new StringBuilder(String.format("Сцена: моделей %d, кадр %.1f мс",
+                sceneRenderer.getModelCount(), sceneRenderer.getFrameNanos() / 1e6));
+        // копий на сцене могут быть сотни - показываются только самые долгие модели
+        List<Integer> slowest = new ArrayList<>();
+        for (int i = 0; i < sceneRenderer.getModelCount(); ++i) {
+            slowest.add(i);
+        }
+        slowest.sort(Comparator.comparingLong((Integer i) ->
+                sceneRenderer.getTransformNanos(i) + sceneRenderer.getDrawNanos(i)).reversed());
+        for (int i : slowest.subList(0, Math.min(SLOWEST_MODELS_SHOWN, slowest.size()))) {
+            status.append(String.format(" | %s: %.1f + %.1f мс", modelSelector.getItems().get(i),
+                    sceneRenderer.getTransformNanos(i) / 1e6, sceneRenderer.getDrawNanos(i) / 1e6));
+        }
+        statusLabel.setText(status.toString());
+    }
+
+    private List<ModelInstance> instancesOf(PackedMesh mesh) {
+        List<ModelInstance> instances = new ArrayList<>();
+        for (ModelInstance instance : models) {
+            if (instance.mesh == mesh) {
+                instances.add(instance);
+            }
+        }
+        return instances;
+    }
+
+    private void drawRasterized(GraphicsContext graphicsContext, List<ModelInstance> instances, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        frameBuffer.resize(width, height);
+        frameBuffer.clear(0); // прозрачный фон, под ним остаётся фон Canvas
+        if (sceneMode) {
+            sceneRenderer.rasterize(frameBuffer, camera, instances, width, height, renderSettings);
+        } else {
+            for (ModelInstance instance : instances) {
+                RenderEngine.rasterize(frameBuffer, camera, instance, width, height, screenBuffers.acquire(instance), renderSettings);
+            }
+        }
+
+        if (frameImage == null || (int) frameImage.getWidth() != width || (int) frameImage.getHeight() != height) {
+            frameImage = new WritableImage(width, height);
+        }
+        frameImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), frameBuffer.color, 0, width);
+        graphicsContext.drawImage(frameImage, 0, 0);
     }
 
     @FXML
@@ -105,38 +242,175 @@ public class GuiController {
             return;
         }
 
-        Path fileName = Path.of(file.getAbsolutePath());
+        loadModel(Path.of(file.getAbsolutePath()), file.getName());
+    }
 
-        try {
-            String fileContent = Files.readString(fileName);
-            Model loadedModel = ObjReader.read(fileContent);
+    // Модель читается в фоновом потоке, отрисовка в это время продолжается.
+    // В models и modelSelector модель попадает уже целиком, в FX-потоке, когда задача завершилась.
+    private void loadModel(Path fileName, String name) {
+        // новая загрузка заменяет ещё не закончившуюся
+        cancelLoading();
+
+        LoadedMesh loaded = loadedMeshes.get(fileName);
+        if (loaded != null) {
+            if (loaded.stamp().equals(currentStamp(fileName))) {
+                addInstance(new ModelInstance(loaded.mesh()));
+                return;
+            }
+            // файл изменился или пропал: читаем заново через кэш, уже открытые копии остаются как были
+            loadedMeshes.remove(fileName);
+        }
 
-            models.add(loadedModel);
-            modelSelector.getItems().add(file.getName()); //имя
-            modelSelector.getSelectionModel().selectLast(); //последняя=текущая
-            selectedModel = loadedModel;
+        Task<LoadedMesh> task = new Task<>() {
+            @Override
+            protected LoadedMesh call() throws IOException {
+                final Task<LoadedMesh> self = this;
+                // отметка снимается до чтения: если файл поменяют во время чтения, следующее открытие прочитает его заново
+                final SourceStamp stamp = SourceStamp.of(fileName);
+                PackedMesh mesh = meshCache.read(fileName, new ReadProgress() {
+                    @Override
+                    public void update(long bytesParsed, long totalBytes) {
+                        updateProgress(bytesParsed, totalBytes);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return self.isCancelled();
+                    }
+                }, parsed -> {
+                    // в файле не было vn - нормали вершин по полигонам, их же потом запишет Save Model.
+                    // Строятся до записи в кэш, так что открытие из кэша получает их готовыми
+                    if (parsed.polygons.normalIndices == null) {
+                        VertexNormals.build(parsed);
+                    }
+                });
+                // BVH в кэш не пишется: строится заново при каждой загрузке, это быстрее чтения
+                mesh.bvh = PolygonBvh.build(mesh);
+                // рёбра для каркаса - тоже здесь, чтобы первый кадр не ждал их на FX-потоке
+                mesh.edges = EdgeList.build(mesh.polygons);
+                return new LoadedMesh(mesh, stamp);
+            }
+        };
+
+        task.progressProperty().addListener((ov, oldValue, newValue) -> {
+            if (task == loadingTask && newValue.doubleValue() >= 0) {
+                statusLabel.setText(String.format("Загрузка %s: %d%%", name, Math.round(newValue.doubleValue() * 100)));
+            }
+        });
 
+        // события задачи приходят через очередь FX-потока: задача могла успеть закончиться,
+        // а её уже заменила новая загрузка - тогда ни модель, ни ошибку не показываем
+        task.setOnSucceeded(event -> {
+            if (task != loadingTask) {
+                return;
+            }
+            loadingTask = null;
+            PackedMesh loadedModel = task.getValue().mesh();
+
+            loadedMeshes.put(fileName, task.getValue());
+            meshNames.put(loadedModel, name);
+            addInstance(new ModelInstance(loadedModel));
+            buildLevelsOfDetail(loadedModel);
+        });
+
+        task.setOnFailed(event -> {
+            if (task != loadingTask) {
+                return;
+            }
+            loadingTask = null;
             updateStatusBar();
 
-            // todo: обработка ошибок
+            if (task.getException() instanceof IOException) {
+                //окошко ошибки
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+
+                alert.setTitle("Ошибка чтения файла");
+                alert.setHeaderText("Не удалось прочитать файл");
+                alert.setContentText("Файл может быть поврежден или занят другим процессом.");
+
+                alert.showAndWait();
+            } else {
+                // ObjReader выбросил исключение
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Ошибка формата файла");
+                alert.setHeaderText("Файл имеет неверный формат OBJ");
+                alert.setContentText("Подробности: " + task.getException().getMessage());
+                alert.showAndWait();
+            }
+        });
+
+        loadingTask = task;
+        statusLabel.setText("Загрузка " + name + "...");
+
+        Thread loader = new Thread(task, "model-loader");
+        loader.setDaemon(true); // не держит приложение при закрытии окна
+        loader.start();
+    }
+
+    // null - файл прочитать не удалось, тогда он не совпадёт ни с одной отметкой
+    private static SourceStamp currentStamp(Path fileName) {
+        try {
+            return SourceStamp.of(fileName);
         } catch (IOException exception) {
-            //окошко ошибки
-            Alert alert = new Alert(Alert.AlertType.ERROR);
+            return null;
+        }
+    }
 
-            alert.setTitle("Ошибка чтения файла");
-            alert.setHeaderText("Не удалось прочитать файл");
-            alert.setContentText("Файл может быть поврежден или занят другим процессом.");
+    // Упрощённые копии для отрисовки издалека строятся отдельно от загрузки: модель уже видна,
+    // а пока уровней нет, рисуется она сама
+    private void buildLevelsOfDetail(PackedMesh mesh) {
+        Task<LodChain> task = new Task<>() {
+            @Override
+            protected LodChain call() {
+                return LodChain.build(mesh);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            mesh.lods = task.getValue();
+            if (selectedModel != null && selectedModel.mesh == mesh) {
+                requestRedraw();
+                if (loadingTask == null) {
+                    updateStatusBar();
+                }
+            }
+        });
 
-            alert.showAndWait();
-        } catch (Exception exception) {
-            // ObjReader выбросил исключение
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Ошибка формата файла");
-            alert.setHeaderText("Файл имеет неверный формат OBJ");
-            alert.setContentText("Подробности: " + exception.getMessage());
-            alert.showAndWait();
+        Thread builder = new Thread(task, "lod-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @FXML
+    public void onCancelLoadingMenuItemClick() {
+        // об отмене пишем здесь, а не в событии задачи: то приходит позже и не знает, кто её отменил
+        if (loadingTask != null) {
+            cancelLoading();
+            statusLabel.setText("Загрузка отменена");
         }
+    }
 
+    private void cancelLoading() {
+        if (loadingTask != null) {
+            loadingTask.cancel();
+            loadingTask = null;
+        }
+    }
+
+    private void onCanvasClicked(double x, double y) {
+        if (selectedModel == null) {
+            return;
+        }
+        PolygonBvh.Hit hit = new PolygonBvh.Hit();
+        final long start = System.nanoTime();
+        final boolean found = RenderEngine.pick(camera, selectedModel, (float) x, (float) y,
+                (int) canvas.getWidth(), (int) canvas.getHeight(), hit);
+        final long micros = (System.nanoTime() - start) / 1000;
+        if (found) {
+            statusLabel.setText(String.format("Полигон %d, точка (%.3f, %.3f, %.3f) | поиск %d мкс",
+                    hit.polygon, hit.x, hit.y, hit.z, micros));
+        } else {
+            updateStatusBar();
+        }
     }
 
     @FXML
@@ -161,7 +435,7 @@ public class GuiController {
 
         String fileName = file.getAbsolutePath();
         try {
-            new objWriter().write(selectedModel, fileName);
+            new objWriter().write(selectedModel.mesh, fileName);
             //успешно
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Победа!");
@@ -188,47 +462,174 @@ public class GuiController {
             selectedModel = models.get(index);
         }
         updateStatusBar();
+        requestRedraw();
+
+    }
+
+    // Новый экземпляр попадает в список и сразу становится выбранным
+    private void addInstance(ModelInstance instance) {
+        final int copies = instancesOf(instance.mesh).size();
+        final String name = meshNames.get(instance.mesh);
+        models.add(instance);
+        modelSelector.getItems().add(copies == 0 ? name : name + " #" + (copies + 1)); //имя
+        modelSelector.getSelectionModel().selectLast(); //последняя=текущая
+        selectedModel = instance;
 
+        updateStatusBar();
+        requestRedraw();
     }
 
     //статус бар
     private void updateStatusBar() {
         if (selectedModel != null) {
-            int amountVertices = selectedModel.getVertices().size();
-            int amountPolygons = selectedModel.getPolygons().size();
-            statusLabel.setText(String.format("Вершин: %d | Полигонов: %d", amountVertices, amountPolygons));
+            PackedMesh mesh = selectedModel.mesh;
+            int amountVertices = mesh.getVertexCount();
+            int amountPolygons = mesh.getPolygonCount();
+            String status = String.format("Вершин: %d | Полигонов: %d", amountVertices, amountPolygons);
+            int copies = instancesOf(mesh).size();
+            if (copies > 1) {
+                status += String.format(" | Копий: %d", copies);
+            }
+            if (mesh.bvh != null) {
+                status += String.format(" | BVH: %d узлов, %d мс, %.1f МБ", mesh.bvh.getNodeCount(),
+                        mesh.bvh.getBuildMillis(), mesh.bvh.getMemoryBytes() / (1024.0 * 1024.0));
+            }
+            if (mesh.lods != null) {
+                status += String.format(" | LOD: %d ур., %d мс", mesh.lods.getLevelCount(),
+                        mesh.lods.getBuildMillis());
+            }
+            statusLabel.setText(status);
         } else {
             statusLabel.setText("Модель не загружена");
         }
     }
 
+    // Копия выбранной модели ставится справа от неё, на ширину модели с небольшим зазором
+    @FXML
+    public void handleAddInstance(ActionEvent actionEvent) {
+        if (selectedModel == null) {
+            return;
+        }
+        ModelInstance copy = selectedModel.copy();
+        copy.transform.translate(meshWidth(selectedModel.mesh) * copy.transform.getScaleX() * 1.2F, 0, 0);
+        addInstance(copy);
+    }
+
+    private static float meshWidth(PackedMesh mesh) {
+        if (mesh.bvh != null && mesh.bvh.getNodeCount() > 0) {
+            return mesh.bvh.nodeBounds[3] - mesh.bvh.nodeBounds[0];
+        }
+        return mesh.lods != null ? 2 * mesh.lods.radius : 1;
+    }
+
+    @FXML
+    public void handleRotateModel(ActionEvent actionEvent) {
+        if (selectedModel != null) {
+            selectedModel.transform.rotate(0, ROTATION, 0);
+            requestRedraw();
+        }
+    }
+
+    @FXML
+    public void handleScaleModelUp(ActionEvent actionEvent) {
+        if (selectedModel != null) {
+            selectedModel.transform.scale(1.25F);
+            requestRedraw();
+        }
+    }
+
+    @FXML
+    public void handleScaleModelDown(ActionEvent actionEvent) {
+        if (selectedModel != null) {
+            selectedModel.transform.scale(0.8F);
+            requestRedraw();
+        }
+    }
+
+    @FXML
+    public void handleResetModelTransform(ActionEvent actionEvent) {
+        if (selectedModel != null) {
+            selectedModel.transform.reset();
+            requestRedraw();
+        }
+    }
+
+    @FXML
+    public void handleSceneMode(ActionEvent actionEvent) {
+        sceneMode = ((CheckMenuItem) actionEvent.getSource()).isSelected();
+        updateStatusBar();
+        requestRedraw();
+    }
+
+    @FXML
+    public void handleParallelTransform(ActionEvent actionEvent) {
+        renderSettings.parallelTransform = ((CheckMenuItem) actionEvent.getSource()).isSelected();
+        requestRedraw();
+    }
+
+    @FXML
+    public void handleVectorTransform(ActionEvent actionEvent) {
+        renderSettings.vectorTransform = ((CheckMenuItem) actionEvent.getSource()).isSelected();
+        requestRedraw();
+    }
+
+    @FXML
+    public void handleRasterize(ActionEvent actionEvent) {
+        renderSettings.rasterize = ((CheckMenuItem) actionEvent.getSource()).isSelected();
+        requestRedraw();
+    }
+
+    @FXML
+    public void handleParallelRasterize(ActionEvent actionEvent) {
+        renderSettings.parallelRasterize = ((CheckMenuItem) actionEvent.getSource()).isSelected();
+        requestRedraw();
+    }
+
+    @FXML
+    public void handleBackFaceCulling(ActionEvent actionEvent) {
+        renderSettings.backFaceCulling = ((CheckMenuItem) actionEvent.getSource()).isSelected();
+        requestRedraw();
+    }
+
+    @FXML
+    public void handleLevelOfDetail(ActionEvent actionEvent) {
+        renderSettings.levelOfDetail = ((CheckMenuItem) actionEvent.getSource()).isSelected();
+        requestRedraw();
+    }
+
     @FXML
     public void handleCameraForward(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(0, 0, -TRANSLATION));
+        requestRedraw();
     }
 
     @FXML
     public void handleCameraBackward(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(0, 0, TRANSLATION));
+        requestRedraw();
     }
 
     @FXML
     public void handleCameraLeft(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(TRANSLATION, 0, 0));
+        requestRedraw();
     }
 
     @FXML
     public void handleCameraRight(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(-TRANSLATION, 0, 0));
+        requestRedraw();
     }
 
     @FXML
     public void handleCameraUp(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(0, TRANSLATION, 0));
+        requestRedraw();
     }
 
     @FXML
     public void handleCameraDown(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(0, -TRANSLATION, 0));
+        requestRedraw();
     }
 }
\ No newline at end of file
@@ -1,7 +1,14 @@
 package com.cgvsu;
 
+import java.util.Arrays;
+
 public class Main {
     public static void main(String[] args) {
+        // --batch: превью в PNG без окна (см. BatchRenderer)
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchRenderer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         Simple3DViewer.main(args);
     }
 }
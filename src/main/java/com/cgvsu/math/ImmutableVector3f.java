@@ -0,0 +1,48 @@
+package com.cgvsu.math;
+
+// Неизменяемый вектор: для констант и значений, которые отдают наружу, - его нельзя испортить,
+// поменяв на месте. Каждая операция создаёт новый вектор, поэтому в циклах по вершинам - Vector3f
+public record ImmutableVector3f(float x, float y, float z) {
+
+    public static final ImmutableVector3f ZERO = new ImmutableVector3f(0, 0, 0);
+    public static final ImmutableVector3f UNIT_X = new ImmutableVector3f(1, 0, 0);
+    public static final ImmutableVector3f UNIT_Y = new ImmutableVector3f(0, 1, 0);
+    public static final ImmutableVector3f UNIT_Z = new ImmutableVector3f(0, 0, 1);
+
+    public ImmutableVector3f(Vector3f vector) {
+        this(vector.x, vector.y, vector.z);
+    }
+
+    public ImmutableVector3f add(ImmutableVector3f other) {
+        return new ImmutableVector3f(x + other.x, y + other.y, z + other.z);
+    }
+
+    public ImmutableVector3f sub(ImmutableVector3f other) {
+        return new ImmutableVector3f(x - other.x, y - other.y, z - other.z);
+    }
+
+    public ImmutableVector3f scale(float factor) {
+        return new ImmutableVector3f(x * factor, y * factor, z * factor);
+    }
+
+    public ImmutableVector3f cross(ImmutableVector3f other) {
+        return new ImmutableVector3f(y * other.z - z * other.y, z * other.x - x * other.z, x * other.y - y * other.x);
+    }
+
+    public float dot(ImmutableVector3f other) {
+        return x * other.x + y * other.y + z * other.z;
+    }
+
+    public float length() {
+        return (float) Math.sqrt(dot(this));
+    }
+
+    public ImmutableVector3f normalize() {
+        final float length = length();
+        return length == 0 ? this : scale(1 / length);
+    }
+
+    public Vector3f toMutable() {
+        return new Vector3f(x, y, z);
+    }
+}
@@ -0,0 +1,292 @@
+package com.cgvsu.math;
+
+// Матрица 4x4 для векторов-строк: точка умножается на матрицу слева, p' = p * M,
+// поэтому перенос лежит в последней строке (m30, m31, m32), а преобразования применяются
+// в порядке умножения: A.mul(B) - сначала A, потом B. Элемент mRC - строка R, столбец C.
+// Все операции меняют матрицу на месте и ничего не создают.
+public class Matrix4f {
+
+    public float m00, m01, m02, m03;
+    public float m10, m11, m12, m13;
+    public float m20, m21, m22, m23;
+    public float m30, m31, m32, m33;
+
+    // нулевая матрица
+    public Matrix4f() {
+    }
+
+    // 16 чисел по строкам
+    public Matrix4f(float[] values) {
+        set(values);
+    }
+
+    public Matrix4f(Matrix4f other) {
+        set(other);
+    }
+
+    public static Matrix4f identity() {
+        return new Matrix4f().setIdentity();
+    }
+
+    public Matrix4f setIdentity() {
+        setZero();
+        m00 = m11 = m22 = m33 = 1;
+        return this;
+    }
+
+    public Matrix4f setZero() {
+        m00 = m01 = m02 = m03 = 0;
+        m10 = m11 = m12 = m13 = 0;
+        m20 = m21 = m22 = m23 = 0;
+        m30 = m31 = m32 = m33 = 0;
+        return this;
+    }
+
+    public Matrix4f set(float[] values) {
+        if (values.length != 16) {
+            throw new IllegalArgumentException("Матрица 4x4 задаётся 16 числами, получено " + values.length);
+        }
+        m00 = values[0]; m01 = values[1]; m02 = values[2]; m03 = values[3];
+        m10 = values[4]; m11 = values[5]; m12 = values[6]; m13 = values[7];
+        m20 = values[8]; m21 = values[9]; m22 = values[10]; m23 = values[11];
+        m30 = values[12]; m31 = values[13]; m32 = values[14]; m33 = values[15];
+        return this;
+    }
+
+    public Matrix4f set(Matrix4f other) {
+        m00 = other.m00; m01 = other.m01; m02 = other.m02; m03 = other.m03;
+        m10 = other.m10; m11 = other.m11; m12 = other.m12; m13 = other.m13;
+        m20 = other.m20; m21 = other.m21; m22 = other.m22; m23 = other.m23;
+        m30 = other.m30; m31 = other.m31; m32 = other.m32; m33 = other.m33;
+        return this;
+    }
+
+    // this = this * right
+    public Matrix4f mul(Matrix4f right) {
+        return mul(this, right);
+    }
+
+    // this = left * right; left или right может быть самим this
+    public Matrix4f mul(Matrix4f left, Matrix4f right) {
+        final float r00 = left.m00 * right.m00 + left.m01 * right.m10 + left.m02 * right.m20 + left.m03 * right.m30;
+        final float r01 = left.m00 * right.m01 + left.m01 * right.m11 + left.m02 * right.m21 + left.m03 * right.m31;
+        final float r02 = left.m00 * right.m02 + left.m01 * right.m12 + left.m02 * right.m22 + left.m03 * right.m32;
+        final float r03 = left.m00 * right.m03 + left.m01 * right.m13 + left.m02 * right.m23 + left.m03 * right.m33;
+
+        final float r10 = left.m10 * right.m00 + left.m11 * right.m10 + left.m12 * right.m20 + left.m13 * right.m30;
+        final float r11 = left.m10 * right.m01 + left.m11 * right.m11 + left.m12 * right.m21 + left.m13 * right.m31;
+        final float r12 = left.m10 * right.m02 + left.m11 * right.m12 + left.m12 * right.m22 + left.m13 * right.m32;
+        final float r13 = left.m10 * right.m03 + left.m11 * right.m13 + left.m12 * right.m23 + left.m13 * right.m33;
+
+        final float r20 = left.m20 * right.m00 + left.m21 * right.m10 + left.m22 * right.m20 + left.m23 * right.m30;
+        final float r21 = left.m20 * right.m01 + left.m21 * right.m11 + left.m22 * right.m21 + left.m23 * right.m31;
+        final float r22 = left.m20 * right.m02 + left.m21 * right.m12 + left.m22 * right.m22 + left.m23 * right.m32;
+        final float r23 = left.m20 * right.m03 + left.m21 * right.m13 + left.m22 * right.m23 + left.m23 * right.m33;
+
+        final float r30 = left.m30 * right.m00 + left.m31 * right.m10 + left.m32 * right.m20 + left.m33 * right.m30;
+        final float r31 = left.m30 * right.m01 + left.m31 * right.m11 + left.m32 * right.m21 + left.m33 * right.m31;
+        final float r32 = left.m30 * right.m02 + left.m31 * right.m12 + left.m32 * right.m22 + left.m33 * right.m32;
+        final float r33 = left.m30 * right.m03 + left.m31 * right.m13 + left.m32 * right.m23 + left.m33 * right.m33;
+
+        m00 = r00; m01 = r01; m02 = r02; m03 = r03;
+        m10 = r10; m11 = r11; m12 = r12; m13 = r13;
+        m20 = r20; m21 = r21; m22 = r22; m23 = r23;
+        m30 = r30; m31 = r31; m32 = r32; m33 = r33;
+        return this;
+    }
+
+    public Matrix4f transpose() {
+        float swap;
+        swap = m01; m01 = m10; m10 = swap;
+        swap = m02; m02 = m20; m20 = swap;
+        swap = m03; m03 = m30; m30 = swap;
+        swap = m12; m12 = m21; m21 = swap;
+        swap = m13; m13 = m31; m31 = swap;
+        swap = m23; m23 = m32; m32 = swap;
+        return this;
+    }
+
+    public float determinant() {
+        final double s0 = (double) m00 * m11 - (double) m10 * m01;
+        final double s1 = (double) m00 * m12 - (double) m10 * m02;
+        final double s2 = (double) m00 * m13 - (double) m10 * m03;
+        final double s3 = (double) m01 * m12 - (double) m11 * m02;
+        final double s4 = (double) m01 * m13 - (double) m11 * m03;
+        final double s5 = (double) m02 * m13 - (double) m12 * m03;
+        final double c5 = (double) m22 * m33 - (double) m32 * m23;
+        final double c4 = (double) m21 * m33 - (double) m31 * m23;
+        final double c3 = (double) m21 * m32 - (double) m31 * m22;
+        final double c2 = (double) m20 * m33 - (double) m30 * m23;
+        final double c1 = (double) m20 * m32 - (double) m30 * m22;
+        final double c0 = (double) m20 * m31 - (double) m30 * m21;
+        return (float) (s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0);
+    }
+
+    // Обращение на месте через миноры 2x2 (считаются в double - у матрицы вида-проекции
+    // с дальней плоскостью в тысячи раз дальше ближней во float теряется точность).
+    // false - матрица вырождена и осталась как была
+    public boolean invert() {
+        final double a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+        final double a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+        final double a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+        final double a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+
+        final double s0 = a00 * a11 - a10 * a01;
+        final double s1 = a00 * a12 - a10 * a02;
+        final double s2 = a00 * a13 - a10 * a03;
+        final double s3 = a01 * a12 - a11 * a02;
+        final double s4 = a01 * a13 - a11 * a03;
+        final double s5 = a02 * a13 - a12 * a03;
+
+        final double c5 = a22 * a33 - a32 * a23;
+        final double c4 = a21 * a33 - a31 * a23;
+        final double c3 = a21 * a32 - a31 * a22;
+        final double c2 = a20 * a33 - a30 * a23;
+        final double c1 = a20 * a32 - a30 * a22;
+        final double c0 = a20 * a31 - a30 * a21;
+
+        final double determinant = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        if (determinant == 0 || !Double.isFinite(determinant)) {
+            return false;
+        }
+        final double inverse = 1 / determinant;
+
+        m00 = (float) ((a11 * c5 - a12 * c4 + a13 * c3) * inverse);
+        m01 = (float) ((-a01 * c5 + a02 * c4 - a03 * c3) * inverse);
+        m02 = (float) ((a31 * s5 - a32 * s4 + a33 * s3) * inverse);
+        m03 = (float) ((-a21 * s5 + a22 * s4 - a23 * s3) * inverse);
+
+        m10 = (float) ((-a10 * c5 + a12 * c2 - a13 * c1) * inverse);
+        m11 = (float) ((a00 * c5 - a02 * c2 + a03 * c1) * inverse);
+        m12 = (float) ((-a30 * s5 + a32 * s2 - a33 * s1) * inverse);
+        m13 = (float) ((a20 * s5 - a22 * s2 + a23 * s1) * inverse);
+
+        m20 = (float) ((a10 * c4 - a11 * c2 + a13 * c0) * inverse);
+        m21 = (float) ((-a00 * c4 + a01 * c2 - a03 * c0) * inverse);
+        m22 = (float) ((a30 * s4 - a31 * s2 + a33 * s0) * inverse);
+        m23 = (float) ((-a20 * s4 + a21 * s2 - a23 * s0) * inverse);
+
+        m30 = (float) ((-a10 * c3 + a11 * c1 - a12 * c0) * inverse);
+        m31 = (float) ((a00 * c3 - a01 * c1 + a02 * c0) * inverse);
+        m32 = (float) ((-a30 * s3 + a31 * s1 - a32 * s0) * inverse);
+        m33 = (float) ((a20 * s3 - a21 * s1 + a22 * s0) * inverse);
+        return true;
+    }
+
+    // result = (x, y, z, 1) * M без деления на w
+    public Vector4f transform(float x, float y, float z, Vector4f result) {
+        return result.set(
+                (x * m00) + (y * m10) + (z * m20) + m30,
+                (x * m01) + (y * m11) + (z * m21) + m31,
+                (x * m02) + (y * m12) + (z * m22) + m32,
+                (x * m03) + (y * m13) + (z * m23) + m33);
+    }
+
+    // Точка после деления на w; result может быть самой point
+    public Vector3f transformPoint(Vector3f point, Vector3f result) {
+        final float x = (point.x * m00) + (point.y * m10) + (point.z * m20) + m30;
+        final float y = (point.x * m01) + (point.y * m11) + (point.z * m21) + m31;
+        final float z = (point.x * m02) + (point.y * m12) + (point.z * m22) + m32;
+        final float w = (point.x * m03) + (point.y * m13) + (point.z * m23) + m33;
+        return result.set(x / w, y / w, z / w);
+    }
+
+    // Направление (w = 0): перенос и деление не применяются
+    public Vector3f transformDirection(Vector3f direction, Vector3f result) {
+        return result.set(
+                (direction.x * m00) + (direction.y * m10) + (direction.z * m20),
+                (direction.x * m01) + (direction.y * m11) + (direction.z * m21),
+                (direction.x * m02) + (direction.y * m12) + (direction.z * m22));
+    }
+
+    // Точки [from, to) из массивов по осям в массивы по осям, с делением на w; src и dst могут совпадать.
+    // Элементы матрицы читаются в локальные переменные до цикла, ветвлений в цикле нет, и каждая ось -
+    // свой массив с шагом 1: такой цикл JIT разворачивает в векторные инструкции
+    public void transformPoints(
+            final float[] srcX, final float[] srcY, final float[] srcZ,
+            final float[] dstX, final float[] dstY, final float[] dstZ,
+            final int from, final int to) {
+        final float a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+        final float a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+        final float a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+        final float a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+        for (int i = from; i < to; ++i) {
+            final float vx = srcX[i];
+            final float vy = srcY[i];
+            final float vz = srcZ[i];
+            final float w = (vx * a03) + (vy * a13) + (vz * a23) + a33;
+            dstX[i] = ((vx * a00) + (vy * a10) + (vz * a20) + a30) / w;
+            dstY[i] = ((vx * a01) + (vy * a11) + (vz * a21) + a31) / w;
+            dstZ[i] = ((vx * a02) + (vy * a12) + (vz * a22) + a32) / w;
+        }
+    }
+
+    // То же для count точек, лежащих подряд тройками x, y, z (как в OBJ и вершинных буферах).
+    // Удобнее, когда данные уже так лежат, но векторизуется хуже, чем по осям
+    public void transformPoints(final float[] src, final int srcOffset, final float[] dst, final int dstOffset, final int count) {
+        final float a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+        final float a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+        final float a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+        final float a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+        for (int i = 0; i < count; ++i) {
+            final int s = srcOffset + 3 * i;
+            final int d = dstOffset + 3 * i;
+            final float vx = src[s];
+            final float vy = src[s + 1];
+            final float vz = src[s + 2];
+            final float w = (vx * a03) + (vy * a13) + (vz * a23) + a33;
+            dst[d] = ((vx * a00) + (vy * a10) + (vz * a20) + a30) / w;
+            dst[d + 1] = ((vx * a01) + (vy * a11) + (vz * a21) + a31) / w;
+            dst[d + 2] = ((vx * a02) + (vy * a12) + (vz * a22) + a32) / w;
+        }
+    }
+
+    public boolean epsilonEquals(Matrix4f other, float epsilon) {
+        return Math.abs(m00 - other.m00) <= epsilon && Math.abs(m01 - other.m01) <= epsilon
+                && Math.abs(m02 - other.m02) <= epsilon && Math.abs(m03 - other.m03) <= epsilon
+                && Math.abs(m10 - other.m10) <= epsilon && Math.abs(m11 - other.m11) <= epsilon
+                && Math.abs(m12 - other.m12) <= epsilon && Math.abs(m13 - other.m13) <= epsilon
+                && Math.abs(m20 - other.m20) <= epsilon && Math.abs(m21 - other.m21) <= epsilon
+                && Math.abs(m22 - other.m22) <= epsilon && Math.abs(m23 - other.m23) <= epsilon
+                && Math.abs(m30 - other.m30) <= epsilon && Math.abs(m31 - other.m31) <= epsilon
+                && Math.abs(m32 - other.m32) <= epsilon && Math.abs(m33 - other.m33) <= epsilon;
+    }
+
+    // Точное совпадение всех элементов; с допуском - epsilonEquals
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Matrix4f matrix)) {
+            return false;
+        }
+        return m00 == matrix.m00 && m01 == matrix.m01 && m02 == matrix.m02 && m03 == matrix.m03
+                && m10 == matrix.m10 && m11 == matrix.m11 && m12 == matrix.m12 && m13 == matrix.m13
+                && m20 == matrix.m20 && m21 == matrix.m21 && m22 == matrix.m22 && m23 == matrix.m23
+                && m30 == matrix.m30 && m31 == matrix.m31 && m32 == matrix.m32 && m33 == matrix.m33;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 17;
+        hash = 31 * hash + hash(m00); hash = 31 * hash + hash(m01); hash = 31 * hash + hash(m02); hash = 31 * hash + hash(m03);
+        hash = 31 * hash + hash(m10); hash = 31 * hash + hash(m11); hash = 31 * hash + hash(m12); hash = 31 * hash + hash(m13);
+        hash = 31 * hash + hash(m20); hash = 31 * hash + hash(m21); hash = 31 * hash + hash(m22); hash = 31 * hash + hash(m23);
+        hash = 31 * hash + hash(m30); hash = 31 * hash + hash(m31); hash = 31 * hash + hash(m32); hash = 31 * hash + hash(m33);
+        return hash;
+    }
+
+    // -0 и 0 равны по ==, поэтому и хеш у них должен быть один
+    private static int hash(float value) {
+        return Float.hashCode(value + 0.0F);
+    }
+
+    @Override
+    public String toString() {
+        return m00 + ", " + m01 + ", " + m02 + ", " + m03 + "\n"
+                + m10 + ", " + m11 + ", " + m12 + ", " + m13 + "\n"
+                + m20 + ", " + m21 + ", " + m22 + ", " + m23 + "\n"
+                + m30 + ", " + m31 + ", " + m32 + ", " + m33 + "\n";
+    }
+}
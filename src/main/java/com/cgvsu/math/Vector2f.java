@@ -1,14 +1,18 @@
 package com.cgvsu.math;
 
-// Это заготовка для собственной библиотеки для работы с линейной алгеброй
+// Изменяемый вектор на плоскости: текстурные координаты и точки экрана
 public class Vector2f {
+
+    public float x, y;
+
+    public Vector2f() {
+    }
+
     public Vector2f(float x, float y) {
         this.x = x;
         this.y = y;
     }
 
-    public float x, y;
-
     public float getX(){
         return this.x;
     }
@@ -16,4 +20,15 @@ public class Vector2f {
     public float getY(){
         return this.y;
     }
+
+    public Vector2f set(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ")";
+    }
 }
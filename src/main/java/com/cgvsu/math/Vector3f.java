@@ -1,20 +1,30 @@
 package com.cgvsu.math;
 
-// Это заготовка для собственной библиотеки для работы с линейной алгеброй
+// Изменяемый вектор: методы меняют сам вектор и возвращают его же, чтобы вызовы можно было сцеплять.
+// Временные векторы в циклах лучше заводить один раз и переиспользовать через set
 public class Vector3f {
+
+    // допуск для equals
+    public static final float EPSILON = 1e-7f;
+
+    public float x, y, z;
+
+    public Vector3f() {
+    }
+
     public Vector3f(float x, float y, float z) {
         this.x = x;
         this.y = y;
         this.z = z;
     }
 
-    public boolean equals(Vector3f other) {
-        // todo: желательно, чтобы это была глобальная константа
-        final float eps = 1e-7f;
-        return Math.abs(x - other.x) < eps && Math.abs(y - other.y) < eps && Math.abs(z - other.z) < eps;
+    public Vector3f(Vector3f other) {
+        this(other.x, other.y, other.z);
     }
 
-    public float x, y, z;
+    public boolean equals(Vector3f other) {
+        return Math.abs(x - other.x) < EPSILON && Math.abs(y - other.y) < EPSILON && Math.abs(z - other.z) < EPSILON;
+    }
 
     public float getX() {
         return this.x;
@@ -27,4 +37,68 @@ public class Vector3f {
     public float getZ() {
         return this.z;
     }
+
+    public Vector3f set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public Vector3f set(Vector3f other) {
+        return set(other.x, other.y, other.z);
+    }
+
+    public Vector3f add(Vector3f other) {
+        return set(x + other.x, y + other.y, z + other.z);
+    }
+
+    // this = a + b
+    public Vector3f add(Vector3f a, Vector3f b) {
+        return set(a.x + b.x, a.y + b.y, a.z + b.z);
+    }
+
+    public Vector3f sub(Vector3f other) {
+        return set(x - other.x, y - other.y, z - other.z);
+    }
+
+    // this = a - b
+    public Vector3f sub(Vector3f a, Vector3f b) {
+        return set(a.x - b.x, a.y - b.y, a.z - b.z);
+    }
+
+    public Vector3f scale(float factor) {
+        return set(x * factor, y * factor, z * factor);
+    }
+
+    // this = a x b; a или b может быть самим this
+    public Vector3f cross(Vector3f a, Vector3f b) {
+        return set(a.y * b.z - a.z * b.y, a.z * b.x - a.x * b.z, a.x * b.y - a.y * b.x);
+    }
+
+    public float dot(Vector3f other) {
+        return x * other.x + y * other.y + z * other.z;
+    }
+
+    public float lengthSquared() {
+        return x * x + y * y + z * z;
+    }
+
+    public float length() {
+        return (float) Math.sqrt(lengthSquared());
+    }
+
+    // нулевой вектор остаётся нулевым
+    public Vector3f normalize() {
+        final float length = length();
+        if (length == 0) {
+            return this;
+        }
+        return scale(1 / length);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ", " + z + ")";
+    }
 }
@@ -0,0 +1,30 @@
+package com.cgvsu.math;
+
+// Однородные координаты точки: результат Matrix4f.transform до деления на w
+public class Vector4f {
+
+    public float x, y, z, w;
+
+    public Vector4f() {
+    }
+
+    public Vector4f(float x, float y, float z, float w) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+    }
+
+    public Vector4f set(float x, float y, float z, float w) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ", " + z + ", " + w + ")";
+    }
+}
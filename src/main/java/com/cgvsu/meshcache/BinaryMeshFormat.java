@@ -0,0 +1,312 @@
+package com.cgvsu.meshcache;
+
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Двоичный формат PackedMesh: заголовок и подряд массивы float/int в little-endian,
+// в том же порядке, что поля PackedMesh. Чтение - это mmap и копирование массивов целиком,
+// без какого-либо разбора.
+//
+// Заголовок (все числа little-endian):
+//   8 байт  "CGVSUMSH"
+//   int     версия формата
+//   int     флаги: 1 - есть индексы текстур, 2 - есть индексы нормалей, 4 - есть номера строк
+//   long    размер исходного OBJ, long - время его изменения (SourceStamp)
+//   int x5  число вершин, текстурных вершин, нормалей, полигонов, углов полигонов
+// Дальше блоки: vertexX, vertexY, vertexZ, textureU, textureV, normalX, normalY, normalZ,
+// faceOffsets (полигонов + 1), vertexIndices, textureVertexIndices?, normalIndices?, lineNumbers?
+public class BinaryMeshFormat {
+
+    // 2: окно программы кладёт в кэш модели с построенными нормалями, в файлах версии 1 их нет
+    public static final int VERSION = 2;
+
+    private static final byte[] MAGIC = {'C', 'G', 'V', 'S', 'U', 'M', 'S', 'H'};
+    private static final int HEADER_SIZE = MAGIC.length + 4 + 4 + 8 + 8 + 5 * 4;
+
+    private static final int FLAG_TEXTURE_INDICES = 1;
+    private static final int FLAG_NORMAL_INDICES = 2;
+    private static final int FLAG_LINE_NUMBERS = 4;
+
+    // mmap ограничен 2 ГБ на один буфер, большие блоки читаются окнами
+    private static final int MAPPED_WINDOW_SIZE = 256 * 1024 * 1024;
+    // столько полигонов проверяет одна задача CheckRangeTask
+    private static final int CHECK_RANGE_THRESHOLD = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private BinaryMeshFormat() {
+    }
+
+    public static void write(PackedMesh mesh, SourceStamp stamp, Path file) throws IOException {
+        final PolygonStore polygons = mesh.polygons;
+        int flags = 0;
+        if (polygons.textureVertexIndices != null) {
+            flags |= FLAG_TEXTURE_INDICES;
+        }
+        if (polygons.normalIndices != null) {
+            flags |= FLAG_NORMAL_INDICES;
+        }
+        if (polygons.lineNumbers != null) {
+            flags |= FLAG_LINE_NUMBERS;
+        }
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(flags);
+            buffer.putLong(stamp.size());
+            buffer.putLong(stamp.lastModifiedMillis());
+            buffer.putInt(mesh.getVertexCount());
+            buffer.putInt(mesh.getTextureVertexCount());
+            buffer.putInt(mesh.getNormalCount());
+            buffer.putInt(polygons.size());
+            buffer.putInt(polygons.getCornerCount());
+
+            writeFloats(channel, buffer, mesh.vertexX);
+            writeFloats(channel, buffer, mesh.vertexY);
+            writeFloats(channel, buffer, mesh.vertexZ);
+            writeFloats(channel, buffer, mesh.textureU);
+            writeFloats(channel, buffer, mesh.textureV);
+            writeFloats(channel, buffer, mesh.normalX);
+            writeFloats(channel, buffer, mesh.normalY);
+            writeFloats(channel, buffer, mesh.normalZ);
+            writeInts(channel, buffer, polygons.faceOffsets);
+            writeInts(channel, buffer, polygons.vertexIndices);
+            if (polygons.textureVertexIndices != null) {
+                writeInts(channel, buffer, polygons.textureVertexIndices);
+            }
+            if (polygons.normalIndices != null) {
+                writeInts(channel, buffer, polygons.normalIndices);
+            }
+            if (polygons.lineNumbers != null) {
+                writeInts(channel, buffer, polygons.lineNumbers);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    // null, если файл другой версии или сделан из другого состояния исходника (expected);
+    // IOException, если файл обрезан или испорчен - в том числе если при верном размере
+    // начала полигонов не по порядку или индексы выходят за массивы: такая модель упала бы в отрисовке
+    public static PackedMesh read(Path file, SourceStamp expected) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (byte b : MAGIC) {
+                if (header.get() != b) {
+                    return null;
+                }
+            }
+            if (header.getInt() != VERSION) {
+                return null;
+            }
+            final int flags = header.getInt();
+            if (header.getLong() != expected.size() || header.getLong() != expected.lastModifiedMillis()) {
+                return null;
+            }
+            final int nVertices = readCount(header);
+            final int nTextureVertices = readCount(header);
+            final int nNormals = readCount(header);
+            final int nPolygons = readCount(header);
+            final int nCorners = readCount(header);
+
+            long expectedSize = HEADER_SIZE
+                    + 4L * (3L * nVertices + 2L * nTextureVertices + 3L * nNormals + nPolygons + 1 + nCorners);
+            if ((flags & FLAG_TEXTURE_INDICES) != 0) {
+                expectedSize += 4L * nCorners;
+            }
+            if ((flags & FLAG_NORMAL_INDICES) != 0) {
+                expectedSize += 4L * nCorners;
+            }
+            if ((flags & FLAG_LINE_NUMBERS) != 0) {
+                expectedSize += 4L * nPolygons;
+            }
+            if (fileSize != expectedSize) {
+                throw new IOException("Файл кэша повреждён: размер " + fileSize + " вместо " + expectedSize);
+            }
+
+            PackedMesh mesh = new PackedMesh();
+            long position = HEADER_SIZE;
+            mesh.vertexX = new float[nVertices];
+            position = readFloats(channel, position, mesh.vertexX);
+            mesh.vertexY = new float[nVertices];
+            position = readFloats(channel, position, mesh.vertexY);
+            mesh.vertexZ = new float[nVertices];
+            position = readFloats(channel, position, mesh.vertexZ);
+            mesh.textureU = new float[nTextureVertices];
+            position = readFloats(channel, position, mesh.textureU);
+            mesh.textureV = new float[nTextureVertices];
+            position = readFloats(channel, position, mesh.textureV);
+            mesh.normalX = new float[nNormals];
+            position = readFloats(channel, position, mesh.normalX);
+            mesh.normalY = new float[nNormals];
+            position = readFloats(channel, position, mesh.normalY);
+            mesh.normalZ = new float[nNormals];
+            position = readFloats(channel, position, mesh.normalZ);
+
+            PolygonStore polygons = mesh.polygons;
+            polygons.faceOffsets = new int[nPolygons + 1];
+            position = readInts(channel, position, polygons.faceOffsets);
+            polygons.vertexIndices = new int[nCorners];
+            position = readInts(channel, position, polygons.vertexIndices);
+            if ((flags & FLAG_TEXTURE_INDICES) != 0) {
+                polygons.textureVertexIndices = new int[nCorners];
+                position = readInts(channel, position, polygons.textureVertexIndices);
+            }
+            if ((flags & FLAG_NORMAL_INDICES) != 0) {
+                polygons.normalIndices = new int[nCorners];
+                position = readInts(channel, position, polygons.normalIndices);
+            }
+            if ((flags & FLAG_LINE_NUMBERS) != 0) {
+                polygons.lineNumbers = new int[nPolygons];
+                readInts(channel, position, polygons.lineNumbers);
+            }
+            if (polygons.faceOffsets[0] != 0 || polygons.faceOffsets[nPolygons] != nCorners) {
+                throw new IOException("Файл кэша повреждён: неверные начала полигонов");
+            }
+            if (!ForkJoinPool.commonPool().invoke(new CheckRangeTask(mesh, 0, nPolygons))) {
+                throw new IOException("Файл кэша повреждён: неверные индексы полигонов");
+            }
+            return mesh;
+        }
+    }
+
+    // Те же проверки, что ObjReader.checkPolygons после разбора, плюс порядок начал полигонов
+    private static boolean checkPolygons(PackedMesh mesh, int from, int to) {
+        final PolygonStore polygons = mesh.polygons;
+        final int nCorners = polygons.vertexIndices.length;
+        for (int polygonInd = from; polygonInd < to; ++polygonInd) {
+            final int start = polygons.faceOffsets[polygonInd];
+            final int end = polygons.faceOffsets[polygonInd + 1];
+            if (start < 0 || end < start || end > nCorners) {
+                return false;
+            }
+            if (!inRange(polygons.vertexIndices, start, end, mesh.getVertexCount())) {
+                return false;
+            }
+            // -1 у первого угла - у полигона нет текстур (нормалей), остальные углы не читаются
+            if (polygons.hasTextureVertexIndices(polygonInd)
+                    && !inRange(polygons.textureVertexIndices, start, end, mesh.getTextureVertexCount())) {
+                return false;
+            }
+            if (polygons.hasNormalIndices(polygonInd)
+                    && !inRange(polygons.normalIndices, start, end, mesh.getNormalCount())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inRange(int[] indices, int start, int end, int count) {
+        for (int i = start; i < end; ++i) {
+            if (indices[i] < 0 || indices[i] >= count) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class CheckRangeTask extends RecursiveTask<Boolean> {
+        private final PackedMesh mesh;
+        private final int from;
+        private final int to;
+
+        CheckRangeTask(PackedMesh mesh, int from, int to) {
+            this.mesh = mesh;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (to - from <= CHECK_RANGE_THRESHOLD) {
+                return checkPolygons(mesh, from, to);
+            }
+            final int middle = (from + to) >>> 1;
+            CheckRangeTask left = new CheckRangeTask(mesh, from, middle);
+            left.fork();
+            final boolean right = new CheckRangeTask(mesh, middle, to).compute();
+            return left.join() && right;
+        }
+    }
+
+    private static int readCount(ByteBuffer header) throws IOException {
+        final int count = header.getInt();
+        if (count < 0) {
+            throw new IOException("Файл кэша повреждён: отрицательный размер массива");
+        }
+        return count;
+    }
+
+    private static long readFloats(FileChannel channel, long position, float[] destination) throws IOException {
+        int offset = 0;
+        while (offset < destination.length) {
+            final int count = Math.min(destination.length - offset, MAPPED_WINDOW_SIZE / 4);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count);
+            window.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(destination, offset, count);
+            offset += count;
+            position += 4L * count;
+        }
+        return position;
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] destination) throws IOException {
+        int offset = 0;
+        while (offset < destination.length) {
+            final int count = Math.min(destination.length - offset, MAPPED_WINDOW_SIZE / 4);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count);
+            window.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(destination, offset, count);
+            offset += count;
+            position += 4L * count;
+        }
+        return position;
+    }
+
+    private static void writeFloats(FileChannel channel, ByteBuffer buffer, float[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            if (buffer.remaining() < 4) {
+                flush(channel, buffer);
+            }
+            final int count = Math.min(values.length - offset, buffer.remaining() / 4);
+            buffer.asFloatBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + 4 * count);
+            offset += count;
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            if (buffer.remaining() < 4) {
+                flush(channel, buffer);
+            }
+            final int count = Math.min(values.length - offset, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + 4 * count);
+            offset += count;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,102 @@
+package com.cgvsu.meshcache;
+
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.ReadProgress;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+// Кэш разобранных OBJ в двоичном формате BinaryMeshFormat.
+// Первый раз файл разбирается ObjReader'ом, и результат записывается в кэш; при следующих открытиях,
+// если размер и время изменения OBJ те же, модель просто отображается из файла кэша в память.
+// Файл кэша называется по SHA-256 абсолютного пути исходника.
+public class MeshCache {
+
+    private final Path directory;
+
+    public MeshCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public static MeshCache inTempDirectory() {
+        return new MeshCache(Path.of(System.getProperty("java.io.tmpdir"), "cgvsu-mesh-cache"));
+    }
+
+    public PackedMesh read(Path source) throws IOException {
+        return read(source, ReadProgress.NONE);
+    }
+
+    public PackedMesh read(Path source, ReadProgress progress) throws IOException {
+        return read(source, progress, mesh -> {
+        });
+    }
+
+    // Прогресс идёт только при разборе OBJ; отменённое чтение в кэш не попадает.
+    // afterParse дополняет только что разобранную модель до записи в кэш (например, нормалями),
+    // чтобы при следующем открытии это не считалось заново. Что именно досчитывать, решает вызывающий;
+    // у модели из кэша это уже сделано
+    public PackedMesh read(Path source, ReadProgress progress, Consumer<PackedMesh> afterParse) throws IOException {
+        final SourceStamp stamp = SourceStamp.of(source);
+        final Path cacheFile = cacheFileFor(source);
+
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                PackedMesh cached = BinaryMeshFormat.read(cacheFile, stamp);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (IOException ignored) {
+                // испорченный файл кэша просто пересоздаётся ниже
+            }
+        }
+
+        PackedMesh mesh = ObjReader.readMeshParallel(source, ForkJoinPool.commonPool(), false, progress);
+        afterParse.accept(mesh);
+        store(mesh, stamp, cacheFile);
+        return mesh;
+    }
+
+    public Path cacheFileFor(Path source) {
+        final String key = source.toAbsolutePath().normalize().toString();
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + ".mesh");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 обязан быть в любой JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Пишем во временный файл и переименовываем, чтобы при сбое не остался недописанный кэш.
+    // Не получилось записать кэш - не беда, модель уже прочитана.
+    private void store(PackedMesh mesh, SourceStamp stamp, Path cacheFile) {
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+            BinaryMeshFormat.write(mesh, stamp, temporary);
+            try {
+                Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
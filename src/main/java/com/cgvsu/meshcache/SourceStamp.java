@@ -0,0 +1,13 @@
+package com.cgvsu.meshcache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Размер и время изменения исходного OBJ: если хоть одно поменялось, кэш устарел
+public record SourceStamp(long size, long lastModifiedMillis) {
+
+    public static SourceStamp of(Path source) throws IOException {
+        return new SourceStamp(Files.size(source), Files.getLastModifiedTime(source).toMillis());
+    }
+}
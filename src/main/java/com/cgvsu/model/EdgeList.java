@@ -0,0 +1,102 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Уникальные рёбра модели для каркасной отрисовки. Ребро, общее для двух полигонов, при обходе
+// контуров полигонов рисовалось бы дважды (на швах - и больше), здесь оно одно.
+// Рёбра идут в порядке первого появления в полигонах, чтобы соседние рёбра брали соседние вершины.
+public class EdgeList {
+
+    // концы рёбер: ребро i - вершины vertexIndices[2 * i] и vertexIndices[2 * i + 1]
+    public final int[] vertexIndices;
+    // номер ребра у каждого угла полигонов (в порядке углов PolygonStore): ребро от предыдущего угла
+    // полигона к этому, -1 - у вырожденной стороны с одинаковыми концами
+    public final int[] cornerEdges;
+
+    private EdgeList(int[] vertexIndices, int[] cornerEdges) {
+        this.vertexIndices = vertexIndices;
+        this.cornerEdges = cornerEdges;
+    }
+
+    public int size() {
+        return vertexIndices.length / 2;
+    }
+
+    public static EdgeList build(PolygonStore polygons) {
+        Builder builder = new Builder(polygons.getCornerCount());
+        final int[] indices = polygons.vertexIndices;
+        for (int polygonInd = 0; polygonInd < polygons.size(); ++polygonInd) {
+            final int start = polygons.getStart(polygonInd);
+            final int end = start + polygons.getSize(polygonInd);
+            if (start == end) {
+                continue;
+            }
+            int previous = indices[end - 1];
+            for (int i = start; i < end; ++i) {
+                builder.add(i, previous, indices[i]);
+                previous = indices[i];
+            }
+        }
+        return builder.toEdgeList();
+    }
+
+    public static EdgeList build(List<Polygon> polygons) {
+        int nCorners = 0;
+        for (Polygon polygon : polygons) {
+            nCorners += polygon.getVertexIndices().size();
+        }
+        Builder builder = new Builder(nCorners);
+        int corner = 0;
+        for (Polygon polygon : polygons) {
+            final IntArrayView indices = polygon.getVertexIndices();
+            final int n = indices.size();
+            if (n == 0) {
+                continue;
+            }
+            int previous = indices.getInt(n - 1);
+            for (int i = 0; i < n; ++i) {
+                builder.add(corner++, previous, indices.getInt(i));
+                previous = indices.getInt(i);
+            }
+        }
+        return builder.toEdgeList();
+    }
+
+    private static class Builder {
+        private final LongHashSet seen;
+        private final int[] cornerEdges;
+        private int[] vertexIndices;
+        private int size = 0;
+
+        // у замкнутой сетки каждое ребро в двух полигонах: рёбер вдвое меньше, чем углов
+        Builder(int nCorners) {
+            seen = new LongHashSet(nCorners / 2);
+            cornerEdges = new int[nCorners];
+            vertexIndices = new int[Math.max(2, nCorners)];
+        }
+
+        void add(int corner, int from, int to) {
+            if (from == to) {
+                cornerEdges[corner] = -1;
+                return;
+            }
+            final int min = Math.min(from, to);
+            final int max = Math.max(from, to);
+            final int edge = seen.insert(((long) min << 32) | max);
+            cornerEdges[corner] = edge;
+            if (2 * edge < size) {
+                return;
+            }
+            if (size + 2 > vertexIndices.length) {
+                vertexIndices = Arrays.copyOf(vertexIndices, 2 * vertexIndices.length);
+            }
+            vertexIndices[size++] = from;
+            vertexIndices[size++] = to;
+        }
+
+        EdgeList toEdgeList() {
+            return new EdgeList(Arrays.copyOf(vertexIndices, size), cornerEdges);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.cgvsu.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Неизменяемый список поверх куска int[]: индексы хранятся без боксинга,
+// Integer создаётся только в момент чтения через get().
+public final class IntArrayView extends AbstractList<Integer> implements RandomAccess {
+
+    private final int[] array;
+    private final int offset;
+    private final int size;
+
+    public IntArrayView(int[] array, int offset, int size) {
+        this.array = array;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static IntArrayView copyOf(List<Integer> values) {
+        if (values instanceof IntArrayView view) {
+            return view;
+        }
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = values.get(i);
+        }
+        return new IntArrayView(array, 0, array.length);
+    }
+
+    // Доступ без боксинга
+    public int getInt(int index) {
+        return array[offset + index];
+    }
+
+    @Override
+    public Integer get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return array[offset + index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,114 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+// Цепочка уровней детализации одной модели: levels[0] - сама модель, каждый следующий уровень
+// примерно вчетверо проще предыдущего (при вдвое меньшем размере на экране треугольник занимает
+// те же пиксели). Уровни строятся MeshSimplifier'ом друг из друга, поэтому вся цепочка
+// стоит немногим больше, чем упрощение исходной модели один раз.
+public class LodChain {
+
+    // во сколько раз меньше треугольников на следующем уровне
+    public static final int REDUCTION = 4;
+    // проще этого уровни не строятся
+    public static final int MIN_TRIANGLES = 2000;
+    // сколько треугольников нужно на пиксель площади, которую модель занимает на экране
+    public static final float TRIANGLES_PER_PIXEL = 1;
+
+    public final PackedMesh[] levels;
+    public final int[] triangleCounts;
+
+    // описанная сфера модели - по ней оценивается размер на экране
+    public final float centerX;
+    public final float centerY;
+    public final float centerZ;
+    public final float radius;
+
+    private final long buildMillis;
+
+    private LodChain(PackedMesh[] levels, int[] triangleCounts, float[] sphere, long buildMillis) {
+        this.levels = levels;
+        this.triangleCounts = triangleCounts;
+        this.centerX = sphere[0];
+        this.centerY = sphere[1];
+        this.centerZ = sphere[2];
+        this.radius = sphere[3];
+        this.buildMillis = buildMillis;
+    }
+
+    public static LodChain build(PackedMesh mesh) {
+        final long startTime = System.nanoTime();
+        PackedMesh[] levels = {mesh};
+        int[] triangleCounts = {countTriangles(mesh)};
+        int nLevels = 1;
+        while (triangleCounts[nLevels - 1] / REDUCTION >= MIN_TRIANGLES) {
+            final int target = triangleCounts[nLevels - 1] / REDUCTION;
+            PackedMesh level = MeshSimplifier.simplify(levels[nLevels - 1], target);
+            final int nTriangles = level.getPolygonCount();
+            // дальше не упрощается без вывернутых треугольников - уровень почти не отличается от предыдущего
+            if (nTriangles > triangleCounts[nLevels - 1] * 3 / 4) {
+                break;
+            }
+            if (nLevels == levels.length) {
+                levels = Arrays.copyOf(levels, 2 * nLevels);
+                triangleCounts = Arrays.copyOf(triangleCounts, 2 * nLevels);
+            }
+            levels[nLevels] = level;
+            triangleCounts[nLevels] = nTriangles;
+            ++nLevels;
+        }
+        return new LodChain(Arrays.copyOf(levels, nLevels), Arrays.copyOf(triangleCounts, nLevels),
+                boundingSphere(mesh), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    // Самый простой уровень, у которого треугольников хватает на projectedRadius пикселей радиуса на экране
+    public int selectLevel(float projectedRadius) {
+        final double needed = TRIANGLES_PER_PIXEL * Math.PI * projectedRadius * projectedRadius;
+        int level = 0;
+        while (level + 1 < levels.length && triangleCounts[level + 1] >= needed) {
+            ++level;
+        }
+        return level;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    private static int countTriangles(PackedMesh mesh) {
+        int nTriangles = 0;
+        for (int polygonInd = 0; polygonInd < mesh.getPolygonCount(); ++polygonInd) {
+            nTriangles += Math.max(0, mesh.polygons.getSize(polygonInd) - 2);
+        }
+        return nTriangles;
+    }
+
+    // Центр - середина габаритного параллелепипеда, радиус - до самой дальней вершины
+    private static float[] boundingSphere(PackedMesh mesh) {
+        final int nVertices = mesh.getVertexCount();
+        if (nVertices == 0) {
+            return new float[]{0, 0, 0, 0};
+        }
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < nVertices; ++i) {
+            minX = Math.min(minX, mesh.vertexX[i]);
+            minY = Math.min(minY, mesh.vertexY[i]);
+            minZ = Math.min(minZ, mesh.vertexZ[i]);
+            maxX = Math.max(maxX, mesh.vertexX[i]);
+            maxY = Math.max(maxY, mesh.vertexY[i]);
+            maxZ = Math.max(maxZ, mesh.vertexZ[i]);
+        }
+        final float centerX = (minX + maxX) / 2, centerY = (minY + maxY) / 2, centerZ = (minZ + maxZ) / 2;
+        float maxDistance = 0;
+        for (int i = 0; i < nVertices; ++i) {
+            final float dx = mesh.vertexX[i] - centerX, dy = mesh.vertexY[i] - centerY, dz = mesh.vertexZ[i] - centerZ;
+            maxDistance = Math.max(maxDistance, dx * dx + dy * dy + dz * dz);
+        }
+        return new float[]{centerX, centerY, centerZ, (float) Math.sqrt(maxDistance)};
+    }
+}
@@ -0,0 +1,82 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+// Множество неотрицательных long без боксинга: открытая адресация с линейным пробированием
+// в одном массиве. Пустая ячейка - EMPTY, поэтому отрицательные ключи не хранятся.
+// HashSet<Long> на миллионах рёбер тратит на каждое по объекту Long и узлу таблицы.
+// Каждый ключ помнит свой порядковый номер добавления - по нему EdgeList находит номер ребра.
+class LongHashSet {
+
+    private static final long EMPTY = -1;
+    // при заполнении больше чем на 3/4 таблица растёт вдвое
+    private static final int MAX_LOAD_NUMERATOR = 3;
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    private long[] keys;
+    // номер добавления ключа из той же ячейки keys
+    private int[] numbers;
+    private int bits;
+    private int size = 0;
+
+    LongHashSet(int expectedSize) {
+        bits = 4;
+        while ((1L << bits) * MAX_LOAD_NUMERATOR / MAX_LOAD_DENOMINATOR < expectedSize) {
+            ++bits;
+        }
+        keys = new long[1 << bits];
+        numbers = new int[1 << bits];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Порядковый номер ключа: новый ключ получает номер size
+    int insert(long key) {
+        assert key >= 0;
+        final int mask = keys.length - 1;
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return numbers[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        final int number = size;
+        keys[slot] = key;
+        numbers[slot] = number;
+        if (++size > (long) keys.length * MAX_LOAD_NUMERATOR / MAX_LOAD_DENOMINATOR) {
+            grow();
+        }
+        return number;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Фибоначчиево хеширование: старшие биты произведения. У пар индексов вершин младшие биты
+    // меняются редко, и без перемешивания соседние рёбра шли бы в одну цепочку
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+    }
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        final int[] oldNumbers = numbers;
+        ++bits;
+        keys = new long[1 << bits];
+        numbers = new int[1 << bits];
+        Arrays.fill(keys, EMPTY);
+        final int mask = keys.length - 1;
+        for (int oldSlot = 0; oldSlot < oldKeys.length; ++oldSlot) {
+            final long key = oldKeys[oldSlot];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                numbers[slot] = oldNumbers[oldSlot];
+            }
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+// Упрощение сетки стягиванием рёбер с квадриками ошибки (Garland, Heckbert).
+// Вместо очереди с приоритетами - проходы с растущим порогом, как в Fast Quadric Mesh Simplification
+// (Sven Forstmann): за проход стягиваются все рёбра, ошибка которых меньше порога, а треугольники,
+// изменённые в этом проходе, до следующего не трогаются. Так почти без потери качества выходит в разы быстрее.
+// Полигоны сначала режутся веером на треугольники; на выходе только вершины и треугольники,
+// текстурные координаты и нормали не переносятся.
+public class MeshSimplifier {
+
+    private static final int MAX_ITERATIONS = 100;
+    // как быстро растёт порог от прохода к проходу: больше - быстрее, но хуже
+    private static final double AGGRESSIVENESS = 7;
+    // стягивание, после которого треугольник поворачивается сильнее этого (косинус угла), запрещено
+    private static final double MIN_NORMAL_COSINE = 0.2;
+
+    // вершины: координаты и квадрики (10 коэффициентов симметричной матрицы 4x4)
+    private final double[] vertexX;
+    private final double[] vertexY;
+    private final double[] vertexZ;
+    private final double[] quadrics;
+    private final boolean[] border;
+    // треугольники вершины v - ссылки refTriangle/refCorner с vertexStart[v], их vertexRefCount[v] штук
+    private final int[] vertexStart;
+    private final int[] vertexRefCount;
+
+    // треугольники: по три вершины, ошибки трёх рёбер и минимальная из них, нормаль
+    private int[] triangleVertices;
+    private double[] triangleErrors;
+    private double[] triangleNormals;
+    private boolean[] triangleDeleted;
+    private boolean[] triangleDirty;
+    private int triangleCount;
+
+    private int[] refTriangle = new int[0];
+    private int[] refCorner = new int[0];
+    private int refCount = 0;
+
+    // рабочие массивы: какие треугольники вокруг вершины исчезнут при стягивании
+    private boolean[] deleted0 = new boolean[16];
+    private boolean[] deleted1 = new boolean[16];
+    private final double[] point = new double[3];
+    private final double[] quadric = new double[10];
+
+    private MeshSimplifier(PackedMesh mesh) {
+        final int nVertices = mesh.getVertexCount();
+        vertexX = new double[nVertices];
+        vertexY = new double[nVertices];
+        vertexZ = new double[nVertices];
+        for (int i = 0; i < nVertices; ++i) {
+            vertexX[i] = mesh.vertexX[i];
+            vertexY[i] = mesh.vertexY[i];
+            vertexZ[i] = mesh.vertexZ[i];
+        }
+        quadrics = new double[10 * nVertices];
+        border = new boolean[nVertices];
+        vertexStart = new int[nVertices];
+        vertexRefCount = new int[nVertices];
+
+        final PolygonStore polygons = mesh.polygons;
+        int nTriangles = 0;
+        for (int polygonInd = 0; polygonInd < polygons.size(); ++polygonInd) {
+            nTriangles += Math.max(0, polygons.getSize(polygonInd) - 2);
+        }
+        triangleVertices = new int[3 * nTriangles];
+        int t = 0;
+        for (int polygonInd = 0; polygonInd < polygons.size(); ++polygonInd) {
+            final int start = polygons.getStart(polygonInd);
+            final int end = start + polygons.getSize(polygonInd);
+            for (int i = start + 2; i < end; ++i) {
+                triangleVertices[3 * t] = polygons.vertexIndices[start];
+                triangleVertices[3 * t + 1] = polygons.vertexIndices[i - 1];
+                triangleVertices[3 * t + 2] = polygons.vertexIndices[i];
+                ++t;
+            }
+        }
+        triangleCount = nTriangles;
+        triangleErrors = new double[4 * nTriangles];
+        triangleNormals = new double[3 * nTriangles];
+        triangleDeleted = new boolean[nTriangles];
+        triangleDirty = new boolean[nTriangles];
+    }
+
+    // Новая сетка примерно из targetTriangles треугольников (меньше не бывает, больше - если упрощать дальше
+    // нельзя, не выворачивая треугольники). Исходная сетка не меняется
+    public static PackedMesh simplify(PackedMesh mesh, int targetTriangles) {
+        MeshSimplifier simplifier = new MeshSimplifier(mesh);
+        simplifier.run(targetTriangles);
+        return simplifier.toMesh();
+    }
+
+    private void run(final int targetTriangles) {
+        int deletedTriangles = 0;
+        final int startCount = triangleCount;
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; ++iteration) {
+            if (startCount - deletedTriangles <= targetTriangles) {
+                break;
+            }
+            // время от времени выбрасываем удалённые треугольники и пересобираем ссылки
+            if (iteration % 5 == 0) {
+                updateMesh(iteration);
+            }
+            for (int t = 0; t < triangleCount; ++t) {
+                triangleDirty[t] = false;
+            }
+
+            final double threshold = 0.000000001 * Math.pow(iteration + 3, AGGRESSIVENESS);
+            for (int t = 0; t < triangleCount; ++t) {
+                if (triangleErrors[4 * t + 3] > threshold || triangleDeleted[t] || triangleDirty[t]) {
+                    continue;
+                }
+                for (int j = 0; j < 3; ++j) {
+                    if (triangleErrors[4 * t + j] >= threshold) {
+                        continue;
+                    }
+                    final int i0 = triangleVertices[3 * t + j];
+                    final int i1 = triangleVertices[3 * t + (j + 1) % 3];
+                    // край сетки стягиваем только вдоль края
+                    if (border[i0] != border[i1]) {
+                        continue;
+                    }
+
+                    calculateError(i0, i1, point);
+                    final double px = point[0], py = point[1], pz = point[2];
+                    if (deleted0.length < vertexRefCount[i0]) {
+                        deleted0 = new boolean[2 * vertexRefCount[i0]];
+                    }
+                    if (deleted1.length < vertexRefCount[i1]) {
+                        deleted1 = new boolean[2 * vertexRefCount[i1]];
+                    }
+                    if (flipped(px, py, pz, i1, i0, deleted0) || flipped(px, py, pz, i0, i1, deleted1)) {
+                        continue;
+                    }
+
+                    vertexX[i0] = px;
+                    vertexY[i0] = py;
+                    vertexZ[i0] = pz;
+                    for (int k = 0; k < 10; ++k) {
+                        quadrics[10 * i0 + k] += quadrics[10 * i1 + k];
+                    }
+
+                    // новые ссылки i0 дописываются в конец и, если влезают, переносятся на старое место
+                    final int newStart = refCount;
+                    deletedTriangles += updateTriangles(i0, i0, deleted0);
+                    deletedTriangles += updateTriangles(i0, i1, deleted1);
+                    final int newCount = refCount - newStart;
+                    if (newCount <= vertexRefCount[i0]) {
+                        System.arraycopy(refTriangle, newStart, refTriangle, vertexStart[i0], newCount);
+                        System.arraycopy(refCorner, newStart, refCorner, vertexStart[i0], newCount);
+                        refCount = newStart;
+                    } else {
+                        vertexStart[i0] = newStart;
+                    }
+                    vertexRefCount[i0] = newCount;
+                    break;
+                }
+                if (startCount - deletedTriangles <= targetTriangles) {
+                    break;
+                }
+            }
+        }
+        compactTriangles();
+    }
+
+    // Сместит ли перенос вершины keep в точку p треугольники вокруг неё так, что они перевернутся.
+    // Попутно отмечает в deleted треугольники, которые содержат ребро keep-other и при стягивании исчезнут
+    private boolean flipped(final double px, final double py, final double pz,
+                            final int other, final int keep, final boolean[] deleted) {
+        for (int k = 0; k < vertexRefCount[keep]; ++k) {
+            final int t = refTriangle[vertexStart[keep] + k];
+            if (triangleDeleted[t]) {
+                continue;
+            }
+            final int corner = refCorner[vertexStart[keep] + k];
+            final int id1 = triangleVertices[3 * t + (corner + 1) % 3];
+            final int id2 = triangleVertices[3 * t + (corner + 2) % 3];
+            if (id1 == other || id2 == other) {
+                deleted[k] = true;
+                continue;
+            }
+            final double d1x = vertexX[id1] - px, d1y = vertexY[id1] - py, d1z = vertexZ[id1] - pz;
+            final double d2x = vertexX[id2] - px, d2y = vertexY[id2] - py, d2z = vertexZ[id2] - pz;
+            final double nx = d1y * d2z - d1z * d2y, ny = d1z * d2x - d1x * d2z, nz = d1x * d2y - d1y * d2x;
+            final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            deleted[k] = false;
+            // проверки на почти вырожденный треугольник нет: тонкие треугольники у полюсов UV-сферы
+            // и в сканах тогда не стягиваются никогда. Нулевая площадь отсекается здесь же (NaN)
+            if (!((nx * triangleNormals[3 * t] + ny * triangleNormals[3 * t + 1] + nz * triangleNormals[3 * t + 2]) / length
+                    >= MIN_NORMAL_COSINE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Переводит треугольники вершины from на вершину keep; возвращает, сколько треугольников удалено
+    private int updateTriangles(final int keep, final int from, final boolean[] deleted) {
+        int nDeleted = 0;
+        final int start = vertexStart[from];
+        final int count = vertexRefCount[from];
+        for (int k = 0; k < count; ++k) {
+            final int t = refTriangle[start + k];
+            final int corner = refCorner[start + k];
+            if (triangleDeleted[t]) {
+                continue;
+            }
+            if (deleted[k]) {
+                triangleDeleted[t] = true;
+                ++nDeleted;
+                continue;
+            }
+            triangleVertices[3 * t + corner] = keep;
+            triangleDirty[t] = true;
+            updateTriangleErrors(t);
+            addRef(t, corner);
+        }
+        return nDeleted;
+    }
+
+    private void updateTriangleErrors(final int t) {
+        double minError = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < 3; ++j) {
+            final double error = calculateError(triangleVertices[3 * t + j], triangleVertices[3 * t + (j + 1) % 3], point);
+            triangleErrors[4 * t + j] = error;
+            minError = Math.min(minError, error);
+        }
+        triangleErrors[4 * t + 3] = minError;
+    }
+
+    private void addRef(final int t, final int corner) {
+        if (refCount == refTriangle.length) {
+            final int capacity = Math.max(16, refTriangle.length + (refTriangle.length >> 1));
+            refTriangle = Arrays.copyOf(refTriangle, capacity);
+            refCorner = Arrays.copyOf(refCorner, capacity);
+        }
+        refTriangle[refCount] = t;
+        refCorner[refCount] = corner;
+        ++refCount;
+    }
+
+    private void updateMesh(final int iteration) {
+        if (iteration > 0) {
+            compactTriangles();
+        }
+
+        // ссылки вершина -> треугольники заново, подряд по вершинам
+        Arrays.fill(vertexRefCount, 0);
+        for (int i = 0; i < 3 * triangleCount; ++i) {
+            ++vertexRefCount[triangleVertices[i]];
+        }
+        int start = 0;
+        for (int v = 0; v < vertexStart.length; ++v) {
+            vertexStart[v] = start;
+            start += vertexRefCount[v];
+            vertexRefCount[v] = 0;
+        }
+        if (refTriangle.length < start) {
+            refTriangle = new int[start];
+            refCorner = new int[start];
+        }
+        for (int t = 0; t < triangleCount; ++t) {
+            for (int j = 0; j < 3; ++j) {
+                final int v = triangleVertices[3 * t + j];
+                final int ref = vertexStart[v] + vertexRefCount[v]++;
+                refTriangle[ref] = t;
+                refCorner[ref] = j;
+            }
+        }
+        refCount = start;
+
+        if (iteration == 0) {
+            findBorder();
+            initQuadrics();
+        }
+    }
+
+    // Ребро края принадлежит одному треугольнику: у вершины есть сосед, с которым она в одном треугольнике
+    private void findBorder() {
+        int[] neighbours = new int[16];
+        int[] neighbourCounts = new int[16];
+        for (int v = 0; v < vertexStart.length; ++v) {
+            int nNeighbours = 0;
+            for (int k = 0; k < vertexRefCount[v]; ++k) {
+                final int t = refTriangle[vertexStart[v] + k];
+                for (int j = 0; j < 3; ++j) {
+                    final int id = triangleVertices[3 * t + j];
+                    int n = 0;
+                    while (n < nNeighbours && neighbours[n] != id) {
+                        ++n;
+                    }
+                    if (n == nNeighbours) {
+                        if (nNeighbours == neighbours.length) {
+                            neighbours = Arrays.copyOf(neighbours, 2 * nNeighbours);
+                            neighbourCounts = Arrays.copyOf(neighbourCounts, 2 * nNeighbours);
+                        }
+                        neighbours[nNeighbours] = id;
+                        neighbourCounts[nNeighbours++] = 1;
+                    } else {
+                        ++neighbourCounts[n];
+                    }
+                }
+            }
+            for (int n = 0; n < nNeighbours; ++n) {
+                if (neighbourCounts[n] == 1) {
+                    border[neighbours[n]] = true;
+                }
+            }
+        }
+    }
+
+    // Квадрика вершины - сумма квадрик плоскостей её треугольников
+    private void initQuadrics() {
+        for (int t = 0; t < triangleCount; ++t) {
+            final int v0 = triangleVertices[3 * t], v1 = triangleVertices[3 * t + 1], v2 = triangleVertices[3 * t + 2];
+            final double ux = vertexX[v1] - vertexX[v0], uy = vertexY[v1] - vertexY[v0], uz = vertexZ[v1] - vertexZ[v0];
+            final double wx = vertexX[v2] - vertexX[v0], wy = vertexY[v2] - vertexY[v0], wz = vertexZ[v2] - vertexZ[v0];
+            double nx = uy * wz - uz * wy, ny = uz * wx - ux * wz, nz = ux * wy - uy * wx;
+            final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                nx /= length;
+                ny /= length;
+                nz /= length;
+            }
+            triangleNormals[3 * t] = nx;
+            triangleNormals[3 * t + 1] = ny;
+            triangleNormals[3 * t + 2] = nz;
+            final double d = -(nx * vertexX[v0] + ny * vertexY[v0] + nz * vertexZ[v0]);
+            for (int j = 0; j < 3; ++j) {
+                final int q = 10 * triangleVertices[3 * t + j];
+                quadrics[q] += nx * nx;
+                quadrics[q + 1] += nx * ny;
+                quadrics[q + 2] += nx * nz;
+                quadrics[q + 3] += nx * d;
+                quadrics[q + 4] += ny * ny;
+                quadrics[q + 5] += ny * nz;
+                quadrics[q + 6] += ny * d;
+                quadrics[q + 7] += nz * nz;
+                quadrics[q + 8] += nz * d;
+                quadrics[q + 9] += d * d;
+            }
+        }
+        for (int t = 0; t < triangleCount; ++t) {
+            updateTriangleErrors(t);
+        }
+    }
+
+    // Ошибка стягивания ребра (v1, v2) и точка, куда переносится вершина: минимум суммы квадрик,
+    // а если матрица вырождена или ребро на краю - лучший из концов и середины
+    private double calculateError(final int v1, final int v2, final double[] result) {
+        final double[] q = quadric;
+        for (int k = 0; k < 10; ++k) {
+            q[k] = quadrics[10 * v1 + k] + quadrics[10 * v2 + k];
+        }
+        final double det = det(q, 0, 1, 2, 1, 4, 5, 2, 5, 7);
+        if (det != 0 && !(border[v1] && border[v2])) {
+            result[0] = -1 / det * det(q, 1, 2, 3, 4, 5, 6, 5, 7, 8);
+            result[1] = 1 / det * det(q, 0, 2, 3, 1, 5, 6, 2, 7, 8);
+            result[2] = -1 / det * det(q, 0, 1, 3, 1, 4, 6, 2, 5, 8);
+            return vertexError(q, result[0], result[1], result[2]);
+        }
+        final double error1 = vertexError(q, vertexX[v1], vertexY[v1], vertexZ[v1]);
+        final double error2 = vertexError(q, vertexX[v2], vertexY[v2], vertexZ[v2]);
+        final double mx = (vertexX[v1] + vertexX[v2]) / 2, my = (vertexY[v1] + vertexY[v2]) / 2, mz = (vertexZ[v1] + vertexZ[v2]) / 2;
+        final double error3 = vertexError(q, mx, my, mz);
+        final double error = Math.min(error1, Math.min(error2, error3));
+        if (error == error1) {
+            result[0] = vertexX[v1];
+            result[1] = vertexY[v1];
+            result[2] = vertexZ[v1];
+        } else if (error == error2) {
+            result[0] = vertexX[v2];
+            result[1] = vertexY[v2];
+            result[2] = vertexZ[v2];
+        } else {
+            result[0] = mx;
+            result[1] = my;
+            result[2] = mz;
+        }
+        return error;
+    }
+
+    private static double det(final double[] q, int a11, int a12, int a13, int a21, int a22, int a23, int a31, int a32, int a33) {
+        return q[a11] * q[a22] * q[a33] + q[a13] * q[a21] * q[a32] + q[a12] * q[a23] * q[a31]
+                - q[a13] * q[a22] * q[a31] - q[a11] * q[a23] * q[a32] - q[a12] * q[a21] * q[a33];
+    }
+
+    private static double vertexError(final double[] q, final double x, final double y, final double z) {
+        return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x + q[4] * y * y
+                + 2 * q[5] * y * z + 2 * q[6] * y + q[7] * z * z + 2 * q[8] * z + q[9];
+    }
+
+    private void compactTriangles() {
+        int count = 0;
+        for (int t = 0; t < triangleCount; ++t) {
+            if (triangleDeleted[t]) {
+                continue;
+            }
+            if (count != t) {
+                System.arraycopy(triangleVertices, 3 * t, triangleVertices, 3 * count, 3);
+                System.arraycopy(triangleErrors, 4 * t, triangleErrors, 4 * count, 4);
+                System.arraycopy(triangleNormals, 3 * t, triangleNormals, 3 * count, 3);
+                triangleDirty[count] = triangleDirty[t];
+                triangleDeleted[count] = false;
+            }
+            ++count;
+        }
+        triangleCount = count;
+    }
+
+    // Оставшиеся треугольники и только те вершины, на которые они ссылаются
+    private PackedMesh toMesh() {
+        final int[] newIndex = new int[vertexX.length];
+        Arrays.fill(newIndex, -1);
+        int nVertices = 0;
+        for (int i = 0; i < 3 * triangleCount; ++i) {
+            if (newIndex[triangleVertices[i]] < 0) {
+                newIndex[triangleVertices[i]] = nVertices++;
+            }
+        }
+
+        PackedMesh result = new PackedMesh();
+        result.vertexX = new float[nVertices];
+        result.vertexY = new float[nVertices];
+        result.vertexZ = new float[nVertices];
+        for (int v = 0; v < vertexX.length; ++v) {
+            if (newIndex[v] >= 0) {
+                result.vertexX[newIndex[v]] = (float) vertexX[v];
+                result.vertexY[newIndex[v]] = (float) vertexY[v];
+                result.vertexZ[newIndex[v]] = (float) vertexZ[v];
+            }
+        }
+        result.polygons.faceOffsets = new int[triangleCount + 1];
+        result.polygons.vertexIndices = new int[3 * triangleCount];
+        for (int t = 0; t < triangleCount; ++t) {
+            result.polygons.faceOffsets[t + 1] = 3 * (t + 1);
+            for (int j = 0; j < 3; ++j) {
+                result.polygons.vertexIndices[3 * t + j] = newIndex[triangleVertices[3 * t + j]];
+            }
+        }
+        return result;
+    }
+}
@@ -12,6 +12,9 @@ public class Model {
     public ArrayList<Vector3f> normals = new ArrayList<Vector3f>();
     public ArrayList<Polygon> polygons = new ArrayList<Polygon>();
 
+    // уникальные рёбра для каркаса, строятся при первой отрисовке; после правки polygons - сбросить в null
+    public EdgeList edges = null;
+
 
     public ArrayList<Vector3f> getVertices() {
         return this.vertices;
@@ -0,0 +1,115 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+
+// Упакованная модель для больших файлов.
+// Координаты лежат в массивах float по осям (x отдельно, y отдельно, z отдельно),
+// индексы всех полигонов - подряд в общих массивах int (см. PolygonStore). В отличие от Model здесь нет
+// отдельного объекта на каждую вершину и на каждый индекс, поэтому памяти нужно в разы меньше,
+// а проход по вершинам идёт последовательно по памяти.
+public class PackedMesh {
+
+    public float[] vertexX = new float[0];
+    public float[] vertexY = new float[0];
+    public float[] vertexZ = new float[0];
+
+    public float[] textureU = new float[0];
+    public float[] textureV = new float[0];
+
+    public float[] normalX = new float[0];
+    public float[] normalY = new float[0];
+    public float[] normalZ = new float[0];
+
+    public PolygonStore polygons = new PolygonStore();
+
+    // пространственный индекс по полигонам для отбора по пирамиде видимости и выбора мышью;
+    // строится после загрузки (PolygonBvh.build), null - не построен
+    public PolygonBvh bvh = null;
+
+    // упрощённые копии модели для отрисовки издалека; строятся в фоне после загрузки (LodChain.build),
+    // null - не построены, рисуется сама модель
+    public LodChain lods = null;
+
+    // уникальные рёбра для каркаса; строятся при первой каркасной отрисовке или после загрузки (EdgeList.build)
+    public EdgeList edges = null;
+
+    public int getVertexCount() {
+        return vertexX.length;
+    }
+
+    public int getTextureVertexCount() {
+        return textureU.length;
+    }
+
+    public int getNormalCount() {
+        return normalX.length;
+    }
+
+    public int getPolygonCount() {
+        return polygons.size();
+    }
+
+    // Переход к объектной модели для старого кода, который работает со списками
+    public Model toModel() {
+        Model model = new Model();
+
+        model.vertices.ensureCapacity(getVertexCount());
+        for (int i = 0; i < getVertexCount(); ++i) {
+            model.vertices.add(new Vector3f(vertexX[i], vertexY[i], vertexZ[i]));
+        }
+        model.textureVertices.ensureCapacity(getTextureVertexCount());
+        for (int i = 0; i < getTextureVertexCount(); ++i) {
+            model.textureVertices.add(new Vector2f(textureU[i], textureV[i]));
+        }
+        model.normals.ensureCapacity(getNormalCount());
+        for (int i = 0; i < getNormalCount(); ++i) {
+            model.normals.add(new Vector3f(normalX[i], normalY[i], normalZ[i]));
+        }
+
+        // полигоны - окна в массивы polygons, индексы не копируются и не боксятся
+        model.polygons.ensureCapacity(getPolygonCount());
+        for (int polygonInd = 0; polygonInd < getPolygonCount(); ++polygonInd) {
+            model.polygons.add(polygons.get(polygonInd));
+        }
+        return model;
+    }
+
+    public static PackedMesh fromModel(Model model) {
+        PackedMesh mesh = new PackedMesh();
+
+        final int nVertices = model.vertices.size();
+        mesh.vertexX = new float[nVertices];
+        mesh.vertexY = new float[nVertices];
+        mesh.vertexZ = new float[nVertices];
+        for (int i = 0; i < nVertices; ++i) {
+            Vector3f vertex = model.vertices.get(i);
+            mesh.vertexX[i] = vertex.x;
+            mesh.vertexY[i] = vertex.y;
+            mesh.vertexZ[i] = vertex.z;
+        }
+
+        final int nTextureVertices = model.textureVertices.size();
+        mesh.textureU = new float[nTextureVertices];
+        mesh.textureV = new float[nTextureVertices];
+        for (int i = 0; i < nTextureVertices; ++i) {
+            Vector2f textureVertex = model.textureVertices.get(i);
+            mesh.textureU[i] = textureVertex.x;
+            mesh.textureV[i] = textureVertex.y;
+        }
+
+        final int nNormals = model.normals.size();
+        mesh.normalX = new float[nNormals];
+        mesh.normalY = new float[nNormals];
+        mesh.normalZ = new float[nNormals];
+        for (int i = 0; i < nNormals; ++i) {
+            Vector3f normal = model.normals.get(i);
+            mesh.normalX[i] = normal.x;
+            mesh.normalY[i] = normal.y;
+            mesh.normalZ[i] = normal.z;
+        }
+
+        mesh.polygons = PolygonStore.fromPolygons(model.polygons);
+        return mesh;
+    }
+}
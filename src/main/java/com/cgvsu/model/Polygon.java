@@ -1,45 +1,54 @@
 package com.cgvsu.model;
 
-import java.util.ArrayList;
+import java.util.List;
 
+// Индексы хранятся в int[] без боксинга. Полигон из PolygonStore - это окно в общие массивы хранилища,
+// своих копий индексов у него нет.
 public class Polygon {
 
-    private ArrayList<Integer> vertexIndices;
-    private ArrayList<Integer> textureVertexIndices;
-    private ArrayList<Integer> normalIndices;
+    private IntArrayView vertexIndices;
+    private IntArrayView textureVertexIndices;
+    private IntArrayView normalIndices;
     private int lineNumber;
 
 
     public Polygon() {
-        vertexIndices = new ArrayList<Integer>();
+        vertexIndices = new IntArrayView(new int[0], 0, 0);
         textureVertexIndices = null;
         normalIndices = null;
     }
 
-    public void setVertexIndices(ArrayList<Integer> vertexIndices) {
-        assert vertexIndices.size() >= 3;
+    Polygon(IntArrayView vertexIndices, IntArrayView textureVertexIndices, IntArrayView normalIndices, int lineNumber) {
         this.vertexIndices = vertexIndices;
+        this.textureVertexIndices = textureVertexIndices;
+        this.normalIndices = normalIndices;
+        this.lineNumber = lineNumber;
     }
 
-    public void setTextureVertexIndices(ArrayList<Integer> textureVertexIndices) {
+    public void setVertexIndices(List<Integer> vertexIndices) {
+        assert vertexIndices.size() >= 3;
+        this.vertexIndices = IntArrayView.copyOf(vertexIndices);
+    }
+
+    public void setTextureVertexIndices(List<Integer> textureVertexIndices) {
         assert textureVertexIndices == null || textureVertexIndices.size() >= 3;
-        this.textureVertexIndices = textureVertexIndices;
+        this.textureVertexIndices = textureVertexIndices == null ? null : IntArrayView.copyOf(textureVertexIndices);
     }
 
-    public void setNormalIndices(ArrayList<Integer> normalIndices) {
+    public void setNormalIndices(List<Integer> normalIndices) {
         assert normalIndices == null || normalIndices.size() >= 3;
-        this.normalIndices = normalIndices;
+        this.normalIndices = normalIndices == null ? null : IntArrayView.copyOf(normalIndices);
     }
 
-    public ArrayList<Integer> getVertexIndices() {
+    public IntArrayView getVertexIndices() {
         return vertexIndices;
     }
 
-    public ArrayList<Integer> getTextureVertexIndices() {
+    public IntArrayView getTextureVertexIndices() {
         return textureVertexIndices;
     }
 
-    public ArrayList<Integer> getNormalIndices() {
+    public IntArrayView getNormalIndices() {
         return normalIndices;
     }
 
@@ -0,0 +1,511 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Иерархия ограничивающих параллелепипедов (BVH) над полигонами PackedMesh.
+// Полигоны переставлены в polygonOrder так, что у любого узла они лежат подряд: nodeFirst, nodeCount.
+// Узлы хранятся в плоских массивах, дети внутреннего узла - nodeLeft и nodeLeft + 1, у листа nodeLeft = -1.
+// Делим узел по эвристике площади поверхности (SAH) с разбиением центров на корзины вдоль самой длинной оси,
+// большие поддеревья строятся параллельно в ForkJoinPool.
+public class PolygonBvh {
+
+    // если в обоих детях больше этого числа полигонов, они строятся разными задачами
+    private static final int PARALLEL_THRESHOLD = 16 * 1024;
+    private static final int BIN_COUNT = 16;
+    // столько полигонов лист может держать, если делить их по SAH невыгодно
+    private static final int MAX_LEAF_SIZE = 8;
+    // глубже узлы не делим, чтобы хватало стека фиксированного размера при обходе
+    private static final int MAX_DEPTH = 64;
+    // цена обхода узла относительно проверки одного полигона
+    private static final float TRAVERSAL_COST = 1.0F;
+
+    // по узлам: minX, minY, minZ, maxX, maxY, maxZ подряд
+    public float[] nodeBounds;
+    public int[] nodeLeft;
+    public int[] nodeFirst;
+    public int[] nodeCount;
+    public int[] polygonOrder;
+
+    private final PackedMesh mesh;
+    private int size;
+    private long buildNanos;
+
+    private PolygonBvh(PackedMesh mesh) {
+        this.mesh = mesh;
+    }
+
+    public static PolygonBvh build(PackedMesh mesh) {
+        return build(mesh, ForkJoinPool.commonPool());
+    }
+
+    public static PolygonBvh build(PackedMesh mesh, ForkJoinPool pool) {
+        final long start = System.nanoTime();
+        PolygonBvh bvh = new PolygonBvh(mesh);
+        final int nPolygons = mesh.getPolygonCount();
+
+        // границы каждого полигона нужны только на время построения; лежат в том же порядке, что polygonOrder
+        final float[] polygonBounds = new float[6 * nPolygons];
+        pool.invoke(new PolygonBoundsTask(mesh, polygonBounds, 0, nPolygons));
+
+        bvh.polygonOrder = new int[nPolygons];
+        for (int i = 0; i < nPolygons; ++i) {
+            bvh.polygonOrder[i] = i;
+        }
+        // у дерева с листьями хотя бы по одному полигону не больше 2n - 1 узлов; лишнее обрежем в конце
+        final int maxNodes = Math.max(1, 2 * nPolygons - 1);
+        bvh.nodeBounds = new float[6 * maxNodes];
+        bvh.nodeLeft = new int[maxNodes];
+        bvh.nodeFirst = new int[maxNodes];
+        bvh.nodeCount = new int[maxNodes];
+
+        AtomicInteger nodeCounter = new AtomicInteger(1);
+        pool.invoke(new BuildTask(bvh, polygonBounds, nodeCounter, 0, 0, nPolygons, 0));
+
+        bvh.size = nodeCounter.get();
+        bvh.nodeBounds = Arrays.copyOf(bvh.nodeBounds, 6 * bvh.size);
+        bvh.nodeLeft = Arrays.copyOf(bvh.nodeLeft, bvh.size);
+        bvh.nodeFirst = Arrays.copyOf(bvh.nodeFirst, bvh.size);
+        bvh.nodeCount = Arrays.copyOf(bvh.nodeCount, bvh.size);
+        bvh.buildNanos = System.nanoTime() - start;
+        return bvh;
+    }
+
+    public int getNodeCount() {
+        return size;
+    }
+
+    public long getBuildMillis() {
+        return buildNanos / 1_000_000;
+    }
+
+    // Сколько занимают массивы дерева
+    public long getMemoryBytes() {
+        return 4L * (nodeBounds.length + nodeLeft.length + nodeFirst.length + nodeCount.length + polygonOrder.length);
+    }
+
+    // Проверка параллелепипеда узла при обходе
+    public interface BoxTest {
+        int OUTSIDE = 0;
+        int INTERSECTS = 1;
+        int INSIDE = 2;
+
+        int test(float minX, float minY, float minZ, float maxX, float maxY, float maxZ);
+    }
+
+    // Записывает в result номера полигонов из узлов, которые test не отбросил, и возвращает их число.
+    // Поддерево, целиком попавшее внутрь, копируется без проверки его узлов. result - не меньше числа полигонов
+    public int collect(BoxTest test, int[] result) {
+        if (polygonOrder.length == 0) {
+            return 0;
+        }
+        int count = 0;
+        final int[] stack = new int[2 * MAX_DEPTH + 2];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            final int node = stack[--stackSize];
+            final int b = 6 * node;
+            final int verdict = test.test(nodeBounds[b], nodeBounds[b + 1], nodeBounds[b + 2],
+                    nodeBounds[b + 3], nodeBounds[b + 4], nodeBounds[b + 5]);
+            if (verdict == BoxTest.OUTSIDE) {
+                continue;
+            }
+            if (verdict == BoxTest.INSIDE || nodeLeft[node] < 0) {
+                System.arraycopy(polygonOrder, nodeFirst[node], result, count, nodeCount[node]);
+                count += nodeCount[node];
+                continue;
+            }
+            // правого ребёнка кладём первым, чтобы полигоны шли в порядке polygonOrder
+            stack[stackSize++] = nodeLeft[node] + 1;
+            stack[stackSize++] = nodeLeft[node];
+        }
+        return count;
+    }
+
+    // Ближайшее пересечение луча с полигонами
+    public static class Hit {
+        // -1 - луч ни во что не попал
+        public int polygon = -1;
+        // точка пересечения - начало луча плюс направление, умноженное на distance
+        public float distance;
+        public float x;
+        public float y;
+        public float z;
+    }
+
+    // Луч из (originX, originY, originZ) в направлении (directionX, ...); полигоны режутся веером
+    // на треугольники, обе стороны считаются. Узлы обходятся от ближнего к дальнему, и те,
+    // что дальше уже найденного пересечения, пропускаются
+    public boolean intersect(
+            final float originX, final float originY, final float originZ,
+            final float directionX, final float directionY, final float directionZ,
+            final Hit hit) {
+        hit.polygon = -1;
+        hit.distance = Float.POSITIVE_INFINITY;
+        if (polygonOrder.length == 0) {
+            return false;
+        }
+        final float inverseX = 1 / directionX;
+        final float inverseY = 1 / directionY;
+        final float inverseZ = 1 / directionZ;
+
+        final int[] stack = new int[2 * MAX_DEPTH + 2];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            final int node = stack[--stackSize];
+            if (boxDistance(node, originX, originY, originZ, inverseX, inverseY, inverseZ) >= hit.distance) {
+                continue;
+            }
+            if (nodeLeft[node] < 0) {
+                for (int i = nodeFirst[node]; i < nodeFirst[node] + nodeCount[node]; ++i) {
+                    intersectPolygon(polygonOrder[i], originX, originY, originZ, directionX, directionY, directionZ, hit);
+                }
+                continue;
+            }
+            final int left = nodeLeft[node];
+            final float leftDistance = boxDistance(left, originX, originY, originZ, inverseX, inverseY, inverseZ);
+            final float rightDistance = boxDistance(left + 1, originX, originY, originZ, inverseX, inverseY, inverseZ);
+            // ближний ребёнок снимается со стека первым
+            if (leftDistance <= rightDistance) {
+                stack[stackSize++] = left + 1;
+                stack[stackSize++] = left;
+            } else {
+                stack[stackSize++] = left;
+                stack[stackSize++] = left + 1;
+            }
+        }
+        if (hit.polygon < 0) {
+            return false;
+        }
+        hit.x = originX + directionX * hit.distance;
+        hit.y = originY + directionY * hit.distance;
+        hit.z = originZ + directionZ * hit.distance;
+        return true;
+    }
+
+    // Расстояние по лучу до входа в параллелепипед узла (0, если начало луча внутри), +inf - луч мимо
+    private float boxDistance(
+            final int node,
+            final float originX, final float originY, final float originZ,
+            final float inverseX, final float inverseY, final float inverseZ) {
+        final int b = 6 * node;
+        float tx1 = (nodeBounds[b] - originX) * inverseX, tx2 = (nodeBounds[b + 3] - originX) * inverseX;
+        float ty1 = (nodeBounds[b + 1] - originY) * inverseY, ty2 = (nodeBounds[b + 4] - originY) * inverseY;
+        float tz1 = (nodeBounds[b + 2] - originZ) * inverseZ, tz2 = (nodeBounds[b + 5] - originZ) * inverseZ;
+        final float near = Math.max(0, Math.max(Math.min(tx1, tx2), Math.max(Math.min(ty1, ty2), Math.min(tz1, tz2))));
+        final float far = Math.min(Math.max(tx1, tx2), Math.min(Math.max(ty1, ty2), Math.max(tz1, tz2)));
+        // NaN (луч параллелен грани и лежит в её плоскости) тоже считаем промахом
+        return near <= far ? near : Float.POSITIVE_INFINITY;
+    }
+
+    // Треугольники веера проверяются по Мёллеру-Трумбору
+    private void intersectPolygon(
+            final int polygonInd,
+            final float originX, final float originY, final float originZ,
+            final float directionX, final float directionY, final float directionZ,
+            final Hit hit) {
+        final PolygonStore polygons = mesh.polygons;
+        final int start = polygons.getStart(polygonInd);
+        final int end = start + polygons.getSize(polygonInd);
+        if (end - start < 3) {
+            return;
+        }
+        final int v0 = polygons.vertexIndices[start];
+        final float x0 = mesh.vertexX[v0], y0 = mesh.vertexY[v0], z0 = mesh.vertexZ[v0];
+        for (int i = start + 2; i < end; ++i) {
+            final int v1 = polygons.vertexIndices[i - 1];
+            final int v2 = polygons.vertexIndices[i];
+            final float e1x = mesh.vertexX[v1] - x0, e1y = mesh.vertexY[v1] - y0, e1z = mesh.vertexZ[v1] - z0;
+            final float e2x = mesh.vertexX[v2] - x0, e2y = mesh.vertexY[v2] - y0, e2z = mesh.vertexZ[v2] - z0;
+
+            final float px = directionY * e2z - directionZ * e2y;
+            final float py = directionZ * e2x - directionX * e2z;
+            final float pz = directionX * e2y - directionY * e2x;
+            final float determinant = e1x * px + e1y * py + e1z * pz;
+            if (determinant == 0) {
+                continue;
+            }
+            final float inverseDeterminant = 1 / determinant;
+            final float sx = originX - x0, sy = originY - y0, sz = originZ - z0;
+            final float u = (sx * px + sy * py + sz * pz) * inverseDeterminant;
+            if (u < 0 || u > 1) {
+                continue;
+            }
+            final float qx = sy * e1z - sz * e1y;
+            final float qy = sz * e1x - sx * e1z;
+            final float qz = sx * e1y - sy * e1x;
+            final float v = (directionX * qx + directionY * qy + directionZ * qz) * inverseDeterminant;
+            if (v < 0 || u + v > 1) {
+                continue;
+            }
+            final float distance = (e2x * qx + e2y * qy + e2z * qz) * inverseDeterminant;
+            if (distance >= 0 && distance < hit.distance) {
+                hit.distance = distance;
+                hit.polygon = polygonInd;
+            }
+        }
+    }
+
+    private static class PolygonBoundsTask extends RecursiveAction {
+        private static final int THRESHOLD = 64 * 1024;
+
+        private final PackedMesh mesh;
+        private final float[] bounds;
+        private final int from;
+        private final int to;
+
+        PolygonBoundsTask(PackedMesh mesh, float[] bounds, int from, int to) {
+            this.mesh = mesh;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > THRESHOLD) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new PolygonBoundsTask(mesh, bounds, from, middle), new PolygonBoundsTask(mesh, bounds, middle, to));
+                return;
+            }
+            final PolygonStore polygons = mesh.polygons;
+            for (int polygonInd = from; polygonInd < to; ++polygonInd) {
+                float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+                float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+                final int start = polygons.getStart(polygonInd);
+                final int end = start + polygons.getSize(polygonInd);
+                for (int i = start; i < end; ++i) {
+                    final int vertexInd = polygons.vertexIndices[i];
+                    minX = Math.min(minX, mesh.vertexX[vertexInd]);
+                    minY = Math.min(minY, mesh.vertexY[vertexInd]);
+                    minZ = Math.min(minZ, mesh.vertexZ[vertexInd]);
+                    maxX = Math.max(maxX, mesh.vertexX[vertexInd]);
+                    maxY = Math.max(maxY, mesh.vertexY[vertexInd]);
+                    maxZ = Math.max(maxZ, mesh.vertexZ[vertexInd]);
+                }
+                if (end == start) {
+                    // у полигона без вершин пусть будет точка в начале координат
+                    minX = minY = minZ = maxX = maxY = maxZ = 0;
+                }
+                final int b = 6 * polygonInd;
+                bounds[b] = minX;
+                bounds[b + 1] = minY;
+                bounds[b + 2] = minZ;
+                bounds[b + 3] = maxX;
+                bounds[b + 4] = maxY;
+                bounds[b + 5] = maxZ;
+            }
+        }
+    }
+
+    // Строит узел node над polygonOrder[first, first + count) и его поддерево
+    private static class BuildTask extends RecursiveAction {
+        private final PolygonBvh bvh;
+        private final float[] polygonBounds;
+        private final AtomicInteger nodeCounter;
+        private final int node;
+        private final int first;
+        private final int count;
+        private final int depth;
+
+        // рабочие массивы разбиения на корзины; узел дорабатывает с ними до того, как спуститься к детям
+        private final int[] binCounts = new int[BIN_COUNT];
+        private final float[] binBounds = new float[6 * BIN_COUNT];
+        private final float[] leftAreas = new float[BIN_COUNT];
+        private final int[] leftCounts = new int[BIN_COUNT];
+        private final float[] box = new float[6];
+
+        BuildTask(PolygonBvh bvh, float[] polygonBounds, AtomicInteger nodeCounter, int node, int first, int count, int depth) {
+            this.bvh = bvh;
+            this.polygonBounds = polygonBounds;
+            this.nodeCounter = nodeCounter;
+            this.node = node;
+            this.first = first;
+            this.count = count;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            build(node, first, count, depth);
+        }
+
+        private void build(final int node, final int first, final int count, final int depth) {
+            final int[] order = bvh.polygonOrder;
+            bvh.nodeFirst[node] = first;
+            bvh.nodeCount[node] = count;
+            bvh.nodeLeft[node] = -1;
+
+            // границы узла и границы центров его полигонов
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+            float centerMinX = Float.POSITIVE_INFINITY, centerMinY = Float.POSITIVE_INFINITY, centerMinZ = Float.POSITIVE_INFINITY;
+            float centerMaxX = Float.NEGATIVE_INFINITY, centerMaxY = Float.NEGATIVE_INFINITY, centerMaxZ = Float.NEGATIVE_INFINITY;
+            for (int i = first; i < first + count; ++i) {
+                final int b = 6 * i;
+                minX = polygonBounds[b] < minX ? polygonBounds[b] : minX;
+                minY = polygonBounds[b + 1] < minY ? polygonBounds[b + 1] : minY;
+                minZ = polygonBounds[b + 2] < minZ ? polygonBounds[b + 2] : minZ;
+                maxX = polygonBounds[b + 3] > maxX ? polygonBounds[b + 3] : maxX;
+                maxY = polygonBounds[b + 4] > maxY ? polygonBounds[b + 4] : maxY;
+                maxZ = polygonBounds[b + 5] > maxZ ? polygonBounds[b + 5] : maxZ;
+                centerMinX = center(b, 0) < centerMinX ? center(b, 0) : centerMinX;
+                centerMinY = center(b, 1) < centerMinY ? center(b, 1) : centerMinY;
+                centerMinZ = center(b, 2) < centerMinZ ? center(b, 2) : centerMinZ;
+                centerMaxX = center(b, 0) > centerMaxX ? center(b, 0) : centerMaxX;
+                centerMaxY = center(b, 1) > centerMaxY ? center(b, 1) : centerMaxY;
+                centerMaxZ = center(b, 2) > centerMaxZ ? center(b, 2) : centerMaxZ;
+            }
+            final int nb = 6 * node;
+            bvh.nodeBounds[nb] = minX;
+            bvh.nodeBounds[nb + 1] = minY;
+            bvh.nodeBounds[nb + 2] = minZ;
+            bvh.nodeBounds[nb + 3] = maxX;
+            bvh.nodeBounds[nb + 4] = maxY;
+            bvh.nodeBounds[nb + 5] = maxZ;
+
+            if (count <= 2 || depth >= MAX_DEPTH) {
+                return;
+            }
+
+            final float extentX = centerMaxX - centerMinX;
+            final float extentY = centerMaxY - centerMinY;
+            final float extentZ = centerMaxZ - centerMinZ;
+            final int axis = extentX >= extentY && extentX >= extentZ ? 0 : extentY >= extentZ ? 1 : 2;
+            final float axisMin = axis == 0 ? centerMinX : axis == 1 ? centerMinY : centerMinZ;
+            final float axisExtent = axis == 0 ? extentX : axis == 1 ? extentY : extentZ;
+
+            int middle;
+            if (!(axisExtent > 0)) {
+                // все центры в одной точке - SAH тут не поможет, большие узлы просто делим пополам
+                if (count <= MAX_LEAF_SIZE) {
+                    return;
+                }
+                middle = first + count / 2;
+            } else {
+                final float binScale = BIN_COUNT / axisExtent;
+                Arrays.fill(binCounts, 0);
+                for (int bin = 0; bin < BIN_COUNT; ++bin) {
+                    emptyBox(binBounds, 6 * bin);
+                }
+                for (int i = first; i < first + count; ++i) {
+                    final int b = 6 * i;
+                    final int bin = binOf(center(b, axis), axisMin, binScale);
+                    ++binCounts[bin];
+                    growBox(binBounds, 6 * bin, polygonBounds, b);
+                }
+
+                // площади и числа полигонов слева от каждой границы между корзинами, потом справа
+                emptyBox(box, 0);
+                int running = 0;
+                for (int split = 1; split < BIN_COUNT; ++split) {
+                    growBox(box, 0, binBounds, 6 * (split - 1));
+                    running += binCounts[split - 1];
+                    leftAreas[split] = halfArea(box, 0);
+                    leftCounts[split] = running;
+                }
+                float bestCost = Float.POSITIVE_INFINITY;
+                int bestSplit = -1;
+                emptyBox(box, 0);
+                running = 0;
+                for (int split = BIN_COUNT - 1; split >= 1; --split) {
+                    growBox(box, 0, binBounds, 6 * split);
+                    running += binCounts[split];
+                    if (leftCounts[split] == 0 || running == 0) {
+                        continue;
+                    }
+                    final float cost = leftAreas[split] * leftCounts[split] + halfArea(box, 0) * running;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestSplit = split;
+                    }
+                }
+
+                final float nodeArea = halfArea(bvh.nodeBounds, nb);
+                if (count <= MAX_LEAF_SIZE && !(TRAVERSAL_COST * nodeArea + bestCost < count * nodeArea)) {
+                    return;
+                }
+                if (bestSplit < 0) {
+                    // цена не посчиталась (бесконечные координаты) - делим пополам
+                    bestSplit = BIN_COUNT / 2;
+                }
+
+                // перестановка: полигоны из корзин левее bestSplit - в начало диапазона
+                int left = first;
+                int right = first + count - 1;
+                while (left <= right) {
+                    if (binOf(center(6 * left, axis), axisMin, binScale) < bestSplit) {
+                        ++left;
+                    } else {
+                        swap(order, left, right--);
+                    }
+                }
+                middle = left;
+            }
+
+            final int leftChild = nodeCounter.getAndAdd(2);
+            bvh.nodeLeft[node] = leftChild;
+            final int leftCount = middle - first;
+            final int rightCount = count - leftCount;
+            if (leftCount > PARALLEL_THRESHOLD && rightCount > PARALLEL_THRESHOLD) {
+                invokeAll(
+                        new BuildTask(bvh, polygonBounds, nodeCounter, leftChild, first, leftCount, depth + 1),
+                        new BuildTask(bvh, polygonBounds, nodeCounter, leftChild + 1, middle, rightCount, depth + 1));
+            } else {
+                build(leftChild, first, leftCount, depth + 1);
+                build(leftChild + 1, middle, rightCount, depth + 1);
+            }
+        }
+
+        // границы полигонов переставляются вместе с ними: проходы по узлу идут подряд по памяти
+        private void swap(int[] order, int i, int j) {
+            final int polygon = order[i];
+            order[i] = order[j];
+            order[j] = polygon;
+            for (int k = 0; k < 6; ++k) {
+                final float bound = polygonBounds[6 * i + k];
+                polygonBounds[6 * i + k] = polygonBounds[6 * j + k];
+                polygonBounds[6 * j + k] = bound;
+            }
+        }
+
+        private float center(int b, int axis) {
+            return (polygonBounds[b + axis] + polygonBounds[b + 3 + axis]) * 0.5F;
+        }
+
+        private static int binOf(float center, float axisMin, float binScale) {
+            return Math.min(BIN_COUNT - 1, (int) ((center - axisMin) * binScale));
+        }
+    }
+
+    private static void emptyBox(float[] box, int b) {
+        box[b] = box[b + 1] = box[b + 2] = Float.POSITIVE_INFINITY;
+        box[b + 3] = box[b + 4] = box[b + 5] = Float.NEGATIVE_INFINITY;
+    }
+
+    private static void growBox(float[] box, int b, float[] other, int o) {
+        for (int k = 0; k < 3; ++k) {
+            if (other[o + k] < box[b + k]) {
+                box[b + k] = other[o + k];
+            }
+            if (other[o + 3 + k] > box[b + 3 + k]) {
+                box[b + 3 + k] = other[o + 3 + k];
+            }
+        }
+    }
+
+    // половина площади поверхности; у пустого параллелепипеда 0
+    private static float halfArea(float[] box, int b) {
+        final float dx = box[b + 3] - box[b];
+        final float dy = box[b + 4] - box[b + 1];
+        final float dz = box[b + 5] - box[b + 2];
+        if (!(dx >= 0)) {
+            return 0;
+        }
+        return dx * dy + dy * dz + dz * dx;
+    }
+}
@@ -0,0 +1,108 @@
+package com.cgvsu.model;
+
+import java.util.List;
+
+// Индексы всех полигонов модели в плоских массивах int без боксинга.
+// Вместо ArrayList<Integer> на каждый полигон (объект списка, массив ссылок и Integer на каждый индекс)
+// здесь 4 байта на индекс плюс 4 байта на начало полигона.
+public class PolygonStore {
+
+    // Углы полигона i лежат в массивах индексов с faceOffsets[i] до faceOffsets[i + 1] (не включая)
+    public int[] faceOffsets = {0};
+    public int[] vertexIndices = new int[0];
+    // null, если текстур (нормалей) нет ни у одного полигона; иначе -1 у углов полигонов без них
+    public int[] textureVertexIndices = null;
+    public int[] normalIndices = null;
+    // строки OBJ-файла, из которых прочитаны полигоны; хранятся только для диагностики, иначе null
+    public int[] lineNumbers = null;
+
+    public int size() {
+        return faceOffsets.length - 1;
+    }
+
+    public int getCornerCount() {
+        return faceOffsets[faceOffsets.length - 1];
+    }
+
+    public int getStart(int polygonInd) {
+        return faceOffsets[polygonInd];
+    }
+
+    public int getSize(int polygonInd) {
+        return faceOffsets[polygonInd + 1] - faceOffsets[polygonInd];
+    }
+
+    public boolean hasTextureVertexIndices(int polygonInd) {
+        return textureVertexIndices != null && textureVertexIndices[faceOffsets[polygonInd]] >= 0;
+    }
+
+    public boolean hasNormalIndices(int polygonInd) {
+        return normalIndices != null && normalIndices[faceOffsets[polygonInd]] >= 0;
+    }
+
+    public int getLineNumber(int polygonInd) {
+        return lineNumbers == null ? 0 : lineNumbers[polygonInd];
+    }
+
+    // Polygon поверх массивов хранилища, индексы не копируются
+    public Polygon get(int polygonInd) {
+        final int start = faceOffsets[polygonInd];
+        final int size = faceOffsets[polygonInd + 1] - start;
+        return new Polygon(
+                new IntArrayView(vertexIndices, start, size),
+                hasTextureVertexIndices(polygonInd) ? new IntArrayView(textureVertexIndices, start, size) : null,
+                hasNormalIndices(polygonInd) ? new IntArrayView(normalIndices, start, size) : null,
+                getLineNumber(polygonInd));
+    }
+
+    public static PolygonStore fromPolygons(List<Polygon> polygons) {
+        PolygonStore store = new PolygonStore();
+
+        final int nPolygons = polygons.size();
+        store.faceOffsets = new int[nPolygons + 1];
+        store.lineNumbers = new int[nPolygons];
+        boolean anyTextures = false;
+        boolean anyNormals = false;
+        for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
+            Polygon polygon = polygons.get(polygonInd);
+            final int size = polygon.getVertexIndices().size();
+            checkIndicesSize(polygon.getTextureVertexIndices(), size, "текстур");
+            checkIndicesSize(polygon.getNormalIndices(), size, "нормалей");
+            anyTextures |= polygon.getTextureVertexIndices() != null;
+            anyNormals |= polygon.getNormalIndices() != null;
+            store.faceOffsets[polygonInd + 1] = store.faceOffsets[polygonInd] + size;
+            store.lineNumbers[polygonInd] = polygon.getLineNumber();
+        }
+
+        final int nCorners = store.faceOffsets[nPolygons];
+        store.vertexIndices = new int[nCorners];
+        store.textureVertexIndices = anyTextures ? new int[nCorners] : null;
+        store.normalIndices = anyNormals ? new int[nCorners] : null;
+        for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
+            Polygon polygon = polygons.get(polygonInd);
+            final int start = store.faceOffsets[polygonInd];
+            final int size = store.faceOffsets[polygonInd + 1] - start;
+            copyInto(polygon.getVertexIndices(), store.vertexIndices, start, size);
+            if (anyTextures) {
+                copyInto(polygon.getTextureVertexIndices(), store.textureVertexIndices, start, size);
+            }
+            if (anyNormals) {
+                copyInto(polygon.getNormalIndices(), store.normalIndices, start, size);
+            }
+        }
+        return store;
+    }
+
+    private static void checkIndicesSize(IntArrayView indices, int nVertices, String what) {
+        if (indices != null && indices.size() != nVertices) {
+            throw new IllegalArgumentException("Количество индексов " + what + " в полигоне не совпадает с количеством вершин");
+        }
+    }
+
+    // null (нет индексов у полигона) записывается как -1 в каждый угол
+    private static void copyInto(IntArrayView indices, int[] destination, int start, int size) {
+        for (int i = 0; i < size; ++i) {
+            destination[start + i] = indices == null ? -1 : indices.getInt(i);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.cgvsu.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Нормали вершин для моделей, в файле которых не было vn. Нормаль полигона считается по обходу его углов
+// формулой Ньюэлла (годится и для неплоских полигонов, длина - удвоенная площадь), вершина получает
+// сумму нормалей своих полигонов, делённую на её длину: большой полигон весит больше мелкого.
+//
+// Суммы копятся параллельно и без общих записей. Полигоны режутся на куски по FACES_PER_CHUNK,
+// каждый кусок пишет в своё окно - от меньшего до большего номера своих вершин. В OBJ соседние
+// полигоны ссылаются на соседние вершины, поэтому окна небольшие и почти не перекрываются.
+// Потом вершины делятся на диапазоны, и каждый диапазон собирает суммы из задевающих его окон
+// в порядке кусков. Куски не зависят от числа потоков, так что результат одинаков на любой машине.
+public class VertexNormals {
+
+    static final int FACES_PER_CHUNK = 64 * 1024;
+    private static final int VERTICES_PER_TASK = 256 * 1024;
+    // окна вместе длиннее стольких моделей - вершины полигонов разбросаны по всему файлу,
+    // и окна заняли бы слишком много памяти: тогда суммы копятся в одном потоке прямо в результат
+    static final int MAX_WINDOW_OVERLAP = 4;
+
+    private VertexNormals() {
+    }
+
+    public static void build(PackedMesh mesh) {
+        build(mesh, ForkJoinPool.commonPool());
+    }
+
+    // По нормали на вершину в normalX/Y/Z; у каждого угла номер нормали совпадает с номером вершины,
+    // поэтому normalIndices - тот же массив, что vertexIndices (на 20 млн полигонов это сотни мегабайт).
+    // Нормали, которые были у модели, заменяются
+    public static void build(PackedMesh mesh, ForkJoinPool pool) {
+        final PolygonStore polygons = mesh.polygons;
+        final int nVertices = mesh.getVertexCount();
+        final int nPolygons = polygons.size();
+        final int nChunks = (nPolygons + FACES_PER_CHUNK - 1) / FACES_PER_CHUNK;
+
+        // окно куска c - вершины с windowStart[c] до windowEnd[c] (не включая)
+        final int[] windowStart = new int[nChunks];
+        final int[] windowEnd = new int[nChunks];
+        pool.invoke(new RangeTask(0, nChunks, 1, (from, to) -> {
+            for (int chunk = from; chunk < to; ++chunk) {
+                measureWindow(polygons, chunk, windowStart, windowEnd);
+            }
+        }));
+        long windowsSize = 0;
+        for (int chunk = 0; chunk < nChunks; ++chunk) {
+            windowsSize += windowEnd[chunk] - windowStart[chunk];
+        }
+
+        final float[] normalX = new float[nVertices];
+        final float[] normalY = new float[nVertices];
+        final float[] normalZ = new float[nVertices];
+        if (windowsSize > (long) MAX_WINDOW_OVERLAP * nVertices) {
+            accumulate(mesh, 0, nPolygons, 0, normalX, normalY, normalZ);
+            pool.invoke(new RangeTask(0, nVertices, VERTICES_PER_TASK,
+                    (from, to) -> normalize(normalX, normalY, normalZ, from, to)));
+        } else {
+            final float[][] windows = new float[3 * nChunks][];
+            pool.invoke(new RangeTask(0, nChunks, 1, (from, to) -> {
+                for (int chunk = from; chunk < to; ++chunk) {
+                    final int size = windowEnd[chunk] - windowStart[chunk];
+                    windows[3 * chunk] = new float[size];
+                    windows[3 * chunk + 1] = new float[size];
+                    windows[3 * chunk + 2] = new float[size];
+                    accumulate(mesh, chunk * FACES_PER_CHUNK, Math.min(nPolygons, (chunk + 1) * FACES_PER_CHUNK),
+                            windowStart[chunk], windows[3 * chunk], windows[3 * chunk + 1], windows[3 * chunk + 2]);
+                }
+            }));
+            pool.invoke(new RangeTask(0, nVertices, VERTICES_PER_TASK, (from, to) -> {
+                for (int chunk = 0; chunk < nChunks; ++chunk) {
+                    final int start = windowStart[chunk];
+                    final int first = Math.max(from, start);
+                    final int last = Math.min(to, windowEnd[chunk]);
+                    final float[] x = windows[3 * chunk], y = windows[3 * chunk + 1], z = windows[3 * chunk + 2];
+                    for (int vertexInd = first; vertexInd < last; ++vertexInd) {
+                        normalX[vertexInd] += x[vertexInd - start];
+                        normalY[vertexInd] += y[vertexInd - start];
+                        normalZ[vertexInd] += z[vertexInd - start];
+                    }
+                }
+                normalize(normalX, normalY, normalZ, from, to);
+            }));
+        }
+
+        mesh.normalX = normalX;
+        mesh.normalY = normalY;
+        mesh.normalZ = normalZ;
+        polygons.normalIndices = polygons.vertexIndices;
+    }
+
+    // Сумма длин окон всех кусков модели: по ней build выбирает между окнами и одним потоком
+    static long windowsSize(final PolygonStore polygons) {
+        final int nChunks = (polygons.size() + FACES_PER_CHUNK - 1) / FACES_PER_CHUNK;
+        final int[] windowStart = new int[nChunks];
+        final int[] windowEnd = new int[nChunks];
+        long windowsSize = 0;
+        for (int chunk = 0; chunk < nChunks; ++chunk) {
+            measureWindow(polygons, chunk, windowStart, windowEnd);
+            windowsSize += windowEnd[chunk] - windowStart[chunk];
+        }
+        return windowsSize;
+    }
+
+    private static void measureWindow(final PolygonStore polygons, final int chunk, final int[] windowStart, final int[] windowEnd) {
+        final int[] vertexIndices = polygons.vertexIndices;
+        final int from = polygons.getStart(chunk * FACES_PER_CHUNK);
+        final int to = polygons.getStart(Math.min(polygons.size(), (chunk + 1) * FACES_PER_CHUNK));
+        int min = Integer.MAX_VALUE;
+        int max = -1;
+        for (int i = from; i < to; ++i) {
+            min = Math.min(min, vertexIndices[i]);
+            max = Math.max(max, vertexIndices[i]);
+        }
+        windowStart[chunk] = max < 0 ? 0 : min;
+        windowEnd[chunk] = max + 1;
+    }
+
+    // Нормали полигонов [from, to) по Ньюэллу прибавляются к их вершинам: вершина v - элемент v - offset
+    private static void accumulate(
+            final PackedMesh mesh, final int from, final int to, final int offset,
+            final float[] sumX, final float[] sumY, final float[] sumZ) {
+        final PolygonStore polygons = mesh.polygons;
+        final int[] vertexIndices = polygons.vertexIndices;
+        final float[] vertexX = mesh.vertexX, vertexY = mesh.vertexY, vertexZ = mesh.vertexZ;
+        for (int polygonInd = from; polygonInd < to; ++polygonInd) {
+            final int start = polygons.getStart(polygonInd);
+            final int end = polygons.getStart(polygonInd + 1);
+            if (end - start < 3) {
+                continue;
+            }
+            float nx = 0, ny = 0, nz = 0;
+            int previous = vertexIndices[end - 1];
+            for (int i = start; i < end; ++i) {
+                final int current = vertexIndices[i];
+                nx += (vertexY[previous] - vertexY[current]) * (vertexZ[previous] + vertexZ[current]);
+                ny += (vertexZ[previous] - vertexZ[current]) * (vertexX[previous] + vertexX[current]);
+                nz += (vertexX[previous] - vertexX[current]) * (vertexY[previous] + vertexY[current]);
+                previous = current;
+            }
+            for (int i = start; i < end; ++i) {
+                final int vertexInd = vertexIndices[i] - offset;
+                sumX[vertexInd] += nx;
+                sumY[vertexInd] += ny;
+                sumZ[vertexInd] += nz;
+            }
+        }
+    }
+
+    // У вершин без полигонов (и с одними вырожденными) нормаль остаётся нулевой
+    private static void normalize(final float[] x, final float[] y, final float[] z, final int from, final int to) {
+        for (int i = from; i < to; ++i) {
+            final float length = (float) Math.sqrt(x[i] * x[i] + y[i] * y[i] + z[i] * z[i]);
+            if (length > 0) {
+                x[i] /= length;
+                y[i] /= length;
+                z[i] /= length;
+            }
+        }
+    }
+
+    private interface Range {
+        void run(int from, int to);
+    }
+
+    private static class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final Range range;
+
+        RangeTask(int from, int to, int threshold, Range range) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.range = range;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                range.run(from, to);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, threshold, range), new RangeTask(middle, to, threshold, range));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.cgvsu.objWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Вывод ASCII-текста прямо в байты большого direct-буфера, который целиком сбрасывается в канал.
+// Числа форматируются без String и без боксинга; вид чисел тот же, что у Integer.toString и Float.toString.
+class ByteOutput implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    // самая длинная запись одного числа: "-2147483648" и "-1.23456789E-45" короче
+    private static final int MAX_NUMBER_LENGTH = 32;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+    // 10^k точно представимы в double при k <= 22
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int k = 1; k < POWERS_OF_TEN.length; ++k) {
+            POWERS_OF_TEN[k] = POWERS_OF_TEN[k - 1] * 10;
+        }
+    }
+
+    // При 5^12 < 2^28 произведение float (24 бита) или середины между float (25 бит) на 10^k
+    // помещается в 53 бита double точно, поэтому все сравнения ниже делаются без погрешности
+    private static final int MAX_FAST_FRACTION_DIGITS = 12;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[MAX_NUMBER_LENGTH];
+
+    ByteOutput(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    ByteOutput put(char c) throws IOException {
+        ensureRemaining(1);
+        buffer.put((byte) c);
+        return this;
+    }
+
+    // Только ASCII-строки: ключевые слова OBJ и разделители
+    ByteOutput put(String ascii) throws IOException {
+        ensureRemaining(ascii.length());
+        for (int i = 0; i < ascii.length(); ++i) {
+            buffer.put((byte) ascii.charAt(i));
+        }
+        return this;
+    }
+
+    ByteOutput newLine() throws IOException {
+        ensureRemaining(LINE_SEPARATOR.length);
+        buffer.put(LINE_SEPARATOR);
+        return this;
+    }
+
+    ByteOutput put(int value) throws IOException {
+        ensureRemaining(MAX_NUMBER_LENGTH);
+        if (value < 0) {
+            buffer.put((byte) '-');
+        } else {
+            value = -value;
+        }
+        // в отрицательных числах, чтобы Integer.MIN_VALUE не переполнялся
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+        return this;
+    }
+
+    // Кратчайшая запись, которая читается обратно в тот же float, - ровно как Float.toString.
+    // Быстро считается обычная запись 0.001 <= |value| < 10^7 (в ней почти все координаты моделей),
+    // остальное (экспонента, NaN, бесконечности) отдаётся Float.toString.
+    ByteOutput put(float value) throws IOException {
+        ensureRemaining(MAX_NUMBER_LENGTH);
+        if (value == 0) {
+            put(Float.floatToRawIntBits(value) == 0 ? "0.0" : "-0.0");
+            return this;
+        }
+        final float magnitude = Math.abs(value);
+        if (!(magnitude >= 0.001F && magnitude < 1e7F) || !putPlain(value, magnitude)) {
+            put(Float.toString(value));
+        }
+        return this;
+    }
+
+    // Ищем наименьшее число знаков после точки k, при котором ближайшее к |value| * 10^k целое n
+    // (или его сосед с другой стороны) округляется обратно в value. Цифры n и есть ответ.
+    private boolean putPlain(float value, float magnitude) {
+        final double exact = magnitude;
+        // границы интервала чисел, которые округляются в magnitude; на границе - к чётной мантиссе
+        final double low = (exact + Math.nextDown(magnitude)) / 2;
+        final double high = (exact + Math.nextUp(magnitude)) / 2;
+        final boolean evenMantissa = (Float.floatToRawIntBits(magnitude) & 1) == 0;
+
+        for (int k = 0; k <= MAX_FAST_FRACTION_DIGITS; ++k) {
+            final double scale = POWERS_OF_TEN[k];
+            final double scaled = exact * scale;
+            final double scaledLow = low * scale;
+            final double scaledHigh = high * scale;
+
+            // rint округляет половину к чётному - как и Float.toString при двух равноудалённых записях
+            double candidate = Math.rint(scaled);
+            if (!roundsTo(candidate, scaledLow, scaledHigh, evenMantissa)) {
+                candidate = candidate < scaled ? candidate + 1 : candidate - 1;
+                if (!roundsTo(candidate, scaledLow, scaledHigh, evenMantissa)) {
+                    continue;
+                }
+            }
+            if (value < 0) {
+                buffer.put((byte) '-');
+            }
+            putFixed((long) candidate, k);
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean roundsTo(double candidate, double low, double high, boolean evenMantissa) {
+        return evenMantissa ? low <= candidate && candidate <= high : low < candidate && candidate < high;
+    }
+
+    // n * 10^-k с хотя бы одной цифрой до и после точки
+    private void putFixed(long n, int k) {
+        int length = 0;
+        if (k == 0) {
+            digits[length++] = '0';
+            digits[length++] = '.';
+        }
+        for (int i = 0; i < k; ++i) {
+            digits[length++] = (byte) ('0' + n % 10);
+            n /= 10;
+        }
+        if (k > 0) {
+            digits[length++] = '.';
+        }
+        do {
+            digits[length++] = (byte) ('0' + n % 10);
+            n /= 10;
+        } while (n != 0);
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+    }
+
+    private void ensureRemaining(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush();
+        }
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
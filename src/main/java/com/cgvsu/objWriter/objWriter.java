@@ -3,12 +3,21 @@ package com.cgvsu.objWriter;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.IntArrayView;
 import com.cgvsu.model.Polygon;
+import com.cgvsu.model.PolygonStore;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Текст пишется байтами через ByteOutput (большой буфер, числа без String), а не через PrintWriter;
+// содержимое файла при этом то же самое, что давали println("v " + x + ...).
 public class objWriter {
 
     // Основной метод
@@ -20,11 +29,37 @@ public class objWriter {
             throw new IllegalArgumentException("Путь не может быть null");
         }
 
-        try (PrintWriter writer = new PrintWriter(path)) {
-            writeModel(model, writer);
+        try (FileChannel channel = openForWriting(path); ByteOutput output = new ByteOutput(channel)) {
+            writeModel(model, output);
+        }
+    }
+
+    // Упакованная модель пишется в тот же формат, что и Model
+    public void write(PackedMesh mesh, String path) throws IOException {
+        if (mesh == null) {
+            throw new IllegalArgumentException("Модель не может быть null");
+        }
+        if (path == null || path.trim().isEmpty()) {
+            throw new IllegalArgumentException("Путь не может быть null");
+        }
+
+        try (FileChannel channel = openForWriting(path); ByteOutput output = new ByteOutput(channel)) {
+            writeMesh(mesh, output);
         }
     }
 
+    public String writeToString(PackedMesh mesh) throws IOException {
+        if (mesh == null) {
+            throw new IllegalArgumentException("Модель не может быть null");
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (WritableByteChannel channel = Channels.newChannel(baos); ByteOutput output = new ByteOutput(channel)) {
+            writeMesh(mesh, output);
+        }
+        return baos.toString();
+    }
+
     // Запись в строку для тестов
     public String writeToString(Model model) throws IOException {
         if (model == null) {
@@ -32,79 +67,101 @@ public class objWriter {
         }
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (PrintWriter writer = new PrintWriter(baos)) {
-            writeModel(model, writer);
+        try (WritableByteChannel channel = Channels.newChannel(baos); ByteOutput output = new ByteOutput(channel)) {
+            writeModel(model, output);
         }
         return baos.toString();
     }
 
+    private static FileChannel openForWriting(String path) throws IOException {
+        return FileChannel.open(Path.of(path),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
     // ОБЩАЯ логика записи
-    private void writeModel(Model model, PrintWriter writer) {
+    private void writeModel(Model model, ByteOutput output) throws IOException {
         //вершины v
         for (Vector3f v : model.vertices) {
-            writer.println("v " + v.getX() + " " + v.getY() + " " + v.getZ());
+            output.put("v ").put(v.getX()).put(' ').put(v.getY()).put(' ').put(v.getZ()).newLine();
         }
 
         //текстуры vt
         if (model.textureVertices != null) {
             for (Vector2f vt : model.textureVertices) {
-                writer.println("vt " + vt.getX() + " " + vt.getY());
+                output.put("vt ").put(vt.getX()).put(' ').put(vt.getY()).newLine();
             }
         }
 
         //нормали vn
         if (model.normals != null) {
             for (Vector3f vn : model.normals) {
-                writer.println("vn " + vn.getX() + " " + vn.getY() + " " + vn.getZ());
+                output.put("vn ").put(vn.getX()).put(' ').put(vn.getY()).put(' ').put(vn.getZ()).newLine();
             }
         }
 
-        //ПОЛИГОНЫ
+        //ПОЛИГОНЫ: v, v/vt, v//vn или v/vt/vn
         for (Polygon pol : model.polygons) {
-
-            //состоит только из вершин
-            if (pol.getTextureVertexIndices() == null && pol.getNormalIndices() == null) {
-                writer.print("f ");
-                for (int v : pol.getVertexIndices()) {
-                    writer.print((v + 1) + " ");
+            final IntArrayView vertexIndices = pol.getVertexIndices();
+            final IntArrayView textureIndices = pol.getTextureVertexIndices();
+            final IntArrayView normalIndices = pol.getNormalIndices();
+
+            output.put("f ");
+            for (int i = 0; i < vertexIndices.size(); i++) {
+                output.put(vertexIndices.getInt(i) + 1);
+                if (textureIndices != null || normalIndices != null) {
+                    output.put('/');
                 }
-                writer.println();
-
-            }
-
-            //вершины + текстуры
-            if (pol.getTextureVertexIndices() != null && pol.getNormalIndices() == null) {
-                writer.print("f ");
-                for (int i = 0; i < pol.getVertexIndices().size(); i++) {
-                    int verIndex = pol.getVertexIndices().get(i) + 1;
-                    int textIndex = pol.getTextureVertexIndices().get(i) + 1;
-                    writer.print(verIndex + "/" + textIndex + " ");
+                if (textureIndices != null) {
+                    output.put(textureIndices.getInt(i) + 1);
                 }
-                writer.println();
-            }
-
-            //вершины + нормали
-            if (pol.getTextureVertexIndices() == null && pol.getNormalIndices() != null) {
-                writer.print("f ");
-                for (int i = 0; i < pol.getVertexIndices().size(); i++) {
-                    int verInd = pol.getVertexIndices().get(i) + 1;
-                    int normInd = pol.getNormalIndices().get(i) + 1;
-                    writer.print(verInd + "//" + normInd + " ");
+                if (normalIndices != null) {
+                    output.put('/').put(normalIndices.getInt(i) + 1);
                 }
-                writer.println();
+                output.put(' ');
             }
+            output.newLine();
+        }
+    }
 
-            //вершины + текстуры + нормали
-            if (pol.getTextureVertexIndices() != null && pol.getNormalIndices() != null) {
-                writer.print("f ");
-                for (int i = 0; i < pol.getVertexIndices().size(); i++) {
-                    int ver = pol.getVertexIndices().get(i) + 1;
-                    int verTex = pol.getTextureVertexIndices().get(i) + 1;
-                    int normInd = pol.getNormalIndices().get(i) + 1;
-                    writer.print(ver + "/" + verTex + "/" + normInd + " ");
+    private void writeMesh(PackedMesh mesh, ByteOutput output) throws IOException {
+        //вершины v
+        for (int i = 0; i < mesh.getVertexCount(); i++) {
+            output.put("v ").put(mesh.vertexX[i]).put(' ').put(mesh.vertexY[i]).put(' ').put(mesh.vertexZ[i]).newLine();
+        }
+
+        //текстуры vt
+        for (int i = 0; i < mesh.getTextureVertexCount(); i++) {
+            output.put("vt ").put(mesh.textureU[i]).put(' ').put(mesh.textureV[i]).newLine();
+        }
+
+        //нормали vn
+        for (int i = 0; i < mesh.getNormalCount(); i++) {
+            output.put("vn ").put(mesh.normalX[i]).put(' ').put(mesh.normalY[i]).put(' ').put(mesh.normalZ[i]).newLine();
+        }
+
+        //ПОЛИГОНЫ: v, v/vt, v//vn или v/vt/vn - как и для Model
+        PolygonStore polygons = mesh.polygons;
+        for (int p = 0; p < polygons.size(); p++) {
+            final boolean hasTextures = polygons.hasTextureVertexIndices(p);
+            final boolean hasNormals = polygons.hasNormalIndices(p);
+            final int start = polygons.getStart(p);
+            final int end = start + polygons.getSize(p);
+
+            output.put("f ");
+            for (int i = start; i < end; i++) {
+                output.put(polygons.vertexIndices[i] + 1);
+                if (hasTextures || hasNormals) {
+                    output.put('/');
+                }
+                if (hasTextures) {
+                    output.put(polygons.textureVertexIndices[i] + 1);
+                }
+                if (hasNormals) {
+                    output.put('/').put(polygons.normalIndices[i] + 1);
                 }
-                writer.println();
+                output.put(' ');
             }
+            output.newLine();
         }
     }
-}
\ No newline at end of file
+}
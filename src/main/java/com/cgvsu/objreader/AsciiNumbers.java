@@ -0,0 +1,175 @@
+package com.cgvsu.objreader;
+
+import java.nio.charset.StandardCharsets;
+
+// Разбор чисел прямо из байт ASCII без создания строк.
+// Результат всегда совпадает с Float.parseFloat / Integer.parseInt: редкие случаи,
+// которые быстрый путь не может посчитать точно (9+ значащих цифр, NaN, hex и т.п.),
+// отдаются в JDK.
+final class AsciiNumbers {
+
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // мантисса, точно представимая во float / double
+    private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+    private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+
+    private static final int MAX_SIGNIFICANT_DIGITS = 18;
+
+    // младшие биты мантиссы double, которые отбрасываются при переходе к float
+    private static final long DROPPED_BITS_MASK = (1L << 29) - 1;
+    private static final long HALF_OF_DROPPED_BITS = 1L << 28;
+
+    private AsciiNumbers() {
+    }
+
+    static float parseFloat(byte[] s, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s[i] == '-' || s[i] == '+')) {
+            negative = s[i] == '-';
+            ++i;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+
+        while (i < end && isDigit(s[i])) {
+            final int digit = s[i] - '0';
+            if (mantissa != 0 || digit != 0) {
+                if (++significantDigits > MAX_SIGNIFICANT_DIGITS) {
+                    return parseFloatSlow(s, start, end);
+                }
+                mantissa = mantissa * 10 + digit;
+            }
+            anyDigits = true;
+            ++i;
+        }
+
+        if (i < end && s[i] == '.') {
+            ++i;
+            while (i < end && isDigit(s[i])) {
+                final int digit = s[i] - '0';
+                if (mantissa != 0 || digit != 0) {
+                    if (++significantDigits > MAX_SIGNIFICANT_DIGITS) {
+                        return parseFloatSlow(s, start, end);
+                    }
+                    mantissa = mantissa * 10 + digit;
+                }
+                --exponent;
+                anyDigits = true;
+                ++i;
+            }
+        }
+
+        if (!anyDigits) {
+            return parseFloatSlow(s, start, end);
+        }
+
+        if (i < end && (s[i] == 'e' || s[i] == 'E')) {
+            ++i;
+            boolean negativeExponent = false;
+            if (i < end && (s[i] == '-' || s[i] == '+')) {
+                negativeExponent = s[i] == '-';
+                ++i;
+            }
+            if (i == end) {
+                return parseFloatSlow(s, start, end);
+            }
+            int explicitExponent = 0;
+            while (i < end && isDigit(s[i])) {
+                if (explicitExponent < 1000) {
+                    explicitExponent = explicitExponent * 10 + (s[i] - '0');
+                }
+                ++i;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        // суффиксы f/d, шестнадцатеричная запись, NaN, мусор - пусть решает JDK
+        if (i != end) {
+            return parseFloatSlow(s, start, end);
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+
+        float result;
+        if (mantissa < MAX_EXACT_FLOAT_MANTISSA && exponent >= -10 && exponent <= 10) {
+            // обе величины точны во float, поэтому одно деление/умножение округляется корректно
+            result = exponent < 0
+                    ? (float) mantissa / FLOAT_POWERS_OF_TEN[-exponent]
+                    : (float) mantissa * FLOAT_POWERS_OF_TEN[exponent];
+        } else if (mantissa < MAX_EXACT_DOUBLE_MANTISSA && exponent >= -22 && exponent <= 22) {
+            final double value = exponent < 0
+                    ? (double) mantissa / DOUBLE_POWERS_OF_TEN[-exponent]
+                    : (double) mantissa * DOUBLE_POWERS_OF_TEN[exponent];
+            // двойное округление (сначала до double, потом до float) может ошибиться,
+            // только если double попал ровно в середину между двумя float
+            if (value < Float.MIN_NORMAL || value > Float.MAX_VALUE
+                    || (Double.doubleToRawLongBits(value) & DROPPED_BITS_MASK) == HALF_OF_DROPPED_BITS) {
+                return parseFloatSlow(s, start, end);
+            }
+            result = (float) value;
+        } else {
+            return parseFloatSlow(s, start, end);
+        }
+        return negative ? -result : result;
+    }
+
+    // Полностью повторяет Integer.parseInt, включая проверку переполнения
+    static int parseInt(byte[] s, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException();
+        }
+
+        int i = start;
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+
+        final byte first = s[i];
+        if (first == '-' || first == '+') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            }
+            if (++i == end) {
+                throw new NumberFormatException();
+            }
+        }
+
+        // копим отрицательное значение, чтобы поместился Integer.MIN_VALUE
+        final int multiplyLimit = limit / 10;
+        int result = 0;
+        while (i < end) {
+            final int digit = s[i++] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                throw new NumberFormatException();
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException();
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static float parseFloatSlow(byte[] s, int start, int end) {
+        return Float.parseFloat(new String(s, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,88 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.PackedMesh;
+
+import java.nio.ByteBuffer;
+
+// Собирает строки OBJ-файла прямо из ByteBuffer'ов (mmap или куски из канала), байт за байтом.
+// В памяти одновременно живёт только одна строка, а не весь текст файла.
+class ByteLineReader {
+
+    private final MeshBuilder result = new MeshBuilder();
+    private final ObjTokenizer tokenizer = new ObjTokenizer();
+
+    private byte[] line = new byte[256];
+    private int lineLength = 0;
+    private int lineInd = 0;
+    private boolean skipLineFeed = false;
+    private boolean hasPendingLine = false;
+
+    // Буфер читается от position до limit, после вызова он полностью израсходован
+    void accept(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            final byte b = buffer.get();
+            switch (b) {
+                case '\n' -> {
+                    if (skipLineFeed) {
+                        skipLineFeed = false;
+                    } else {
+                        flushLine();
+                    }
+                }
+                case '\r' -> {
+                    // \r\n и одиночный \r считаем одним переводом строки, как Scanner.nextLine()
+                    flushLine();
+                    skipLineFeed = true;
+                }
+                default -> {
+                    skipLineFeed = false;
+                    append(b);
+                }
+            }
+        }
+    }
+
+    // Номера строк нужны проверке индексов для текста ошибки; после неё они остаются, только если keepLineNumbers
+    PackedMesh finish(boolean keepLineNumbers) {
+        endOfInput();
+        PackedMesh mesh = result.build();
+        ObjReader.checkModel(mesh);
+        if (!keepLineNumbers) {
+            mesh.polygons.lineNumbers = null;
+        }
+        return mesh;
+    }
+
+    void endOfInput() {
+        // последняя строка без перевода строки в конце файла
+        if (hasPendingLine) {
+            flushLine();
+        }
+    }
+
+    MeshBuilder builder() {
+        return result;
+    }
+
+    int lineCount() {
+        return lineInd;
+    }
+
+    private void append(byte b) {
+        if (lineLength == line.length) {
+            byte[] grown = new byte[line.length * 2];
+            System.arraycopy(line, 0, grown, 0, lineLength);
+            line = grown;
+        }
+        line[lineLength++] = b;
+        hasPendingLine = true;
+    }
+
+    private void flushLine() {
+        ++lineInd;
+        tokenizer.tokenizeLine(line, lineLength);
+        ObjReader.parseLine(tokenizer, lineInd, result);
+        lineLength = 0;
+        hasPendingLine = false;
+    }
+}
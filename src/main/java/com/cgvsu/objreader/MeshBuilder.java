@@ -0,0 +1,162 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.PackedMesh;
+
+import java.util.Arrays;
+
+// Растущие массивы float/int, в которые читатель складывает модель по мере разбора строк.
+// В конце build() обрезает их до точного размера и отдаёт как PackedMesh.
+class MeshBuilder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    float[] vertexX = new float[INITIAL_CAPACITY];
+    float[] vertexY = new float[INITIAL_CAPACITY];
+    float[] vertexZ = new float[INITIAL_CAPACITY];
+    int vertexCount = 0;
+
+    float[] textureU = new float[0];
+    float[] textureV = new float[0];
+    int textureVertexCount = 0;
+
+    float[] normalX = new float[0];
+    float[] normalY = new float[0];
+    float[] normalZ = new float[0];
+    int normalCount = 0;
+
+    int[] faceOffsets = new int[INITIAL_CAPACITY + 1];
+    int[] lineNumbers = new int[INITIAL_CAPACITY];
+    int faceCount = 0;
+
+    int[] vertexIndices = new int[INITIAL_CAPACITY * 3];
+    // создаются при первом полигоне с текстурами (нормалями), до этого углы без них - это -1
+    int[] textureVertexIndices = null;
+    int[] normalIndices = null;
+    int cornerCount = 0;
+
+    private int faceTextureCount = 0;
+    private int faceNormalCount = 0;
+
+    void addVertex(float x, float y, float z) {
+        if (vertexCount == vertexX.length) {
+            final int capacity = grow(vertexCount);
+            vertexX = Arrays.copyOf(vertexX, capacity);
+            vertexY = Arrays.copyOf(vertexY, capacity);
+            vertexZ = Arrays.copyOf(vertexZ, capacity);
+        }
+        vertexX[vertexCount] = x;
+        vertexY[vertexCount] = y;
+        vertexZ[vertexCount] = z;
+        ++vertexCount;
+    }
+
+    void addTextureVertex(float u, float v) {
+        if (textureVertexCount == textureU.length) {
+            final int capacity = grow(textureVertexCount);
+            textureU = Arrays.copyOf(textureU, capacity);
+            textureV = Arrays.copyOf(textureV, capacity);
+        }
+        textureU[textureVertexCount] = u;
+        textureV[textureVertexCount] = v;
+        ++textureVertexCount;
+    }
+
+    void addNormal(float x, float y, float z) {
+        if (normalCount == normalX.length) {
+            final int capacity = grow(normalCount);
+            normalX = Arrays.copyOf(normalX, capacity);
+            normalY = Arrays.copyOf(normalY, capacity);
+            normalZ = Arrays.copyOf(normalZ, capacity);
+        }
+        normalX[normalCount] = x;
+        normalY[normalCount] = y;
+        normalZ[normalCount] = z;
+        ++normalCount;
+    }
+
+    // Индексы уже с нуля; -1 - у угла нет текстуры (нормали)
+    void addCorner(int vertex, int texture, int normal) {
+        if (cornerCount == vertexIndices.length) {
+            final int capacity = grow(cornerCount);
+            vertexIndices = Arrays.copyOf(vertexIndices, capacity);
+            if (textureVertexIndices != null) {
+                textureVertexIndices = Arrays.copyOf(textureVertexIndices, capacity);
+            }
+            if (normalIndices != null) {
+                normalIndices = Arrays.copyOf(normalIndices, capacity);
+            }
+        }
+        vertexIndices[cornerCount] = vertex;
+        if (texture >= 0) {
+            if (textureVertexIndices == null) {
+                textureVertexIndices = createAbsentIndices();
+            }
+            ++faceTextureCount;
+        }
+        if (textureVertexIndices != null) {
+            textureVertexIndices[cornerCount] = texture;
+        }
+        if (normal >= 0) {
+            if (normalIndices == null) {
+                normalIndices = createAbsentIndices();
+            }
+            ++faceNormalCount;
+        }
+        if (normalIndices != null) {
+            normalIndices[cornerCount] = normal;
+        }
+        ++cornerCount;
+    }
+
+    // Закрывает полигон из углов, добавленных после предыдущего endFace()
+    void endFace(int lineInd) {
+        final int nVertices = cornerCount - faceOffsets[faceCount];
+        if (nVertices < 3) {
+            throw new ObjReaderException("Polygon must have at least 3 vertices.", lineInd);
+        }
+        if (faceTextureCount != 0 && faceTextureCount != nVertices) {
+            throw new ObjReaderException("Polygon must have texture indices for every vertex.", lineInd);
+        }
+        if (faceNormalCount != 0 && faceNormalCount != nVertices) {
+            throw new ObjReaderException("Polygon must have normal indices for every vertex.", lineInd);
+        }
+        faceTextureCount = 0;
+        faceNormalCount = 0;
+
+        if (faceCount == lineNumbers.length) {
+            final int capacity = grow(faceCount);
+            lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+            faceOffsets = Arrays.copyOf(faceOffsets, capacity + 1);
+        }
+        lineNumbers[faceCount] = lineInd;
+        faceOffsets[++faceCount] = cornerCount;
+    }
+
+    PackedMesh build() {
+        PackedMesh mesh = new PackedMesh();
+        mesh.vertexX = Arrays.copyOf(vertexX, vertexCount);
+        mesh.vertexY = Arrays.copyOf(vertexY, vertexCount);
+        mesh.vertexZ = Arrays.copyOf(vertexZ, vertexCount);
+        mesh.textureU = Arrays.copyOf(textureU, textureVertexCount);
+        mesh.textureV = Arrays.copyOf(textureV, textureVertexCount);
+        mesh.normalX = Arrays.copyOf(normalX, normalCount);
+        mesh.normalY = Arrays.copyOf(normalY, normalCount);
+        mesh.normalZ = Arrays.copyOf(normalZ, normalCount);
+        mesh.polygons.faceOffsets = Arrays.copyOf(faceOffsets, faceCount + 1);
+        mesh.polygons.lineNumbers = Arrays.copyOf(lineNumbers, faceCount);
+        mesh.polygons.vertexIndices = Arrays.copyOf(vertexIndices, cornerCount);
+        mesh.polygons.textureVertexIndices = textureVertexIndices == null ? null : Arrays.copyOf(textureVertexIndices, cornerCount);
+        mesh.polygons.normalIndices = normalIndices == null ? null : Arrays.copyOf(normalIndices, cornerCount);
+        return mesh;
+    }
+
+    private int[] createAbsentIndices() {
+        int[] indices = new int[vertexIndices.length];
+        Arrays.fill(indices, 0, cornerCount, -1);
+        return indices;
+    }
+
+    private static int grow(int size) {
+        return Math.max(INITIAL_CAPACITY, size + (size >> 1));
+    }
+}
@@ -3,11 +3,20 @@ package com.cgvsu.objreader;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
 import com.cgvsu.model.Polygon;
-
+import com.cgvsu.model.PolygonStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 
 public class ObjReader {
 
@@ -16,226 +25,312 @@ public class ObjReader {
     private static final String OBJ_NORMAL_TOKEN = "vn";
     private static final String OBJ_FACE_TOKEN = "f";
 
-    public static Model read(String fileContent) {
-        Model result = new Model();
-
-        int lineInd = 0;
-        Scanner scanner = new Scanner(fileContent);
-        while (scanner.hasNextLine()) {
-            final String line = scanner.nextLine();
-            ArrayList<String> wordsInLine = new ArrayList<String>(Arrays.asList(line.split("\\s+")));
-            if (wordsInLine.isEmpty()) {
-                continue;
-            }
+    // Размер окна, которым файл отображается в память (mmap ограничен 2 ГБ на один буфер);
+    // окно небольшое, чтобы прогресс и отмена при последовательном чтении срабатывали часто
+    private static final long MAPPED_WINDOW_SIZE = 8L * 1024 * 1024;
+    private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+    // Кусок файла, который разбирается одной задачей при параллельном чтении
+    private static final long PARALLEL_CHUNK_SIZE = 8L * 1024 * 1024;
 
-            final String token = wordsInLine.getFirst();
-            wordsInLine.removeFirst();
+    // Методы read* возвращают объектную Model, readMesh* - упакованную PackedMesh.
+    // Разбор у них общий, Model получается из PackedMesh через toModel().
+    // Номера строк полигонов (Polygon.getLineNumber()) read* сохраняют всегда, readMesh* - только
+    // если попросить keepLineNumbers: для больших моделей это лишние 4 байта на полигон.
 
-            ++lineInd;
-            switch (token) {
+    public static Model read(String fileContent) {
+        ByteLineReader reader = new ByteLineReader();
+        reader.accept(ByteBuffer.wrap(fileContent.getBytes(StandardCharsets.UTF_8)));
+        return reader.finish(true).toModel();
+    }
 
-                case OBJ_VERTEX_TOKEN -> result.getVertices().add(parseVertex(wordsInLine, lineInd));
-                case OBJ_TEXTURE_TOKEN -> result.getTextureVertices().add(parseTextureVertex(wordsInLine, lineInd));
-                case OBJ_NORMAL_TOKEN -> result.getNormals().add(parseNormal(wordsInLine, lineInd));
-                case OBJ_FACE_TOKEN -> result.getPolygons().add(parseFace(wordsInLine, lineInd));
-                default -> {
-                }
-            }
-        }
+    public static Model read(Path path) throws IOException {
+        return readMesh(path, true).toModel();
+    }
 
-        checkModel(result);
-        return result;
+    public static Model read(ReadableByteChannel channel) throws IOException {
+        return readMesh(channel, true).toModel();
     }
 
-    // Всем методам кроме основного я поставил модификатор доступа protected, чтобы обращаться к ним в тестах
-    protected static Vector3f parseVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-        try {
-            if (wordsInLineWithoutToken.size() != 3) {
-                throw new ObjReaderException("Wrong number of vertex.", lineInd);
-            }
-            return new Vector3f(
-                    Float.parseFloat(wordsInLineWithoutToken.get(0)),
-                    Float.parseFloat(wordsInLineWithoutToken.get(1)),
-                    Float.parseFloat(wordsInLineWithoutToken.get(2)));
+    public static Model readParallel(Path path) throws IOException {
+        return readMeshParallel(path, ForkJoinPool.commonPool(), true).toModel();
+    }
 
-        } catch (NumberFormatException e) {
-            throw new ObjReaderException("Failed to parse float value.", lineInd);
+    public static Model readParallel(Path path, ForkJoinPool pool) throws IOException {
+        return readMeshParallel(path, pool, true).toModel();
+    }
 
-        } catch (IndexOutOfBoundsException e) {
-            throw new ObjReaderException("Too few vertex arguments.", lineInd);
-        }
+    public static PackedMesh readMesh(Path path) throws IOException {
+        return readMesh(path, false);
     }
 
-    protected static Vector2f parseTextureVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-        try {
-            if (wordsInLineWithoutToken.size() != 2) {
-                throw new ObjReaderException("Wrong number of texture vertex.", lineInd);
+    public static PackedMesh readMesh(Path path, boolean keepLineNumbers) throws IOException {
+        return readMesh(path, keepLineNumbers, ReadProgress.NONE);
+    }
+
+    // Читает файл через mmap, не создавая строку со всем содержимым файла.
+    // Прогресс сообщается и отмена проверяется после каждого окна файла.
+    public static PackedMesh readMesh(Path path, boolean keepLineNumbers, ReadProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteLineReader reader = new ByteLineReader();
+            final long size = channel.size();
+            for (long position = 0; position < size; position += MAPPED_WINDOW_SIZE) {
+                if (progress.isCancelled()) {
+                    throw new CancellationException("Чтение " + path + " отменено");
+                }
+                final long windowSize = Math.min(MAPPED_WINDOW_SIZE, size - position);
+                reader.accept(channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize));
+                progress.update(position + windowSize, size);
             }
-            return new Vector2f(
-                    Float.parseFloat(wordsInLineWithoutToken.get(0)),
-                    Float.parseFloat(wordsInLineWithoutToken.get(1)));
+            return reader.finish(keepLineNumbers);
+        }
+    }
 
-        } catch (NumberFormatException e) {
-            throw new ObjReaderException("Failed to parse float value.", lineInd);
+    public static PackedMesh readMesh(ReadableByteChannel channel) throws IOException {
+        return readMesh(channel, false);
+    }
 
-        } catch (IndexOutOfBoundsException e) {
-            throw new ObjReaderException("Too few texture vertex arguments.", lineInd);
+    // Для источников, которые нельзя отобразить в память (сеть, архивы): читаем кусками
+    public static PackedMesh readMesh(ReadableByteChannel channel, boolean keepLineNumbers) throws IOException {
+        ByteLineReader reader = new ByteLineReader();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            reader.accept(buffer);
+            buffer.clear();
         }
+        return reader.finish(keepLineNumbers);
     }
 
-    protected static Vector3f parseNormal(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-        try {
-            if (wordsInLineWithoutToken.size() != 3) {
-                throw new ObjReaderException("Wrong number of normal.", lineInd);
-            }
-            return new Vector3f(
-                    Float.parseFloat(wordsInLineWithoutToken.get(0)),
-                    Float.parseFloat(wordsInLineWithoutToken.get(1)),
-                    Float.parseFloat(wordsInLineWithoutToken.get(2)));
+    // Параллельное чтение на всех ядрах. Результат полностью совпадает с readMesh(Path),
+    // включая порядок элементов, номера строк полигонов и текст ошибок.
+    public static PackedMesh readMeshParallel(Path path) throws IOException {
+        return readMeshParallel(path, ForkJoinPool.commonPool(), false);
+    }
 
-        } catch (NumberFormatException e) {
-            throw new ObjReaderException("Failed to parse float value.", lineInd);
+    public static PackedMesh readMeshParallel(Path path, ForkJoinPool pool) throws IOException {
+        return readMeshParallel(path, pool, false);
+    }
 
-        } catch (IndexOutOfBoundsException e) {
-            throw new ObjReaderException("Too few normal arguments.", lineInd);
-        }
+    public static PackedMesh readMeshParallel(Path path, ForkJoinPool pool, boolean keepLineNumbers) throws IOException {
+        return readMeshParallel(path, pool, keepLineNumbers, ReadProgress.NONE);
     }
 
-    protected static Polygon parseFace(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-        ArrayList<Integer> onePolygonVertexIndices = new ArrayList<Integer>();
-        ArrayList<Integer> onePolygonTextureVertexIndices = new ArrayList<Integer>();
-        ArrayList<Integer> onePolygonNormalIndices = new ArrayList<Integer>();
+    // Прогресс сообщается после каждого разобранного куска, при отмене ещё не начатые куски пропускаются
+    public static PackedMesh readMeshParallel(Path path, ForkJoinPool pool, boolean keepLineNumbers,
+                                              ReadProgress progress) throws IOException {
+        return ParallelObjReader.read(path, pool, PARALLEL_CHUNK_SIZE, keepLineNumbers, progress);
+    }
 
-        for (String s : wordsInLineWithoutToken) {
-            parseFaceWord(s, onePolygonVertexIndices, onePolygonTextureVertexIndices, onePolygonNormalIndices, lineInd);
+    static void parseLine(final ObjTokenizer tokenizer, int lineInd, MeshBuilder result) {
+        if (tokenizer.keywordIs(OBJ_VERTEX_TOKEN)) {
+            checkArgumentCount(tokenizer, 3, "Wrong number of vertex.", lineInd);
+            result.addVertex(
+                    parseFloatArgument(tokenizer, 0, lineInd),
+                    parseFloatArgument(tokenizer, 1, lineInd),
+                    parseFloatArgument(tokenizer, 2, lineInd));
+        } else if (tokenizer.keywordIs(OBJ_TEXTURE_TOKEN)) {
+            checkArgumentCount(tokenizer, 2, "Wrong number of texture vertex.", lineInd);
+            result.addTextureVertex(
+                    parseFloatArgument(tokenizer, 0, lineInd),
+                    parseFloatArgument(tokenizer, 1, lineInd));
+        } else if (tokenizer.keywordIs(OBJ_NORMAL_TOKEN)) {
+            checkArgumentCount(tokenizer, 3, "Wrong number of normal.", lineInd);
+            result.addNormal(
+                    parseFloatArgument(tokenizer, 0, lineInd),
+                    parseFloatArgument(tokenizer, 1, lineInd),
+                    parseFloatArgument(tokenizer, 2, lineInd));
+        } else if (tokenizer.keywordIs(OBJ_FACE_TOKEN)) {
+            parseFace(tokenizer, lineInd, result);
         }
+    }
 
-        if (onePolygonVertexIndices.size() < 3) {
-            throw new ObjReaderException("Polygon must have at least 3 vertices.", lineInd);
-        }
+    // Всем методам кроме основного я поставил модификатор доступа protected, чтобы обращаться к ним в тестах
+    protected static Vector3f parseVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
+        ObjTokenizer tokenizer = ObjTokenizer.ofArguments(wordsInLineWithoutToken);
+        checkArgumentCount(tokenizer, 3, "Wrong number of vertex.", lineInd);
+        return new Vector3f(
+                parseFloatArgument(tokenizer, 0, lineInd),
+                parseFloatArgument(tokenizer, 1, lineInd),
+                parseFloatArgument(tokenizer, 2, lineInd));
+    }
 
-        Polygon result = new Polygon();
+    protected static Vector2f parseTextureVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
+        ObjTokenizer tokenizer = ObjTokenizer.ofArguments(wordsInLineWithoutToken);
+        checkArgumentCount(tokenizer, 2, "Wrong number of texture vertex.", lineInd);
+        return new Vector2f(
+                parseFloatArgument(tokenizer, 0, lineInd),
+                parseFloatArgument(tokenizer, 1, lineInd));
+    }
 
-        result.setLineNumber(lineInd);
-        result.setVertexIndices(onePolygonVertexIndices);
+    protected static Vector3f parseNormal(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
+        ObjTokenizer tokenizer = ObjTokenizer.ofArguments(wordsInLineWithoutToken);
+        checkArgumentCount(tokenizer, 3, "Wrong number of normal.", lineInd);
+        return new Vector3f(
+                parseFloatArgument(tokenizer, 0, lineInd),
+                parseFloatArgument(tokenizer, 1, lineInd),
+                parseFloatArgument(tokenizer, 2, lineInd));
+    }
 
+    protected static Polygon parseFace(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
+        MeshBuilder onePolygon = new MeshBuilder();
+        parseFace(ObjTokenizer.ofArguments(wordsInLineWithoutToken), lineInd, onePolygon);
+        return onePolygon.build().toModel().getPolygons().getFirst();
+    }
 
-        result.setTextureVertexIndices(onePolygonTextureVertexIndices.isEmpty() ? null : onePolygonTextureVertexIndices);
+    private static void checkArgumentCount(final ObjTokenizer tokenizer, int expected, String errorMessage, int lineInd) {
+        if (tokenizer.argumentCount() != expected) {
+            throw new ObjReaderException(errorMessage, lineInd);
+        }
+    }
 
-        result.setNormalIndices(onePolygonNormalIndices.isEmpty() ? null : onePolygonNormalIndices);
+    private static float parseFloatArgument(final ObjTokenizer tokenizer, int argumentInd, int lineInd) {
+        try {
+            return tokenizer.argumentAsFloat(argumentInd);
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Failed to parse float value.", lineInd);
+        }
+    }
 
-        return result;
+    protected static void parseFace(final ObjTokenizer tokenizer, int lineInd, MeshBuilder result) {
+        final int nWords = tokenizer.argumentCount();
+        for (int i = 0; i < nWords; ++i) {
+            parseFaceWord(tokenizer.line(), tokenizer.argumentStart(i), tokenizer.argumentEnd(i), result, lineInd);
+        }
+        result.endFace(lineInd);
     }
 
     // Обратите внимание, что для чтения полигонов я выделил еще один вспомогательный метод.
     // Это бывает очень полезно и с точки зрения структурирования алгоритма в голове, и с точки зрения тестирования.
     // В радикальных случаях не бойтесь выносить в отдельные методы и тестировать код из одной-двух строчек.
-    protected static void parseFaceWord(
-            String wordInLine,
-            ArrayList<Integer> onePolygonVertexIndices,
-            ArrayList<Integer> onePolygonTextureVertexIndices,
-            ArrayList<Integer> onePolygonNormalIndices,
-            int lineInd) {
+    //
+    // Слово вида v, v/vt, v//vn или v/vt/vn разбирается по позициям '/' без split("/").
+    protected static void parseFaceWord(byte[] line, int wordStart, int wordEnd, MeshBuilder result, int lineInd) {
+        // split("/") отбрасывает пустые части в конце: "1/2/" - это 2 части, "1//" - одна
+        int end = wordEnd;
+        while (end > wordStart && line[end - 1] == '/') {
+            --end;
+        }
+
+        int firstSlash = -1;
+        int secondSlash = -1;
+        int nParts = end == wordStart ? 0 : 1;
+        for (int i = wordStart; i < end; ++i) {
+            if (line[i] == '/') {
+                if (nParts == 1) {
+                    firstSlash = i;
+                } else if (nParts == 2) {
+                    secondSlash = i;
+                }
+                ++nParts;
+            }
+        }
+
+        final int vertexEnd = firstSlash < 0 ? end : firstSlash;
+
         try {
-            String[] wordIndices = wordInLine.split("/");
-            switch (wordIndices.length) {
+            switch (nParts) {
                 // f v1 v2 v3
                 case 1 -> {
-                    int vertex = Integer.parseInt(wordIndices[0]);
+                    int vertex = AsciiNumbers.parseInt(line, wordStart, vertexEnd);
                     if (vertex <= 0) {
                         throw new ObjReaderException("Vertex should be >= 1", lineInd);
                     }
-                    onePolygonVertexIndices.add(vertex - 1);
+                    result.addCorner(vertex - 1, -1, -1);
                 }
                 case 2 -> {
                     // f v1/vt1 v2/vt2 v3/vt3
-                    int vertex = Integer.parseInt(wordIndices[0]);
+                    int vertex = AsciiNumbers.parseInt(line, wordStart, vertexEnd);
                     if (vertex <= 0) {
                         throw new ObjReaderException("Vertex should be >= 1", lineInd);
                     }
-                    onePolygonVertexIndices.add(vertex - 1);
 
-                    int texture = Integer.parseInt(wordIndices[1]);
+                    int texture = AsciiNumbers.parseInt(line, firstSlash + 1, end);
                     if (texture <= 0) {
                         throw new ObjReaderException("Texture should be >= 1", lineInd);
                     }
-                    onePolygonTextureVertexIndices.add(texture - 1);
+                    result.addCorner(vertex - 1, texture - 1, -1);
                 }
                 case 3 -> {
                     // f v1/vt1/vn1 v2/vt2/vn2 v3/vt3/vn3
                     //  f v1//vn1 v2//vn2 v3//vn3
-                    int vertex = Integer.parseInt(wordIndices[0]);
+                    int vertex = AsciiNumbers.parseInt(line, wordStart, vertexEnd);
                     if (vertex <= 0) {
                         throw new ObjReaderException("Vertex should be >= 1", lineInd);
                     }
-                    onePolygonVertexIndices.add(vertex - 1);
 
-                    if (!wordIndices[1].isEmpty()) {
-                        int texture = Integer.parseInt(wordIndices[1]);
+                    int texture = 0;
+                    if (firstSlash + 1 != secondSlash) {
+                        texture = AsciiNumbers.parseInt(line, firstSlash + 1, secondSlash);
                         if (texture <= 0) {
                             throw new ObjReaderException("Texture should be >= 1", lineInd);
                         }
-                        onePolygonTextureVertexIndices.add(texture - 1);
                     }
 
-                    if (!wordIndices[2].isEmpty()) {
-                        int normal = Integer.parseInt(wordIndices[2]);
-                        if (normal <= 0) {
-                            throw new ObjReaderException("Normal should be >= 1", lineInd);
-                        }
-                        onePolygonNormalIndices.add(normal - 1);
-
+                    int normal = AsciiNumbers.parseInt(line, secondSlash + 1, end);
+                    if (normal <= 0) {
+                        throw new ObjReaderException("Normal should be >= 1", lineInd);
                     }
+                    result.addCorner(vertex - 1, texture - 1, normal - 1);
                 }
                 default -> throw new ObjReaderException("Invalid element size.", lineInd);
             }
 
         } catch (NumberFormatException e) {
             throw new ObjReaderException("Failed to parse int value.", lineInd);
-
-        } catch (IndexOutOfBoundsException e) {
-            throw new ObjReaderException("Too few arguments.", lineInd);
         }
     }
 
     //обработка ошибок при чтении
-    protected static void checkModel(Model result) {
-        if (result.getVertices().isEmpty()) {
+    protected static void checkModel(PackedMesh result) {
+        checkModelNotEmpty(result);
+        checkPolygons(result, 0, result.getPolygonCount());
+    }
+
+    static void checkModelNotEmpty(PackedMesh result) {
+        if (result.getVertexCount() == 0) {
             throw new ObjReaderException("Файл не содержит вершин.", 0);
         }
 
-        if (result.getPolygons().isEmpty()) {
+        if (result.getPolygonCount() == 0) {
             throw new ObjReaderException("Файл не содержит полигонов.", 0);
         }
-        //проверка чтобы индексы в полигонах совпадали с количеством вершин/текстур/нормалей в файле
-        int amountVertices = result.getVertices().size();
-        int amountTextures = result.getTextureVertices().size();
-        int amountNormals = result.getNormals().size();
+    }
 
-        for (Polygon pol : result.getPolygons()) {
-            for (int vertexIndex : pol.getVertexIndices()) {
+    //проверка чтобы индексы в полигонах [from, to) совпадали с количеством вершин/текстур/нормалей в файле
+    static void checkPolygons(PackedMesh result, int from, int to) {
+        int amountVertices = result.getVertexCount();
+        int amountTextures = result.getTextureVertexCount();
+        int amountNormals = result.getNormalCount();
+        PolygonStore polygons = result.polygons;
+
+        for (int polygonInd = from; polygonInd < to; ++polygonInd) {
+            final int start = polygons.getStart(polygonInd);
+            final int end = start + polygons.getSize(polygonInd);
+
+            for (int i = start; i < end; ++i) {
+                int vertexIndex = polygons.vertexIndices[i];
                 if (vertexIndex >= amountVertices) {
-                    throw new ObjReaderException("Индекс вершины " + (vertexIndex + 1) + " превышает количество вершин в файле.", pol.getLineNumber());
+                    throw new ObjReaderException("Индекс вершины " + (vertexIndex + 1) + " превышает количество вершин в файле.", polygons.getLineNumber(polygonInd));
                 }
             }
 
-            if (pol.getTextureVertexIndices() != null) {
-                for (int textureIndex : pol.getTextureVertexIndices()) {
+            if (polygons.hasTextureVertexIndices(polygonInd)) {
+                for (int i = start; i < end; ++i) {
+                    int textureIndex = polygons.textureVertexIndices[i];
                     if (textureIndex >= amountTextures) {
-                        throw new ObjReaderException("Индекс текстуры " + (textureIndex + 1) + " превышает количество текстур в файле.", pol.getLineNumber());
+                        throw new ObjReaderException("Индекс текстуры " + (textureIndex + 1) + " превышает количество текстур в файле.", polygons.getLineNumber(polygonInd));
                     }
                 }
             }
 
-            if (pol.getNormalIndices() != null) {
-                for (int normalIndex : pol.getNormalIndices()) {
+            if (polygons.hasNormalIndices(polygonInd)) {
+                for (int i = start; i < end; ++i) {
+                    int normalIndex = polygons.normalIndices[i];
                     if (normalIndex >= amountNormals) {
-                        throw new ObjReaderException("Индекс нормали " + (normalIndex + 1) + " превышает количество нормалей в файле.", pol.getLineNumber());
+                        throw new ObjReaderException("Индекс нормали " + (normalIndex + 1) + " превышает количество нормалей в файле.", polygons.getLineNumber(polygonInd));
                     }
                 }
             }
         }
-
-
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,21 @@
 package com.cgvsu.objreader;
 
 public class ObjReaderException extends RuntimeException {
+    private final String errorMessage;
+    private final int lineInd;
+
     public ObjReaderException(String errorMessage, int lineInd) {
         super("Error parsing OBJ file on line: " + lineInd + ". " + errorMessage);
+        this.errorMessage = errorMessage;
+        this.lineInd = lineInd;
+    }
+
+    public int getLineInd() {
+        return lineInd;
+    }
+
+    // Куски файла при параллельном чтении нумеруют строки с единицы, здесь номер переводится в номер строки файла
+    ObjReaderException withLineOffset(int lineOffset) {
+        return new ObjReaderException(errorMessage, lineInd + lineOffset);
     }
-}
\ No newline at end of file
+}
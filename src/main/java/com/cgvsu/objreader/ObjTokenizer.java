@@ -0,0 +1,107 @@
+package com.cgvsu.objreader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Однопроходный разбор строки OBJ на слова без создания строк.
+// Вместо split("\\s+") запоминаем только границы слов в массиве байт строки.
+class ObjTokenizer {
+
+    private byte[] line = new byte[0];
+
+    private int keywordStart;
+    private int keywordEnd;
+
+    private int[] argumentStarts = new int[16];
+    private int[] argumentEnds = new int[16];
+    private int argumentCount;
+
+    // Первое слово строки - ключевое (v, vt, vn, f), остальные - аргументы.
+    // Как и split("\\s+"), строка с пробелом в начале даёт пустое ключевое слово.
+    void tokenizeLine(byte[] line, int length) {
+        this.line = line;
+        int position = 0;
+        keywordStart = 0;
+        while (position < length && !isWhitespace(line[position])) {
+            ++position;
+        }
+        keywordEnd = position;
+        tokenizeArguments(position, length);
+    }
+
+    // Используется старыми методами parseVertex/parseFace, которые принимают список слов
+    static ObjTokenizer ofArguments(List<String> words) {
+        byte[] bytes = String.join(" ", words).getBytes(StandardCharsets.UTF_8);
+        ObjTokenizer tokenizer = new ObjTokenizer();
+        tokenizer.line = bytes;
+        tokenizer.keywordStart = 0;
+        tokenizer.keywordEnd = 0;
+        tokenizer.tokenizeArguments(0, bytes.length);
+        return tokenizer;
+    }
+
+    private void tokenizeArguments(int position, int length) {
+        argumentCount = 0;
+        while (true) {
+            while (position < length && isWhitespace(line[position])) {
+                ++position;
+            }
+            if (position == length) {
+                return;
+            }
+            final int start = position;
+            while (position < length && !isWhitespace(line[position])) {
+                ++position;
+            }
+            addArgument(start, position);
+        }
+    }
+
+    private void addArgument(int start, int end) {
+        if (argumentCount == argumentStarts.length) {
+            argumentStarts = Arrays.copyOf(argumentStarts, argumentCount * 2);
+            argumentEnds = Arrays.copyOf(argumentEnds, argumentCount * 2);
+        }
+        argumentStarts[argumentCount] = start;
+        argumentEnds[argumentCount] = end;
+        ++argumentCount;
+    }
+
+    boolean keywordIs(String keyword) {
+        if (keywordEnd - keywordStart != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); ++i) {
+            if (line[keywordStart + i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    byte[] line() {
+        return line;
+    }
+
+    int argumentCount() {
+        return argumentCount;
+    }
+
+    int argumentStart(int index) {
+        return argumentStarts[index];
+    }
+
+    int argumentEnd(int index) {
+        return argumentEnds[index];
+    }
+
+    float argumentAsFloat(int index) {
+        return AsciiNumbers.parseFloat(line, argumentStarts[index], argumentEnds[index]);
+    }
+
+    // тот же набор символов, что и \s в регулярных выражениях
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+}
@@ -0,0 +1,277 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Параллельное чтение: файл режется на куски по границам строк, каждый кусок разбирается
+// в своей задаче ForkJoinPool, потом куски склеиваются в одну PackedMesh в исходном порядке.
+// Индексы в f абсолютные (с единицы от начала файла), поэтому при склейке их менять не нужно -
+// сдвигаются только номера строк.
+class ParallelObjReader {
+
+    // на сколько байт заглядываем вперёд за раз, когда ищем конец строки на границе куска
+    private static final int BOUNDARY_SEARCH_WINDOW = 64 * 1024;
+
+    // меньше этого числа полигонов проверку checkModel не делим
+    private static final int CHECK_RANGE_THRESHOLD = 64 * 1024;
+
+    private ParallelObjReader() {
+    }
+
+    static PackedMesh read(Path path, ForkJoinPool pool, long chunkSize, boolean keepLineNumbers,
+                           ReadProgress progress) throws IOException {
+        List<MappedByteBuffer> chunks = mapChunks(path, chunkSize);
+        long totalBytes = 0;
+        for (MappedByteBuffer chunk : chunks) {
+            totalBytes += chunk.limit();
+        }
+        final long fileSize = totalBytes;
+        final AtomicLong bytesParsed = new AtomicLong();
+
+        List<ForkJoinTask<ChunkResult>> tasks = new ArrayList<>(chunks.size());
+        for (MappedByteBuffer chunk : chunks) {
+            tasks.add(pool.submit(() -> {
+                // после отмены ещё не начатые куски сразу пропускаются
+                if (progress.isCancelled()) {
+                    return null;
+                }
+                final int nBytes = chunk.limit();
+                ChunkResult result = parseChunk(chunk);
+                progress.update(bytesParsed.addAndGet(nBytes), fileSize);
+                return result;
+            }));
+        }
+        List<ChunkResult> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<ChunkResult> task : tasks) {
+            results.add(task.join());
+        }
+        if (progress.isCancelled()) {
+            throw new CancellationException("Чтение " + path + " отменено");
+        }
+
+        PackedMesh result = stitch(results, pool);
+        checkModel(result, pool);
+        if (!keepLineNumbers) {
+            result.polygons.lineNumbers = null;
+        }
+        return result;
+    }
+
+    // Границы кусков ставятся сразу после '\n', так что \r\n никогда не разрывается
+    private static List<MappedByteBuffer> mapChunks(Path path, long chunkSize) throws IOException {
+        List<MappedByteBuffer> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = start + chunkSize >= size ? size : findLineEnd(channel, start + chunkSize, size);
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    private static long findLineEnd(FileChannel channel, long from, long size) throws IOException {
+        for (long position = from; position < size; position += BOUNDARY_SEARCH_WINDOW) {
+            MappedByteBuffer window = channel.map(
+                    FileChannel.MapMode.READ_ONLY, position, Math.min(BOUNDARY_SEARCH_WINDOW, size - position));
+            for (int i = 0; i < window.limit(); ++i) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static ChunkResult parseChunk(ByteBuffer chunk) {
+        ByteLineReader reader = new ByteLineReader();
+        try {
+            reader.accept(chunk);
+            reader.endOfInput();
+            return new ChunkResult(reader.builder(), reader.lineCount(), null);
+        } catch (ObjReaderException exception) {
+            return new ChunkResult(null, 0, exception);
+        }
+    }
+
+    // Сначала считаем, куда ляжет каждый кусок, потом копируем куски в общие массивы параллельно
+    private static PackedMesh stitch(List<ChunkResult> results, ForkJoinPool pool) {
+        // как и при последовательном чтении, ошибка - первая по порядку строк
+        int lineOffset = 0;
+        for (ChunkResult chunk : results) {
+            if (chunk.error != null) {
+                throw chunk.error.withLineOffset(lineOffset);
+            }
+            lineOffset += chunk.lineCount;
+        }
+
+        int nVertices = 0;
+        int nTextureVertices = 0;
+        int nNormals = 0;
+        int nPolygons = 0;
+        int nCorners = 0;
+        boolean anyTextures = false;
+        boolean anyNormals = false;
+        for (ChunkResult chunk : results) {
+            MeshBuilder part = chunk.builder;
+            nVertices += part.vertexCount;
+            nTextureVertices += part.textureVertexCount;
+            nNormals += part.normalCount;
+            nPolygons += part.faceCount;
+            nCorners += part.cornerCount;
+            anyTextures |= part.textureVertexIndices != null;
+            anyNormals |= part.normalIndices != null;
+        }
+
+        PackedMesh result = new PackedMesh();
+        PolygonStore polygons = result.polygons;
+        result.vertexX = new float[nVertices];
+        result.vertexY = new float[nVertices];
+        result.vertexZ = new float[nVertices];
+        result.textureU = new float[nTextureVertices];
+        result.textureV = new float[nTextureVertices];
+        result.normalX = new float[nNormals];
+        result.normalY = new float[nNormals];
+        result.normalZ = new float[nNormals];
+        polygons.faceOffsets = new int[nPolygons + 1];
+        polygons.lineNumbers = new int[nPolygons];
+        polygons.vertexIndices = new int[nCorners];
+        polygons.textureVertexIndices = anyTextures ? new int[nCorners] : null;
+        polygons.normalIndices = anyNormals ? new int[nCorners] : null;
+
+        List<ForkJoinTask<?>> copies = new ArrayList<>(results.size());
+        Offsets offsets = new Offsets();
+        for (ChunkResult chunk : results) {
+            final Offsets chunkOffsets = offsets.copy();
+            copies.add(pool.submit(() -> copyChunk(chunk.builder, chunkOffsets, result)));
+
+            offsets.vertex += chunk.builder.vertexCount;
+            offsets.textureVertex += chunk.builder.textureVertexCount;
+            offsets.normal += chunk.builder.normalCount;
+            offsets.polygon += chunk.builder.faceCount;
+            offsets.corner += chunk.builder.cornerCount;
+            offsets.line += chunk.lineCount;
+        }
+        for (ForkJoinTask<?> copy : copies) {
+            copy.join();
+        }
+        return result;
+    }
+
+    private static void copyChunk(MeshBuilder part, Offsets offsets, PackedMesh result) {
+        System.arraycopy(part.vertexX, 0, result.vertexX, offsets.vertex, part.vertexCount);
+        System.arraycopy(part.vertexY, 0, result.vertexY, offsets.vertex, part.vertexCount);
+        System.arraycopy(part.vertexZ, 0, result.vertexZ, offsets.vertex, part.vertexCount);
+
+        System.arraycopy(part.textureU, 0, result.textureU, offsets.textureVertex, part.textureVertexCount);
+        System.arraycopy(part.textureV, 0, result.textureV, offsets.textureVertex, part.textureVertexCount);
+
+        System.arraycopy(part.normalX, 0, result.normalX, offsets.normal, part.normalCount);
+        System.arraycopy(part.normalY, 0, result.normalY, offsets.normal, part.normalCount);
+        System.arraycopy(part.normalZ, 0, result.normalZ, offsets.normal, part.normalCount);
+
+        // индексы вершин абсолютные и сдвигов не требуют, сдвигаются только начала полигонов и номера строк
+        PolygonStore polygons = result.polygons;
+        System.arraycopy(part.vertexIndices, 0, polygons.vertexIndices, offsets.corner, part.cornerCount);
+        copyOptionalIndices(part.textureVertexIndices, polygons.textureVertexIndices, offsets.corner, part.cornerCount);
+        copyOptionalIndices(part.normalIndices, polygons.normalIndices, offsets.corner, part.cornerCount);
+
+        for (int i = 0; i < part.faceCount; ++i) {
+            polygons.faceOffsets[offsets.polygon + i + 1] = part.faceOffsets[i + 1] + offsets.corner;
+            polygons.lineNumbers[offsets.polygon + i] = part.lineNumbers[i] + offsets.line;
+        }
+    }
+
+    private static void copyOptionalIndices(int[] source, int[] destination, int offset, int count) {
+        if (destination == null) {
+            return;
+        }
+        if (source == null) {
+            Arrays.fill(destination, offset, offset + count, -1);
+        } else {
+            System.arraycopy(source, 0, destination, offset, count);
+        }
+    }
+
+    // То же, что ObjReader.checkModel, но полигоны проверяются диапазонами параллельно.
+    // Из нескольких ошибок выбирается первая по порядку полигонов, как при последовательной проверке.
+    static void checkModel(PackedMesh result, ForkJoinPool pool) {
+        ObjReader.checkModelNotEmpty(result);
+
+        ObjReaderException error = pool.invoke(new CheckRangeTask(result, 0, result.getPolygonCount()));
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private static class CheckRangeTask extends RecursiveTask<ObjReaderException> {
+        private final PackedMesh model;
+        private final int from;
+        private final int to;
+
+        CheckRangeTask(PackedMesh model, int from, int to) {
+            this.model = model;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ObjReaderException compute() {
+            if (to - from <= CHECK_RANGE_THRESHOLD) {
+                try {
+                    ObjReader.checkPolygons(model, from, to);
+                    return null;
+                } catch (ObjReaderException exception) {
+                    return exception;
+                }
+            }
+            final int middle = (from + to) >>> 1;
+            CheckRangeTask right = new CheckRangeTask(model, middle, to);
+            right.fork();
+            ObjReaderException leftError = new CheckRangeTask(model, from, middle).compute();
+            ObjReaderException rightError = right.join();
+            return leftError != null ? leftError : rightError;
+        }
+    }
+
+    private record ChunkResult(MeshBuilder builder, int lineCount, ObjReaderException error) {
+    }
+
+    // Позиции, с которых кусок записывается в общие массивы
+    private static class Offsets {
+        int vertex;
+        int textureVertex;
+        int normal;
+        int polygon;
+        int corner;
+        int line;
+
+        Offsets copy() {
+            Offsets copy = new Offsets();
+            copy.vertex = vertex;
+            copy.textureVertex = textureVertex;
+            copy.normal = normal;
+            copy.polygon = polygon;
+            copy.corner = corner;
+            copy.line = line;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.cgvsu.objreader;
+
+// Обратная связь при долгом чтении: сколько байт файла уже разобрано и не пора ли остановиться.
+// Методы вызываются из рабочих потоков чтения, в том числе из нескольких сразу.
+public interface ReadProgress {
+
+    ReadProgress NONE = new ReadProgress() {
+        @Override
+        public void update(long bytesParsed, long totalBytes) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    void update(long bytesParsed, long totalBytes);
+
+    // true - чтение прерывается с CancellationException
+    boolean isCancelled();
+}
@@ -1,7 +1,11 @@
 package com.cgvsu.render_engine;
-import javax.vecmath.Vector3f;
-import javax.vecmath.Matrix4f;
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
 
+// Матрицы вида и проекции считаются один раз и пересчитываются на месте, только когда камера изменилась.
+// Каждое изменение увеличивает версию (getVersion): по ней RenderEngine понимает, что вершины
+// можно не преобразовывать заново. Поэтому менять положение камеры - только через её методы,
+// а не через векторы из getPosition/getTarget.
 public class Camera {
 
     public Camera(
@@ -21,14 +25,23 @@ public class Camera {
 
     public void setPosition(final Vector3f position) {
         this.position = position;
+        viewChanged();
     }
 
     public void setTarget(final Vector3f target) {
         this.target = target;
+        viewChanged();
     }
 
+    // окно просмотра зовёт это каждый кадр: без изменения размера матрицы не сбрасываются
     public void setAspectRatio(final float aspectRatio) {
+        if (this.aspectRatio == aspectRatio) {
+            return;
+        }
         this.aspectRatio = aspectRatio;
+        projectionDirty = true;
+        viewProjectionDirty = true;
+        ++version;
     }
 
     public Vector3f getPosition() {
@@ -41,18 +54,48 @@ public class Camera {
 
     public void movePosition(final Vector3f translation) {
         this.position.add(translation);
+        viewChanged();
     }
 
     public void moveTarget(final Vector3f translation) {
-        this.target.add(target);
+        this.target.add(translation);
+        viewChanged();
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    // Матрицы ниже общие для всех вызовов - их нельзя менять, только копировать
     Matrix4f getViewMatrix() {
-        return GraphicConveyor.lookAt(position, target);
+        if (viewDirty) {
+            GraphicConveyor.lookAt(position, target, viewMatrix);
+            viewDirty = false;
+        }
+        return viewMatrix;
     }
 
     Matrix4f getProjectionMatrix() {
-        return GraphicConveyor.perspective(fov, aspectRatio, nearPlane, farPlane);
+        if (projectionDirty) {
+            GraphicConveyor.perspective(fov, aspectRatio, nearPlane, farPlane, projectionMatrix);
+            projectionDirty = false;
+        }
+        return projectionMatrix;
+    }
+
+    // вид, умноженный на проекцию (векторы-строки: сначала вид)
+    Matrix4f getViewProjectionMatrix() {
+        if (viewProjectionDirty) {
+            viewProjectionMatrix.mul(getViewMatrix(), getProjectionMatrix());
+            viewProjectionDirty = false;
+        }
+        return viewProjectionMatrix;
+    }
+
+    private void viewChanged() {
+        viewDirty = true;
+        viewProjectionDirty = true;
+        ++version;
     }
 
     private Vector3f position;
@@ -61,4 +104,12 @@ public class Camera {
     private float aspectRatio;
     private float nearPlane;
     private float farPlane;
-}
\ No newline at end of file
+
+    private final Matrix4f viewMatrix = new Matrix4f();
+    private final Matrix4f projectionMatrix = new Matrix4f();
+    private final Matrix4f viewProjectionMatrix = new Matrix4f();
+    private boolean viewDirty = true;
+    private boolean projectionDirty = true;
+    private boolean viewProjectionDirty = true;
+    private long version = 0;
+}
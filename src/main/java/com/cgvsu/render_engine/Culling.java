@@ -0,0 +1,63 @@
+package com.cgvsu.render_engine;
+
+// Что делать с полигоном до отрисовки. По битам вершин из ScreenSpaceBuffer.outcodes:
+// если все вершины лежат за одной и той же плоскостью пирамиды видимости, полигон не виден целиком;
+// если хоть одна за ближней или дальней плоскостью, полигон надо отсечь PolygonClipper'ом,
+// остальные рисуются по уже готовым экранным координатам.
+class Culling {
+
+    static final int CULLED = 0;
+    static final int VISIBLE = 1;
+    static final int NEEDS_CLIPPING = 2;
+
+    private Culling() {
+    }
+
+    // Полигоны, которым нужно отсечение, на лицевую сторону проверяются уже после него (isFrontFacing)
+    static int classify(
+            final ScreenSpaceBuffer screen,
+            final int[] vertexIndices, final int start, final int end,
+            final boolean backFaceCulling) {
+        final byte[] outcodes = screen.outcodes;
+        int outsideAll = 0xFF;
+        int outsideAny = 0;
+        for (int i = start; i < end; ++i) {
+            final int outcode = outcodes[vertexIndices[i]];
+            outsideAll &= outcode;
+            outsideAny |= outcode;
+        }
+        if (outsideAll != 0 || end == start) {
+            return CULLED;
+        }
+        if ((outsideAny & PolygonClipper.OUTSIDE_DEPTH) != 0) {
+            return NEEDS_CLIPPING;
+        }
+        if (backFaceCulling && !isFrontFacing(screen.x, screen.y, vertexIndices, start, end)) {
+            return CULLED;
+        }
+        return VISIBLE;
+    }
+
+    // Лицевая сторона - та, с которой вершины идут против часовой стрелки, как принято в OBJ.
+    // Ось y экрана смотрит вниз и отражена по x (см. GraphicConveyor.lookAt), поэтому на экране
+    // у лицевых полигонов площадь по формуле шнурования положительна. Нулевая площадь - ребро, не рисуем
+    static boolean isFrontFacing(final float[] x, final float[] y, final int[] vertexIndices, final int start, final int end) {
+        float area = 0;
+        int previous = vertexIndices[end - 1];
+        for (int i = start; i < end; ++i) {
+            final int current = vertexIndices[i];
+            area += x[previous] * y[current] - x[current] * y[previous];
+            previous = current;
+        }
+        return area > 0;
+    }
+
+    // То же для отсечённого полигона из n вершин PolygonClipper
+    static boolean isFrontFacing(final PolygonClipper clipped, final int n) {
+        float area = 0;
+        for (int i = 0, previous = n - 1; i < n; previous = i++) {
+            area += clipped.x[previous] * clipped.y[i] - clipped.x[i] * clipped.y[previous];
+        }
+        return area > 0;
+    }
+}
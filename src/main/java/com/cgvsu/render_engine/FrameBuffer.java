@@ -0,0 +1,33 @@
+package com.cgvsu.render_engine;
+
+import java.util.Arrays;
+
+// Кадр в памяти: цвет в формате ARGB (по int на пиксель) и глубина (по float на пиксель).
+// Строки идут подряд: пиксель (x, y) лежит по индексу y * width + x.
+public class FrameBuffer {
+
+    public int width = 0;
+    public int height = 0;
+    public int[] color = new int[0];
+    public float[] depth = new float[0];
+
+    // раскладка полигонов по тайлам для параллельной заливки этого кадра, живёт вместе с кадром
+    final TiledRasterizer tiles = new TiledRasterizer();
+
+    // Массивы пересоздаются, только если новый кадр больше старого
+    public void resize(int width, int height) {
+        final int nPixels = width * height;
+        if (color.length < nPixels) {
+            color = new int[nPixels];
+            depth = new float[nPixels];
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    public void clear(int background) {
+        final int nPixels = width * height;
+        Arrays.fill(color, 0, nPixels, background);
+        Arrays.fill(depth, 0, nPixels, Float.POSITIVE_INFINITY);
+    }
+}
@@ -0,0 +1,37 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.model.PolygonBvh;
+
+// Узел BVH против пирамиды видимости: 8 углов параллелепипеда переводятся в пространство отсечения.
+// Если все углы за одной плоскостью, узел не виден; если все внутри, внутри и всё его поддерево
+class FrustumBoxCuller implements PolygonBvh.BoxTest {
+
+    private final Matrix4f matrix;
+
+    FrustumBoxCuller(Matrix4f modelViewProjection) {
+        this.matrix = modelViewProjection;
+    }
+
+    @Override
+    public int test(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        int outsideAll = 0xFF;
+        int outsideAny = 0;
+        for (int corner = 0; corner < 8; ++corner) {
+            final float vx = (corner & 1) == 0 ? minX : maxX;
+            final float vy = (corner & 2) == 0 ? minY : maxY;
+            final float vz = (corner & 4) == 0 ? minZ : maxZ;
+            final int outcode = PolygonClipper.outcode(
+                    (vx * matrix.m00) + (vy * matrix.m10) + (vz * matrix.m20) + matrix.m30,
+                    (vx * matrix.m01) + (vy * matrix.m11) + (vz * matrix.m21) + matrix.m31,
+                    (vx * matrix.m02) + (vy * matrix.m12) + (vz * matrix.m22) + matrix.m32,
+                    (vx * matrix.m03) + (vy * matrix.m13) + (vz * matrix.m23) + matrix.m33);
+            outsideAll &= outcode;
+            outsideAny |= outcode;
+        }
+        if (outsideAll != 0) {
+            return OUTSIDE;
+        }
+        return outsideAny == 0 ? INSIDE : INTERSECTS;
+    }
+}
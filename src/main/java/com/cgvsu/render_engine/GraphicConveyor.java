@@ -1,40 +1,99 @@
 package com.cgvsu.render_engine;
-import javax.vecmath.*;
 
+import com.cgvsu.math.ImmutableVector3f;
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+
+import java.util.List;
+
+// У каждой матрицы два вида: возвращающий новую и пишущий в переданную result -
+// вторым пользуется камера, чтобы при движении не создавать матрицы каждый кадр
 public class GraphicConveyor {
 
+    public static final ImmutableVector3f UP = ImmutableVector3f.UNIT_Y;
+
     public static Matrix4f rotateScaleTranslate() {
-        float[] matrix = new float[]{
-                1, 0, 0, 0,
-                0, 1, 0, 0,
-                0, 0, 1, 0,
-                0, 0, 0, 1};
-        return new Matrix4f(matrix);
+        return rotateScaleTranslate(new Matrix4f());
+    }
+
+    public static Matrix4f rotateScaleTranslate(Matrix4f result) {
+        return result.setIdentity();
+    }
+
+    // Матрица модели для векторов-строк: сначала масштаб, потом поворот вокруг X, Y, Z (радианы,
+    // против часовой стрелки, если смотреть с конца оси), потом перенос - S * Rx * Ry * Rz * T
+    public static Matrix4f rotateScaleTranslate(
+            final float scaleX, final float scaleY, final float scaleZ,
+            final float rotationX, final float rotationY, final float rotationZ,
+            final float translationX, final float translationY, final float translationZ,
+            final Matrix4f result) {
+        final float cx = (float) Math.cos(rotationX), sx = (float) Math.sin(rotationX);
+        final float cy = (float) Math.cos(rotationY), sy = (float) Math.sin(rotationY);
+        final float cz = (float) Math.cos(rotationZ), sz = (float) Math.sin(rotationZ);
+
+        // строки Rx * Ry
+        final float a00 = cy, a01 = 0, a02 = -sy;
+        final float a10 = sx * sy, a11 = cx, a12 = sx * cy;
+        final float a20 = cx * sy, a21 = -sx, a22 = cx * cy;
+
+        // умножаем на Rz, каждую строку - на свой масштаб
+        result.m00 = scaleX * (a00 * cz - a01 * sz);
+        result.m01 = scaleX * (a00 * sz + a01 * cz);
+        result.m02 = scaleX * a02;
+        result.m03 = 0;
+        result.m10 = scaleY * (a10 * cz - a11 * sz);
+        result.m11 = scaleY * (a10 * sz + a11 * cz);
+        result.m12 = scaleY * a12;
+        result.m13 = 0;
+        result.m20 = scaleZ * (a20 * cz - a21 * sz);
+        result.m21 = scaleZ * (a20 * sz + a21 * cz);
+        result.m22 = scaleZ * a22;
+        result.m23 = 0;
+        result.m30 = translationX;
+        result.m31 = translationY;
+        result.m32 = translationZ;
+        result.m33 = 1;
+        return result;
     }
 
     public static Matrix4f lookAt(Vector3f eye, Vector3f target) {
-        return lookAt(eye, target, new Vector3f(0F, 1.0F, 0F));
+        return lookAt(eye, target, new Matrix4f());
     }
 
     public static Matrix4f lookAt(Vector3f eye, Vector3f target, Vector3f up) {
-        Vector3f resultX = new Vector3f();
-        Vector3f resultY = new Vector3f();
-        Vector3f resultZ = new Vector3f();
-
-        resultZ.sub(target, eye);
-        resultX.cross(up, resultZ);
-        resultY.cross(resultZ, resultX);
-
-        resultX.normalize();
-        resultY.normalize();
-        resultZ.normalize();
-
-        float[] matrix = new float[]{
-                resultX.x, resultY.x, resultZ.x, 0,
-                resultX.y, resultY.y, resultZ.y, 0,
-                resultX.z, resultY.z, resultZ.z, 0,
-                -resultX.dot(eye), -resultY.dot(eye), -resultZ.dot(eye), 1};
-        return new Matrix4f(matrix);
+        return lookAt(eye, target, up.x, up.y, up.z, new Matrix4f());
+    }
+
+    public static Matrix4f lookAt(Vector3f eye, Vector3f target, Matrix4f result) {
+        return lookAt(eye, target, UP.x(), UP.y(), UP.z(), result);
+    }
+
+    public static Matrix4f lookAt(
+            final Vector3f eye,
+            final Vector3f target,
+            final float upX, final float upY, final float upZ,
+            final Matrix4f result) {
+        // оси камеры: z - на цель, x = up x z, y = z x x
+        float zx = target.x - eye.x, zy = target.y - eye.y, zz = target.z - eye.z;
+        float xx = upY * zz - upZ * zy, xy = upZ * zx - upX * zz, xz = upX * zy - upY * zx;
+        float yx = zy * xz - zz * xy, yy = zz * xx - zx * xz, yz = zx * xy - zy * xx;
+
+        final float lengthX = (float) Math.sqrt(xx * xx + xy * xy + xz * xz);
+        final float lengthY = (float) Math.sqrt(yx * yx + yy * yy + yz * yz);
+        final float lengthZ = (float) Math.sqrt(zx * zx + zy * zy + zz * zz);
+        xx /= lengthX; xy /= lengthX; xz /= lengthX;
+        yx /= lengthY; yy /= lengthY; yz /= lengthY;
+        zx /= lengthZ; zy /= lengthZ; zz /= lengthZ;
+
+        result.m00 = xx; result.m01 = yx; result.m02 = zx; result.m03 = 0;
+        result.m10 = xy; result.m11 = yy; result.m12 = zy; result.m13 = 0;
+        result.m20 = xz; result.m21 = yz; result.m22 = zz; result.m23 = 0;
+        result.m30 = -(xx * eye.x + xy * eye.y + xz * eye.z);
+        result.m31 = -(yx * eye.x + yy * eye.y + yz * eye.z);
+        result.m32 = -(zx * eye.x + zy * eye.y + zz * eye.z);
+        result.m33 = 1;
+        return result;
     }
 
     public static Matrix4f perspective(
@@ -42,7 +101,16 @@ public class GraphicConveyor {
             final float aspectRatio,
             final float nearPlane,
             final float farPlane) {
-        Matrix4f result = new Matrix4f();
+        return perspective(fov, aspectRatio, nearPlane, farPlane, new Matrix4f());
+    }
+
+    public static Matrix4f perspective(
+            final float fov,
+            final float aspectRatio,
+            final float nearPlane,
+            final float farPlane,
+            final Matrix4f result) {
+        result.setZero();
         float tangentMinusOnDegree = (float) (1.0F / (Math.tan(fov * 0.5F)));
         result.m00 = tangentMinusOnDegree / aspectRatio;
         result.m11 = tangentMinusOnDegree;
@@ -53,14 +121,62 @@ public class GraphicConveyor {
     }
 
     public static Vector3f multiplyMatrix4ByVector3(final Matrix4f matrix, final Vector3f vertex) {
-        final float x = (vertex.x * matrix.m00) + (vertex.y * matrix.m10) + (vertex.z * matrix.m20) + matrix.m30;
-        final float y = (vertex.x * matrix.m01) + (vertex.y * matrix.m11) + (vertex.z * matrix.m21) + matrix.m31;
-        final float z = (vertex.x * matrix.m02) + (vertex.y * matrix.m12) + (vertex.z * matrix.m22) + matrix.m32;
-        final float w = (vertex.x * matrix.m03) + (vertex.y * matrix.m13) + (vertex.z * matrix.m23) + matrix.m33;
-        return new Vector3f(x / w, y / w, z / w);
+        return matrix.transformPoint(vertex, new Vector3f());
+    }
+
+    public static Vector3f multiplyMatrix4ByVector3(final Matrix4f matrix, final Vector3f vertex, final Vector3f result) {
+        return matrix.transformPoint(vertex, result);
+    }
+
+    public static Vector2f vertexToPoint(final Vector3f vertex, final int width, final int height) {
+        return new Vector2f(vertex.x * width + width / 2.0F, -vertex.y * height + height / 2.0F);
+    }
+
+    // То же, что vertexToPoint(multiplyMatrix4ByVector3(...)) для вершин [from, to), но без объектов:
+    // результат пишется в буфер, координаты берутся из массивов по осям.
+    // Заодно для каждой вершины запоминается, за какими плоскостями пирамиды видимости она лежит
+    public static void transformVertices(
+            final Matrix4f matrix,
+            final float[] vertexX, final float[] vertexY, final float[] vertexZ,
+            final int from, final int to,
+            final int width, final int height,
+            final ScreenSpaceBuffer result) {
+        final float halfWidth = width / 2.0F;
+        final float halfHeight = height / 2.0F;
+        for (int i = from; i < to; ++i) {
+            final float vx = vertexX[i];
+            final float vy = vertexY[i];
+            final float vz = vertexZ[i];
+            final float x = (vx * matrix.m00) + (vy * matrix.m10) + (vz * matrix.m20) + matrix.m30;
+            final float y = (vx * matrix.m01) + (vy * matrix.m11) + (vz * matrix.m21) + matrix.m31;
+            final float z = (vx * matrix.m02) + (vy * matrix.m12) + (vz * matrix.m22) + matrix.m32;
+            final float w = (vx * matrix.m03) + (vy * matrix.m13) + (vz * matrix.m23) + matrix.m33;
+            result.x[i] = x / w * width + halfWidth;
+            result.y[i] = -(y / w) * height + halfHeight;
+            result.z[i] = z / w;
+            result.outcodes[i] = (byte) PolygonClipper.outcode(x, y, z, w);
+        }
     }
 
-    public static Point2f vertexToPoint(final Vector3f vertex, final int width, final int height) {
-        return new Point2f(vertex.x * width + width / 2.0F, -vertex.y * height + height / 2.0F);
+    // Для объектной модели: вершины читаются из списка, новых объектов не создаётся
+    public static void transformVertices(
+            final Matrix4f matrix,
+            final List<Vector3f> vertices,
+            final int from, final int to,
+            final int width, final int height,
+            final ScreenSpaceBuffer result) {
+        final float halfWidth = width / 2.0F;
+        final float halfHeight = height / 2.0F;
+        for (int i = from; i < to; ++i) {
+            final Vector3f vertex = vertices.get(i);
+            final float x = (vertex.x * matrix.m00) + (vertex.y * matrix.m10) + (vertex.z * matrix.m20) + matrix.m30;
+            final float y = (vertex.x * matrix.m01) + (vertex.y * matrix.m11) + (vertex.z * matrix.m21) + matrix.m31;
+            final float z = (vertex.x * matrix.m02) + (vertex.y * matrix.m12) + (vertex.z * matrix.m22) + matrix.m32;
+            final float w = (vertex.x * matrix.m03) + (vertex.y * matrix.m13) + (vertex.z * matrix.m23) + matrix.m33;
+            result.x[i] = x / w * width + halfWidth;
+            result.y[i] = -(y / w) * height + halfHeight;
+            result.z[i] = z / w;
+            result.outcodes[i] = (byte) PolygonClipper.outcode(x, y, z, w);
+        }
     }
 }
@@ -0,0 +1,44 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.model.PackedMesh;
+
+// Модель на сцене: ссылка на сетку и собственное положение. Сетка (вершины, BVH, LOD, рёбра)
+// у всех экземпляров одна, поэтому сотня одинаковых болтов занимает в памяти одну модель
+// и читается из файла один раз. Своё у экземпляра только положение и матрица модель-вид-проекция,
+// которая пересчитывается, лишь когда изменилось положение или камера. Экранные координаты
+// вершин лежат в буферах ScreenBufferPool, которых не больше его ёмкости, сколько бы ни было копий.
+public class ModelInstance {
+
+    public final PackedMesh mesh;
+    public final ModelTransform transform = new ModelTransform();
+
+    private final Matrix4f modelViewProjection = new Matrix4f();
+    // для какой камеры и каких версий камеры и положения посчитана матрица
+    private Camera cachedCamera = null;
+    private long cachedCameraVersion = 0;
+    private long cachedTransformVersion = -1;
+
+    public ModelInstance(final PackedMesh mesh) {
+        this.mesh = mesh;
+    }
+
+    // Ещё один экземпляр той же сетки в том же положении
+    public ModelInstance copy() {
+        ModelInstance copy = new ModelInstance(mesh);
+        copy.transform.set(transform);
+        return copy;
+    }
+
+    // общая для всех вызовов, менять нельзя
+    Matrix4f getModelViewProjection(final Camera camera) {
+        if (camera != cachedCamera || camera.getVersion() != cachedCameraVersion
+                || transform.getVersion() != cachedTransformVersion) {
+            modelViewProjection.mul(transform.getMatrix(), camera.getViewProjectionMatrix());
+            cachedCamera = camera;
+            cachedCameraVersion = camera.getVersion();
+            cachedTransformVersion = transform.getVersion();
+        }
+        return modelViewProjection;
+    }
+}
@@ -0,0 +1,143 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+
+// Положение модели в сцене: масштаб по осям, поворот вокруг X, Y, Z (радианы) и перенос.
+// Как у Camera, матрица считается только после изменения, а каждое изменение увеличивает версию -
+// по ней ModelInstance и ScreenSpaceBuffer понимают, что закэшированное устарело.
+public class ModelTransform {
+
+    private float scaleX = 1, scaleY = 1, scaleZ = 1;
+    private float rotationX = 0, rotationY = 0, rotationZ = 0;
+    private float translationX = 0, translationY = 0, translationZ = 0;
+
+    private final Matrix4f matrix = new Matrix4f();
+    private final Matrix4f inverseMatrix = new Matrix4f();
+    private boolean matrixDirty = true;
+    private boolean inverseDirty = true;
+    private long version = 0;
+
+    public void setScale(final float x, final float y, final float z) {
+        scaleX = x;
+        scaleY = y;
+        scaleZ = z;
+        changed();
+    }
+
+    public void setRotation(final float x, final float y, final float z) {
+        rotationX = x;
+        rotationY = y;
+        rotationZ = z;
+        changed();
+    }
+
+    public void setTranslation(final float x, final float y, final float z) {
+        translationX = x;
+        translationY = y;
+        translationZ = z;
+        changed();
+    }
+
+    public void scale(final float factor) {
+        setScale(scaleX * factor, scaleY * factor, scaleZ * factor);
+    }
+
+    public void rotate(final float x, final float y, final float z) {
+        setRotation(rotationX + x, rotationY + y, rotationZ + z);
+    }
+
+    public void translate(final float x, final float y, final float z) {
+        setTranslation(translationX + x, translationY + y, translationZ + z);
+    }
+
+    public void set(final ModelTransform other) {
+        scaleX = other.scaleX;
+        scaleY = other.scaleY;
+        scaleZ = other.scaleZ;
+        rotationX = other.rotationX;
+        rotationY = other.rotationY;
+        rotationZ = other.rotationZ;
+        translationX = other.translationX;
+        translationY = other.translationY;
+        translationZ = other.translationZ;
+        changed();
+    }
+
+    public void reset() {
+        set(new ModelTransform());
+    }
+
+    public float getScaleX() {
+        return scaleX;
+    }
+
+    public float getScaleY() {
+        return scaleY;
+    }
+
+    public float getScaleZ() {
+        return scaleZ;
+    }
+
+    public float getRotationX() {
+        return rotationX;
+    }
+
+    public float getRotationY() {
+        return rotationY;
+    }
+
+    public float getRotationZ() {
+        return rotationZ;
+    }
+
+    public float getTranslationX() {
+        return translationX;
+    }
+
+    public float getTranslationY() {
+        return translationY;
+    }
+
+    public float getTranslationZ() {
+        return translationZ;
+    }
+
+    // во сколько раз модель больше исходной по самой растянутой оси - для радиуса описанной сферы
+    public float getMaxScale() {
+        return Math.max(Math.abs(scaleX), Math.max(Math.abs(scaleY), Math.abs(scaleZ)));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Матрицы ниже общие для всех вызовов - их нельзя менять, только копировать
+    Matrix4f getMatrix() {
+        if (matrixDirty) {
+            GraphicConveyor.rotateScaleTranslate(scaleX, scaleY, scaleZ, rotationX, rotationY, rotationZ,
+                    translationX, translationY, translationZ, matrix);
+            matrixDirty = false;
+        }
+        return matrix;
+    }
+
+    // обратная: из сцены в координаты модели (направление на свет для заливки)
+    Matrix4f getInverseMatrix() {
+        if (inverseDirty) {
+            inverseMatrix.set(getMatrix());
+            if (!inverseMatrix.invert()) {
+                // масштаб 0 по какой-то оси: модель сплющена, обратной нет - оставляем единичную
+                inverseMatrix.setIdentity();
+            }
+            inverseDirty = false;
+        }
+        return inverseMatrix;
+    }
+
+    private void changed() {
+        matrixDirty = true;
+        inverseDirty = true;
+        ++version;
+    }
+}
@@ -0,0 +1,56 @@
+package com.cgvsu.render_engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Массив вершин делится на диапазоны, каждый диапазон преобразуется своей задачей ForkJoinPool.
+// Задачи пишут в непересекающиеся куски ScreenSpaceBuffer, поэтому синхронизация не нужна.
+class ParallelTransform {
+
+    // меньше этого числа вершин на задачу делить невыгодно: накладные расходы больше самой работы
+    static final int MIN_VERTICES_PER_TASK = 32 * 1024;
+
+    interface RangeTransform {
+        void transform(int from, int to);
+    }
+
+    private ParallelTransform() {
+    }
+
+    static void run(int nVertices, RenderSettings settings, RangeTransform transform) {
+        if (!settings.parallelTransform || nVertices <= MIN_VERTICES_PER_TASK || settings.pool.getParallelism() == 1) {
+            transform.transform(0, nVertices);
+            return;
+        }
+        // по несколько задач на поток, чтобы потоки, закончившие раньше, забирали остаток работы
+        final int nTasks = settings.pool.getParallelism() * 4;
+        final int threshold = Math.max(MIN_VERTICES_PER_TASK, (nVertices + nTasks - 1) / nTasks);
+        settings.pool.invoke(new TransformRangeTask(transform, 0, nVertices, threshold));
+    }
+
+    private static class TransformRangeTask extends RecursiveAction {
+        private final RangeTransform transform;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        TransformRangeTask(RangeTransform transform, int from, int to, int threshold) {
+            this.transform = transform;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                transform.transform(from, to);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(
+                    new TransformRangeTask(transform, from, middle, threshold),
+                    new TransformRangeTask(transform, middle, to, threshold));
+        }
+    }
+}
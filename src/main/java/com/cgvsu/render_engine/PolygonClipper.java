@@ -0,0 +1,249 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+
+import java.util.List;
+
+// Отсечение полигона ближней и дальней плоскостями пирамиды видимости алгоритмом Сазерленда-Ходжмана.
+// Режем в пространстве отсечения, до деления на w: у вершин за камерой w <= 0, и после деления
+// их экранные координаты бессмысленны. Боковые плоскости не режем - заливка и так не выходит
+// за окно, а линии обрезает сам Canvas.
+// На выходе экранные координаты вершин, как в ScreenSpaceBuffer, и яркость, интерполированная вдоль рёбер.
+// Массивы переиспользуются.
+public class PolygonClipper {
+
+    // биты ScreenSpaceBuffer.outcodes: за какой плоскостью пирамиды видимости лежит вершина.
+    // В кадр попадает x / w и y / w от -0.5 до 0.5 (см. GraphicConveyor.vertexToPoint), z / w от -1 до 1
+    public static final int OUTSIDE_LEFT = 1;
+    public static final int OUTSIDE_RIGHT = 2;
+    public static final int OUTSIDE_BOTTOM = 4;
+    public static final int OUTSIDE_TOP = 8;
+    public static final int OUTSIDE_NEAR = 16;
+    public static final int OUTSIDE_FAR = 32;
+    static final int OUTSIDE_DEPTH = OUTSIDE_NEAR | OUTSIDE_FAR;
+
+    // экранные координаты вершин отсечённого полигона
+    public float[] x = new float[16];
+    public float[] y = new float[16];
+    public float[] z = new float[16];
+    // яркость вершин для заливки по Гуро
+    public float[] intensity = new float[16];
+    // true - ребро от вершины i к следующей проходит по плоскости отсечения, а не по ребру исходного полигона
+    public boolean[] onPlane = new boolean[16];
+
+    private int size = 0;
+
+    // вершины в пространстве отсечения: два набора по очереди служат входом и выходом очередной плоскости
+    private float[] clipX = new float[16], clipY = new float[16], clipZ = new float[16], clipW = new float[16];
+    private float[] clipI = new float[16];
+    private boolean[] clipOnPlane = new boolean[16];
+    private float[] nextX = new float[16], nextY = new float[16], nextZ = new float[16], nextW = new float[16];
+    private float[] nextI = new float[16];
+    private boolean[] nextOnPlane = new boolean[16];
+
+    static int outcode(final float x, final float y, final float z, final float w) {
+        final float halfW = 0.5F * w;
+        int code = 0;
+        if (x < -halfW) code |= OUTSIDE_LEFT;
+        if (x > halfW) code |= OUTSIDE_RIGHT;
+        if (y < -halfW) code |= OUTSIDE_BOTTOM;
+        if (y > halfW) code |= OUTSIDE_TOP;
+        if (z < -w) code |= OUTSIDE_NEAR;
+        if (z > w) code |= OUTSIDE_FAR;
+        return code;
+    }
+
+    // Полигон из углов vertexIndices[start, end); вершины пересчитываются той же матрицей, что и в screen
+    public int clip(final ScreenSpaceBuffer screen, final PackedMesh mesh,
+                    final int[] vertexIndices, final int start, final int end) {
+        return clip(screen, mesh, vertexIndices, start, end, null);
+    }
+
+    // То же с яркостью углов cornerIntensity[0, end - start); null - яркость не нужна
+    public int clip(final ScreenSpaceBuffer screen, final PackedMesh mesh,
+                    final int[] vertexIndices, final int start, final int end, final float[] cornerIntensity) {
+        final int n = end - start;
+        ensureCapacity(n);
+        for (int i = 0; i < n; ++i) {
+            final int vertexInd = vertexIndices[start + i];
+            load(screen.modelViewProjection, i, mesh.vertexX[vertexInd], mesh.vertexY[vertexInd], mesh.vertexZ[vertexInd]);
+            clipI[i] = cornerIntensity == null ? 0 : cornerIntensity[i];
+        }
+        return clipLoaded(n, screen.width, screen.height);
+    }
+
+    // То же для объектной модели
+    public int clip(final ScreenSpaceBuffer screen, final List<Vector3f> vertices,
+                    final int[] vertexIndices, final int start, final int end) {
+        final int n = end - start;
+        ensureCapacity(n);
+        for (int i = 0; i < n; ++i) {
+            final Vector3f vertex = vertices.get(vertexIndices[start + i]);
+            load(screen.modelViewProjection, i, vertex.x, vertex.y, vertex.z);
+            clipI[i] = 0;
+        }
+        return clipLoaded(n, screen.width, screen.height);
+    }
+
+    // Отрезок между вершинами from и to (ребро каркаса). Концы после отсечения - в x[0], y[0] и x[1], y[1];
+    // false - отрезок целиком за ближней или дальней плоскостью
+    public boolean clipSegment(final ScreenSpaceBuffer screen, final PackedMesh mesh, final int from, final int to) {
+        load(screen.modelViewProjection, 0, mesh.vertexX[from], mesh.vertexY[from], mesh.vertexZ[from]);
+        load(screen.modelViewProjection, 1, mesh.vertexX[to], mesh.vertexY[to], mesh.vertexZ[to]);
+        return clipLoadedSegment(screen.width, screen.height);
+    }
+
+    // То же для объектной модели
+    public boolean clipSegment(final ScreenSpaceBuffer screen, final List<Vector3f> vertices,
+                               final int from, final int to) {
+        final Vector3f vertexFrom = vertices.get(from);
+        final Vector3f vertexTo = vertices.get(to);
+        load(screen.modelViewProjection, 0, vertexFrom.x, vertexFrom.y, vertexFrom.z);
+        load(screen.modelViewProjection, 1, vertexTo.x, vertexTo.y, vertexTo.z);
+        return clipLoadedSegment(screen.width, screen.height);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Выражения те же, что в GraphicConveyor.transformVertices: неотсечённые вершины совпадают бит в бит
+    private void load(final Matrix4f matrix, final int i, final float vx, final float vy, final float vz) {
+        clipX[i] = (vx * matrix.m00) + (vy * matrix.m10) + (vz * matrix.m20) + matrix.m30;
+        clipY[i] = (vx * matrix.m01) + (vy * matrix.m11) + (vz * matrix.m21) + matrix.m31;
+        clipZ[i] = (vx * matrix.m02) + (vy * matrix.m12) + (vz * matrix.m22) + matrix.m32;
+        clipW[i] = (vx * matrix.m03) + (vy * matrix.m13) + (vz * matrix.m23) + matrix.m33;
+        clipOnPlane[i] = false;
+    }
+
+    private int clipLoaded(int n, final int width, final int height) {
+        n = clipAgainst(n, true);
+        n = clipAgainst(n, false);
+
+        final float halfWidth = width / 2.0F;
+        final float halfHeight = height / 2.0F;
+        for (int i = 0; i < n; ++i) {
+            final float w = clipW[i];
+            x[i] = clipX[i] / w * width + halfWidth;
+            y[i] = -(clipY[i] / w) * height + halfHeight;
+            // на плоскости отсечения z / w может уйти за -1 или 1 на ошибку округления
+            z[i] = Math.max(-1, Math.min(1, clipZ[i] / w));
+            intensity[i] = clipI[i];
+            onPlane[i] = clipOnPlane[i];
+        }
+        size = n;
+        return n;
+    }
+
+    // Отрезок из clip*[0] и clip*[1]: конец за плоскостью переносится на неё, точка - тоже от внутреннего конца
+    private boolean clipLoadedSegment(final int width, final int height) {
+        for (int plane = 0; plane < 2; ++plane) {
+            final boolean near = plane == 0;
+            final float d0 = near ? clipZ[0] + clipW[0] : clipW[0] - clipZ[0];
+            final float d1 = near ? clipZ[1] + clipW[1] : clipW[1] - clipZ[1];
+            if (d0 < 0 && d1 < 0) {
+                return false;
+            }
+            if (d0 < 0) {
+                moveToPlane(0, 1, d1, d0);
+            } else if (d1 < 0) {
+                moveToPlane(1, 0, d0, d1);
+            }
+        }
+
+        final float halfWidth = width / 2.0F;
+        final float halfHeight = height / 2.0F;
+        for (int i = 0; i < 2; ++i) {
+            x[i] = clipX[i] / clipW[i] * width + halfWidth;
+            y[i] = -(clipY[i] / clipW[i]) * height + halfHeight;
+            z[i] = Math.max(-1, Math.min(1, clipZ[i] / clipW[i]));
+        }
+        return true;
+    }
+
+    private void moveToPlane(final int outside, final int inside, final float dInside, final float dOutside) {
+        final float t = dInside / (dInside - dOutside);
+        clipX[outside] = clipX[inside] + t * (clipX[outside] - clipX[inside]);
+        clipY[outside] = clipY[inside] + t * (clipY[outside] - clipY[inside]);
+        clipZ[outside] = clipZ[inside] + t * (clipZ[outside] - clipZ[inside]);
+        clipW[outside] = clipW[inside] + t * (clipW[outside] - clipW[inside]);
+    }
+
+    // Оставляет часть полигона с z >= -w (near) или z <= w (far), результат - снова в clip*
+    private int clipAgainst(final int n, final boolean near) {
+        int count = 0;
+        for (int i = 0; i < n; ++i) {
+            final int j = i + 1 == n ? 0 : i + 1;
+            final float di = near ? clipZ[i] + clipW[i] : clipW[i] - clipZ[i];
+            final float dj = near ? clipZ[j] + clipW[j] : clipW[j] - clipZ[j];
+            if (di >= 0) {
+                emit(count++, i, clipOnPlane[i]);
+                if (dj < 0) {
+                    // ребро уходит за плоскость: дальше до точки входа идём по плоскости
+                    emitIntersection(count++, i, j, di, dj, true);
+                }
+            } else if (dj >= 0) {
+                emitIntersection(count++, j, i, dj, di, clipOnPlane[i]);
+            }
+        }
+
+        float[] swap = clipX; clipX = nextX; nextX = swap;
+        swap = clipY; clipY = nextY; nextY = swap;
+        swap = clipZ; clipZ = nextZ; nextZ = swap;
+        swap = clipW; clipW = nextW; nextW = swap;
+        swap = clipI; clipI = nextI; nextI = swap;
+        boolean[] swapFlags = clipOnPlane; clipOnPlane = nextOnPlane; nextOnPlane = swapFlags;
+        return count;
+    }
+
+    private void emit(final int to, final int from, final boolean edgeOnPlane) {
+        nextX[to] = clipX[from];
+        nextY[to] = clipY[from];
+        nextZ[to] = clipZ[from];
+        nextW[to] = clipW[from];
+        nextI[to] = clipI[from];
+        nextOnPlane[to] = edgeOnPlane;
+    }
+
+    // Точка считается всегда от внутренней вершины к внешней, чтобы у соседних полигонов
+    // общее ребро резалось в одну и ту же точку и между ними не было щели
+    private void emitIntersection(final int to, final int inside, final int outside,
+                                  final float dInside, final float dOutside, final boolean edgeOnPlane) {
+        final float t = dInside / (dInside - dOutside);
+        nextX[to] = clipX[inside] + t * (clipX[outside] - clipX[inside]);
+        nextY[to] = clipY[inside] + t * (clipY[outside] - clipY[inside]);
+        nextZ[to] = clipZ[inside] + t * (clipZ[outside] - clipZ[inside]);
+        nextW[to] = clipW[inside] + t * (clipW[outside] - clipW[inside]);
+        nextI[to] = clipI[inside] + t * (clipI[outside] - clipI[inside]);
+        nextOnPlane[to] = edgeOnPlane;
+    }
+
+    // Каждая плоскость добавляет по вершине на каждое пересечение ребра с ней: у выпуклого полигона
+    // это +1 вершина, у невыпуклого после двух плоскостей вершин может стать до 2.25 раза больше
+    private void ensureCapacity(final int nVertices) {
+        final int n = 3 * nVertices;
+        if (clipX.length >= n) {
+            return;
+        }
+        final int capacity = Math.max(n, clipX.length * 2);
+        x = new float[capacity];
+        y = new float[capacity];
+        z = new float[capacity];
+        intensity = new float[capacity];
+        onPlane = new boolean[capacity];
+        clipX = new float[capacity];
+        clipY = new float[capacity];
+        clipZ = new float[capacity];
+        clipW = new float[capacity];
+        clipI = new float[capacity];
+        clipOnPlane = new boolean[capacity];
+        nextX = new float[capacity];
+        nextY = new float[capacity];
+        nextZ = new float[capacity];
+        nextW = new float[capacity];
+        nextI = new float[capacity];
+        nextOnPlane = new boolean[capacity];
+    }
+}
@@ -0,0 +1,228 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonStore;
+
+// Заливка полигонов в FrameBuffer с проверкой глубины.
+// Полигон разбивается веером на треугольники, треугольник заполняется по рёберным функциям
+// внутри своего ограничивающего прямоугольника, так что работа пропорциональна закрашенной площади.
+// Яркость зависит от угла между нормалью и направлением на свет. Если у полигона есть нормали вершин
+// (из vn или построенные VertexNormals), яркость считается в его углах и интерполируется по экрану (Гуро),
+// иначе освещение плоское - по нормали плоскости первых трёх вершин.
+public class Rasterizer {
+
+    private static final int BASE_COLOR = 0xB0B0B0;
+    private static final float AMBIENT = 0.2F;
+
+    // Полигоны screen.visiblePolygons[from, to). (lightX, lightY, lightZ) - единичный вектор направления на свет
+    public static void drawPolygons(
+            final FrameBuffer frame,
+            final ScreenSpaceBuffer screen,
+            final PackedMesh mesh,
+            final int from, final int to,
+            final float lightX, final float lightY, final float lightZ,
+            final boolean backFaceCulling,
+            final int minX, final int minY, final int maxX, final int maxY) {
+        final PolygonStore polygons = mesh.polygons;
+        final int[] vertexIndices = polygons.vertexIndices;
+        final PolygonClipper clipper = new PolygonClipper();
+        float[] intensity = new float[16];
+
+        for (int k = from; k < to; ++k) {
+            final int polygonInd = screen.visiblePolygons[k];
+            final int start = polygons.getStart(polygonInd);
+            final int end = start + polygons.getSize(polygonInd);
+            if (end - start < 3) {
+                continue;
+            }
+            final int visibility = Culling.classify(screen, vertexIndices, start, end, backFaceCulling);
+            if (visibility == Culling.CULLED) {
+                continue;
+            }
+            if (intensity.length < end - start) {
+                intensity = new float[end - start];
+            }
+            shadeCorners(mesh, polygonInd, lightX, lightY, lightZ, intensity);
+
+            if (visibility == Culling.VISIBLE) {
+                fillPolygon(frame, screen, vertexIndices, start, end, intensity, minX, minY, maxX, maxY);
+            } else {
+                final int nClipped = clipper.clip(screen, mesh, vertexIndices, start, end, intensity);
+                if (nClipped >= 3 && (!backFaceCulling || Culling.isFrontFacing(clipper, nClipped))) {
+                    fillClipped(frame, clipper, nClipped, minX, minY, maxX, maxY);
+                }
+            }
+        }
+    }
+
+    // Полигон из углов vertexIndices[start, end) веером треугольников от первого угла;
+    // яркость угла i - intensity[i - start]
+    static void fillPolygon(
+            final FrameBuffer frame,
+            final ScreenSpaceBuffer screen,
+            final int[] vertexIndices, final int start, final int end,
+            final float[] intensity,
+            final int minX, final int minY, final int maxX, final int maxY) {
+        final int v0 = vertexIndices[start];
+        for (int i = start + 2; i < end; ++i) {
+            final int v1 = vertexIndices[i - 1];
+            final int v2 = vertexIndices[i];
+            fillTriangle(frame,
+                    screen.x[v0], screen.y[v0], screen.z[v0], intensity[0],
+                    screen.x[v1], screen.y[v1], screen.z[v1], intensity[i - 1 - start],
+                    screen.x[v2], screen.y[v2], screen.z[v2], intensity[i - start],
+                    minX, minY, maxX, maxY);
+        }
+    }
+
+    // Отсечённый полигон из n вершин clipper - тоже веером от первой вершины
+    static void fillClipped(
+            final FrameBuffer frame,
+            final PolygonClipper clipper, final int n,
+            final int minX, final int minY, final int maxX, final int maxY) {
+        final float[] x = clipper.x;
+        final float[] y = clipper.y;
+        final float[] z = clipper.z;
+        final float[] intensity = clipper.intensity;
+        for (int i = 2; i < n; ++i) {
+            fillTriangle(frame,
+                    x[0], y[0], z[0], intensity[0],
+                    x[i - 1], y[i - 1], z[i - 1], intensity[i - 1],
+                    x[i], y[i], z[i], intensity[i],
+                    minX, minY, maxX, maxY);
+        }
+    }
+
+    // Закрашивает пиксели треугольника внутри окна [minX, maxX) x [minY, maxY), центры которых лежат в треугольнике
+    // и ближе уже нарисованного. Глубина интерполируется линейно по экрану: после перспективного деления это точно.
+    // Яркость i0, i1, i2 вершин - тоже линейно по экрану, с весами рёберных функций
+    public static void fillTriangle(
+            final FrameBuffer frame,
+            final float x0, final float y0, final float z0, final float i0,
+            final float x1, final float y1, final float z1, final float i1,
+            final float x2, final float y2, final float z2, final float i2,
+            final int minX, final int minY, final int maxX, final int maxY) {
+        // треугольники, вылезающие за ближнюю или дальнюю плоскость, должны приходить уже отсечёнными
+        if (!(z0 >= -1 && z0 <= 1 && z1 >= -1 && z1 <= 1 && z2 >= -1 && z2 <= 1)) {
+            return;
+        }
+
+        float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+        if (area == 0 || Float.isNaN(area)) {
+            return;
+        }
+
+        final int left = Math.max(minX, (int) Math.floor(Math.min(x0, Math.min(x1, x2))));
+        final int right = Math.min(maxX - 1, (int) Math.ceil(Math.max(x0, Math.max(x1, x2))));
+        final int top = Math.max(minY, (int) Math.floor(Math.min(y0, Math.min(y1, y2))));
+        final int bottom = Math.min(maxY - 1, (int) Math.ceil(Math.max(y0, Math.max(y1, y2))));
+        if (left > right || top > bottom) {
+            return;
+        }
+
+        // рёберные функции e(x, y) = a * x + b * y + c, внутри треугольника все три одного знака с площадью
+        final float sign = area > 0 ? 1 : -1;
+        area *= sign;
+        final float a0 = (y1 - y2) * sign, b0 = (x2 - x1) * sign, c0 = (x1 * y2 - x2 * y1) * sign;
+        final float a1 = (y2 - y0) * sign, b1 = (x0 - x2) * sign, c1 = (x2 * y0 - x0 * y2) * sign;
+        final float a2 = (y0 - y1) * sign, b2 = (x1 - x0) * sign, c2 = (x0 * y1 - x1 * y0) * sign;
+
+        // глубина как линейная функция экранных координат, отсчитанная от вершины 0:
+        // глубины близки к 1, и через разности точность не теряется на вычитании больших чисел
+        final float dzdx = (a1 * (z1 - z0) + a2 * (z2 - z0)) / area;
+        final float dzdy = (b1 * (z1 - z0) + b2 * (z2 - z0)) / area;
+        // у плоского полигона яркость одна, и цвет считается один раз на треугольник
+        final boolean flat = i0 == i1 && i1 == i2;
+        final int flatColor = color(i0);
+        final float inverseArea = 1 / area;
+
+        final int width = frame.width;
+        final int[] colorBuffer = frame.color;
+        final float[] depthBuffer = frame.depth;
+        // каждое значение считается заново, а не накоплением шагов по строке: так результат пикселя
+        // не зависит от того, с какого столбца начата заливка (у тайлов он разный)
+        for (int y = top; y <= bottom; ++y) {
+            final float py = y + 0.5F;
+            final float row0 = b0 * py + c0;
+            final float row1 = b1 * py + c1;
+            final float row2 = b2 * py + c2;
+            final float rowZ = z0 + dzdy * (py - y0);
+            int pixel = y * width + left;
+            for (int x = left; x <= right; ++x, ++pixel) {
+                final float px = x + 0.5F;
+                final float e0 = a0 * px + row0;
+                final float e1 = a1 * px + row1;
+                final float e2 = a2 * px + row2;
+                if (e0 >= 0 && e1 >= 0 && e2 >= 0) {
+                    final float z = rowZ + dzdx * (px - x0);
+                    if (z < depthBuffer[pixel]) {
+                        depthBuffer[pixel] = z;
+                        colorBuffer[pixel] = flat ? flatColor : color((e0 * i0 + e1 * i1 + e2 * i2) * inverseArea);
+                    }
+                }
+            }
+        }
+    }
+
+    // Яркость углов полигона в intensity[0, размер полигона): по нормалям вершин, если они у полигона есть.
+    // Иначе, и у нормали нулевой длины (вершина одних вырожденных полигонов), - по плоскости полигона
+    static void shadeCorners(
+            final PackedMesh mesh, final int polygonInd,
+            final float lightX, final float lightY, final float lightZ,
+            final float[] intensity) {
+        final PolygonStore polygons = mesh.polygons;
+        final int[] vertexIndices = polygons.vertexIndices;
+        final int start = polygons.getStart(polygonInd);
+        final int n = polygons.getSize(polygonInd);
+        final float plane = shade(mesh, vertexIndices[start], vertexIndices[start + 1], vertexIndices[start + 2],
+                lightX, lightY, lightZ);
+        if (!polygons.hasNormalIndices(polygonInd)) {
+            for (int i = 0; i < n; ++i) {
+                intensity[i] = plane;
+            }
+            return;
+        }
+        final int[] normalIndices = polygons.normalIndices;
+        for (int i = 0; i < n; ++i) {
+            final int normalInd = normalIndices[start + i];
+            final float nx = mesh.normalX[normalInd];
+            final float ny = mesh.normalY[normalInd];
+            final float nz = mesh.normalZ[normalInd];
+            final float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            intensity[i] = length > 0
+                    ? AMBIENT + (1 - AMBIENT) * Math.abs(nx * lightX + ny * lightY + nz * lightZ) / length
+                    : plane;
+        }
+    }
+
+    // Яркость по нормали плоскости трёх вершин; освещены обе стороны
+    static float shade(
+            final PackedMesh mesh, int i0, int i1, int i2,
+            final float lightX, final float lightY, final float lightZ) {
+        final float ux = mesh.vertexX[i1] - mesh.vertexX[i0];
+        final float uy = mesh.vertexY[i1] - mesh.vertexY[i0];
+        final float uz = mesh.vertexZ[i1] - mesh.vertexZ[i0];
+        final float vx = mesh.vertexX[i2] - mesh.vertexX[i0];
+        final float vy = mesh.vertexY[i2] - mesh.vertexY[i0];
+        final float vz = mesh.vertexZ[i2] - mesh.vertexZ[i0];
+        final float nx = uy * vz - uz * vy;
+        final float ny = uz * vx - ux * vz;
+        final float nz = ux * vy - uy * vx;
+        final float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+        float intensity = AMBIENT;
+        if (length > 0) {
+            intensity += (1 - AMBIENT) * Math.abs(nx * lightX + ny * lightY + nz * lightZ) / length;
+        }
+        return intensity;
+    }
+
+    // Серый BASE_COLOR с яркостью intensity от 0 до 1
+    static int color(float intensity) {
+        intensity = Math.min(1, intensity);
+        final int r = (int) (((BASE_COLOR >> 16) & 0xFF) * intensity);
+        final int g = (int) (((BASE_COLOR >> 8) & 0xFF) * intensity);
+        final int b = (int) ((BASE_COLOR & 0xFF) * intensity);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+}
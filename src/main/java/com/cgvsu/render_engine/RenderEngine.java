@@ -1,15 +1,28 @@
 package com.cgvsu.render_engine;
 
-import java.util.ArrayList;
-
-import com.cgvsu.math.Vector3f;
 import javafx.scene.canvas.GraphicsContext;
-import javax.vecmath.*;
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.EdgeList;
+import com.cgvsu.model.IntArrayView;
+import com.cgvsu.model.LodChain;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonBvh;
+import com.cgvsu.model.PolygonStore;
 import static com.cgvsu.render_engine.GraphicConveyor.*;
 
+// Сначала все вершины модели один раз переводятся в экранные координаты (ScreenSpaceBuffer),
+// на больших моделях - параллельно в пуле из RenderSettings, потом рёбра полигонов рисуются
+// по готовым точкам в вызывающем (FX) потоке. Полигоны целиком вне пирамиды видимости
+// (и, если включено, изнанкой к камере) пропускаются, пересекающие ближнюю плоскость - отсекаются.
+// Если передавать один и тот же буфер из кадра в кадр, на вершины и полигоны не создаётся ни одного объекта.
 public class RenderEngine {
 
+    // положение сеток, переданных без ModelInstance. Матрицы считаются сразу, при загрузке класса,
+    // чтобы потоки BatchRenderer не заполняли их наперегонки
+    private static final ModelTransform IDENTITY = identityTransform();
+
     public static void render(
             final GraphicsContext graphicsContext,
             final Camera camera,
@@ -17,42 +30,454 @@ public class RenderEngine {
             final int width,
             final int height)
     {
-        Matrix4f modelMatrix = rotateScaleTranslate();
-        Matrix4f viewMatrix = camera.getViewMatrix();
-        Matrix4f projectionMatrix = camera.getProjectionMatrix();
+        render(graphicsContext, camera, mesh, width, height, new ScreenSpaceBuffer(), new RenderSettings());
+    }
 
-        Matrix4f modelViewProjectionMatrix = new Matrix4f(modelMatrix);
-        modelViewProjectionMatrix.mul(viewMatrix);
-        modelViewProjectionMatrix.mul(projectionMatrix);
+    public static void render(
+            final GraphicsContext graphicsContext,
+            final Camera camera,
+            final Model mesh,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        final int nVertices = mesh.vertices.size();
+        final Matrix4f modelViewProjectionMatrix = modelViewProjection(camera);
+        // Model можно менять на месте, поэтому её вершины преобразуются каждый кадр
+        screen.invalidate();
+        screen.resize(nVertices);
+        screen.setProjection(modelViewProjectionMatrix, width, height);
+        ParallelTransform.run(nVertices, settings,
+                (from, to) -> transformVertices(modelViewProjectionMatrix, mesh.vertices, from, to, width, height, screen));
+
+        if (!settings.backFaceCulling) {
+            if (mesh.edges == null) {
+                mesh.edges = EdgeList.build(mesh.polygons);
+            }
+            final int[] edgeVertexIndices = mesh.edges.vertexIndices;
+            final PolygonClipper clipper = new PolygonClipper();
+            for (int i = 0; i < edgeVertexIndices.length; i += 2) {
+                final int from = edgeVertexIndices[i];
+                final int to = edgeVertexIndices[i + 1];
+                if (needsClipping(screen, from, to)) {
+                    if (clipper.clipSegment(screen, mesh.vertices, from, to)) {
+                        graphicsContext.strokeLine(clipper.x[0], clipper.y[0], clipper.x[1], clipper.y[1]);
+                    }
+                } else if (isEdgeVisible(screen, from, to)) {
+                    strokeEdge(graphicsContext, screen, from, to);
+                }
+            }
+            return;
+        }
 
+        // индексы полигона копируются в один переиспользуемый массив, чтобы отбор шёл тем же кодом, что у PackedMesh
+        int[] vertexIndices = new int[16];
+        final PolygonClipper clipper = new PolygonClipper();
         final int nPolygons = mesh.polygons.size();
         for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
-            final int nVerticesInPolygon = mesh.polygons.get(polygonInd).getVertexIndices().size();
+            final IntArrayView polygonVertexIndices = mesh.polygons.get(polygonInd).getVertexIndices();
+            final int nVerticesInPolygon = polygonVertexIndices.size();
+            if (vertexIndices.length < nVerticesInPolygon) {
+                vertexIndices = new int[Math.max(nVerticesInPolygon, vertexIndices.length * 2)];
+            }
+            for (int i = 0; i < nVerticesInPolygon; ++i) {
+                vertexIndices[i] = polygonVertexIndices.getInt(i);
+            }
+
+            final int visibility = Culling.classify(screen, vertexIndices, 0, nVerticesInPolygon, settings.backFaceCulling);
+            if (visibility == Culling.VISIBLE) {
+                strokePolygon(graphicsContext, screen, vertexIndices, 0, nVerticesInPolygon);
+            } else if (visibility == Culling.NEEDS_CLIPPING) {
+                strokeClipped(graphicsContext, clipper,
+                        clipper.clip(screen, mesh.vertices, vertexIndices, 0, nVerticesInPolygon), settings.backFaceCulling);
+            }
+        }
+    }
+
+    public static void render(
+            final GraphicsContext graphicsContext,
+            final Camera camera,
+            final PackedMesh mesh,
+            final int width,
+            final int height)
+    {
+        render(graphicsContext, camera, mesh, width, height, new ScreenSpaceBuffer(), new RenderSettings());
+    }
+
+    // То же для упакованной модели: индексы и координаты берутся прямо из массивов, без боксинга
+    public static void render(
+            final GraphicsContext graphicsContext,
+            final Camera camera,
+            final PackedMesh mesh,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        render(graphicsContext, camera, mesh, IDENTITY, modelViewProjection(camera), width, height, screen, settings);
+    }
 
-            ArrayList<Point2f> resultPoints = new ArrayList<>();
-            for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
-                Vector3f vertex = mesh.vertices.get(mesh.polygons.get(polygonInd).getVertexIndices().get(vertexInPolygonInd));
+    // Экземпляр сетки в своём положении. Буфер берётся свой у каждого экземпляра (ScreenBufferPool):
+    // в общем буфере копии вытесняли бы друг друга и преобразовывались заново каждый кадр
+    public static void render(
+            final GraphicsContext graphicsContext,
+            final Camera camera,
+            final ModelInstance instance,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        render(graphicsContext, camera, instance.mesh, instance.transform, instance.getModelViewProjection(camera),
+                width, height, screen, settings);
+    }
 
-                javax.vecmath.Vector3f vertexVecmath = new javax.vecmath.Vector3f(vertex.x, vertex.y, vertex.z);
+    private static void render(
+            final GraphicsContext graphicsContext,
+            final Camera camera,
+            final PackedMesh mesh,
+            final ModelTransform transform,
+            final Matrix4f modelViewProjectionMatrix,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        stroke(graphicsContext, screen, prepare(camera, mesh, transform, modelViewProjectionMatrix, width, height, screen, settings),
+                settings);
+    }
 
-                Point2f resultPoint = vertexToPoint(multiplyMatrix4ByVector3(modelViewProjectionMatrix, vertexVecmath), width, height);
-                resultPoints.add(resultPoint);
+    // Рёбра уже преобразованной сетки (prepare) линиями Canvas
+    static void stroke(
+            final GraphicsContext graphicsContext,
+            final ScreenSpaceBuffer screen,
+            final PackedMesh level,
+            final RenderSettings settings)
+    {
+        // без отбора изнанки рисуются уникальные рёбра: общее ребро соседних полигонов - одной линией.
+        // С отбором нужен контур каждого полигона: ребро видно, если видна хоть одна из его граней
+        if (!settings.backFaceCulling) {
+            strokeEdges(graphicsContext, screen, level);
+            return;
+        }
+
+        PolygonStore polygons = level.polygons;
+        final int[] vertexIndices = polygons.vertexIndices;
+        final PolygonClipper clipper = new PolygonClipper();
+        for (int k = 0; k < screen.visiblePolygonCount; ++k) {
+            final int polygonInd = screen.visiblePolygons[k];
+            final int start = polygons.getStart(polygonInd);
+            final int end = start + polygons.getSize(polygonInd);
+
+            final int visibility = Culling.classify(screen, vertexIndices, start, end, settings.backFaceCulling);
+            if (visibility == Culling.VISIBLE) {
+                strokePolygon(graphicsContext, screen, vertexIndices, start, end);
+            } else if (visibility == Culling.NEEDS_CLIPPING) {
+                strokeClipped(graphicsContext, clipper,
+                        clipper.clip(screen, level, vertexIndices, start, end), settings.backFaceCulling);
             }
+        }
+    }
+
+    // Заливка полигонов с z-буфером в FrameBuffer (кадр очищает вызывающий), width и height - его размер.
+    // Рисуется по пикселям в памяти, а не командами Canvas, поэтому время зависит от закрашенной площади.
+    public static void rasterize(
+            final FrameBuffer frame,
+            final Camera camera,
+            final PackedMesh mesh,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        rasterize(frame, camera, mesh, IDENTITY, modelViewProjection(camera), width, height, screen, settings);
+    }
+
+    // Экземпляры рисуются в один кадр по очереди: z-буфер общий, поэтому они правильно загораживают друг друга
+    public static void rasterize(
+            final FrameBuffer frame,
+            final Camera camera,
+            final ModelInstance instance,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        rasterize(frame, camera, instance.mesh, instance.transform, instance.getModelViewProjection(camera),
+                width, height, screen, settings);
+    }
 
-            for (int vertexInPolygonInd = 1; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
-                graphicsContext.strokeLine(
-                        resultPoints.get(vertexInPolygonInd - 1).x,
-                        resultPoints.get(vertexInPolygonInd - 1).y,
-                        resultPoints.get(vertexInPolygonInd).x,
-                        resultPoints.get(vertexInPolygonInd).y);
+    private static void rasterize(
+            final FrameBuffer frame,
+            final Camera camera,
+            final PackedMesh mesh,
+            final ModelTransform transform,
+            final Matrix4f modelViewProjectionMatrix,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        fill(frame, camera, transform, screen,
+                prepare(camera, mesh, transform, modelViewProjectionMatrix, width, height, screen, settings), settings);
+    }
+
+    // Заливка уже преобразованной сетки (prepare) в кадр
+    static void fill(
+            final FrameBuffer frame,
+            final Camera camera,
+            final ModelTransform transform,
+            final ScreenSpaceBuffer screen,
+            final PackedMesh level,
+            final RenderSettings settings)
+    {
+        // свет светит оттуда же, откуда смотрит камера. Нормали Rasterizer считает по вершинам сетки,
+        // то есть в координатах модели, - туда же переводится и направление на свет
+        Vector3f light = new Vector3f();
+        light.sub(camera.getPosition(), camera.getTarget());
+        transform.getInverseMatrix().transformDirection(light, light);
+        light.normalize();
+
+        if (settings.parallelRasterize) {
+            frame.tiles.drawPolygons(frame, screen, level, light.x, light.y, light.z, settings);
+        } else {
+            Rasterizer.drawPolygons(frame, screen, level, 0, screen.visiblePolygonCount, light.x, light.y, light.z,
+                    settings.backFaceCulling, 0, 0, frame.width, frame.height);
+        }
+    }
+
+    // Экранные координаты и отбор полигонов экземпляра в screen; возвращает уровень детализации,
+    // который был преобразован. Пишет только в screen и в кэш самого экземпляра, поэтому разные
+    // экземпляры можно готовить параллельно, каждый в свой буфер (SceneRenderer)
+    static PackedMesh prepare(
+            final Camera camera,
+            final ModelInstance instance,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        return prepare(camera, instance.mesh, instance.transform, instance.getModelViewProjection(camera),
+                width, height, screen, settings);
+    }
+
+    private static PackedMesh prepare(
+            final Camera camera,
+            final PackedMesh mesh,
+            final ModelTransform transform,
+            final Matrix4f modelViewProjectionMatrix,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        final PackedMesh level = selectLevelOfDetail(camera, mesh, transform, height, settings);
+        transformMesh(camera, level, transform, modelViewProjectionMatrix, width, height, screen, settings);
+        return level;
+    }
+
+    // Уровень детализации по размеру модели на экране: радиус описанной сферы в пикселях
+    // после перспективного деления на расстояние до камеры. Камера внутри сферы - сама модель.
+    // Центр сферы переводится в сцену матрицей модели, радиус растёт с её масштабом
+    static PackedMesh selectLevelOfDetail(
+            final Camera camera,
+            final PackedMesh mesh,
+            final ModelTransform transform,
+            final int height,
+            final RenderSettings settings)
+    {
+        final LodChain lods = mesh.lods;
+        if (!settings.levelOfDetail || lods == null) {
+            return mesh;
+        }
+        final Matrix4f model = transform.getMatrix();
+        final float centerX = lods.centerX * model.m00 + lods.centerY * model.m10 + lods.centerZ * model.m20 + model.m30;
+        final float centerY = lods.centerX * model.m01 + lods.centerY * model.m11 + lods.centerZ * model.m21 + model.m31;
+        final float centerZ = lods.centerX * model.m02 + lods.centerY * model.m12 + lods.centerZ * model.m22 + model.m32;
+        final float radius = lods.radius * transform.getMaxScale();
+
+        final Vector3f position = camera.getPosition();
+        final float dx = position.x - centerX, dy = position.y - centerY, dz = position.z - centerZ;
+        final float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance <= radius) {
+            return mesh;
+        }
+        final float projectedRadius = radius * camera.getProjectionMatrix().m11 / distance * height;
+        return lods.levels[lods.selectLevel(projectedRadius)];
+    }
+
+    private static void transformMesh(
+            final Camera camera,
+            final PackedMesh mesh,
+            final ModelTransform transform,
+            final Matrix4f modelViewProjectionMatrix,
+            final int width,
+            final int height,
+            final ScreenSpaceBuffer screen,
+            final RenderSettings settings)
+    {
+        // камера с прошлого кадра не двигалась, модель та же и стоит на месте - экранные координаты и отбор уже готовы
+        if (screen.isTransformed(mesh, transform, camera, width, height)) {
+            return;
+        }
+        final int nVertices = mesh.getVertexCount();
+        screen.resize(nVertices);
+        screen.setProjection(modelViewProjectionMatrix, width, height);
+        if (settings.vectorTransform) {
+            ParallelTransform.run(nVertices, settings,
+                    (from, to) -> VectorTransform.transformVertices(modelViewProjectionMatrix, mesh.vertexX, mesh.vertexY, mesh.vertexZ, from, to, width, height, screen));
+        } else {
+            ParallelTransform.run(nVertices, settings,
+                    (from, to) -> transformVertices(modelViewProjectionMatrix, mesh.vertexX, mesh.vertexY, mesh.vertexZ, from, to, width, height, screen));
+        }
+
+        final int nPolygons = mesh.getPolygonCount();
+        screen.resizePolygons(nPolygons);
+        if (mesh.bvh != null) {
+            // целые поддеревья вне пирамиды видимости отбрасываются, не доходя до полигонов
+            screen.visiblePolygonCount = mesh.bvh.collect(new FrustumBoxCuller(modelViewProjectionMatrix), screen.visiblePolygons);
+        } else {
+            for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
+                screen.visiblePolygons[polygonInd] = polygonInd;
             }
+            screen.visiblePolygonCount = nPolygons;
+        }
+        screen.setTransformed(mesh, transform, camera);
+    }
+
+    // Какой полигон виден в точке (x, y) кадра width x height: луч из камеры через эту точку
+    // ищется по BVH модели (при первом вызове BVH строится). false - под точкой ничего нет
+    public static boolean pick(
+            final Camera camera,
+            final PackedMesh mesh,
+            final float x, final float y,
+            final int width, final int height,
+            final PolygonBvh.Hit hit) {
+        return pick(mesh, modelViewProjection(camera), x, y, width, height, hit);
+    }
+
+    // Для экземпляра луч ищется в координатах его сетки, а точка попадания возвращается в координатах сцены
+    public static boolean pick(
+            final Camera camera,
+            final ModelInstance instance,
+            final float x, final float y,
+            final int width, final int height,
+            final PolygonBvh.Hit hit) {
+        // матрица экземпляра закэширована - обращается копия
+        if (!pick(instance.mesh, new Matrix4f(instance.getModelViewProjection(camera)), x, y, width, height, hit)) {
+            return false;
+        }
+        Vector3f point = instance.transform.getMatrix().transformPoint(new Vector3f(hit.x, hit.y, hit.z), new Vector3f());
+        hit.x = point.x;
+        hit.y = point.y;
+        hit.z = point.z;
+        return true;
+    }
+
+    private static boolean pick(
+            final PackedMesh mesh,
+            final Matrix4f inverse,
+            final float x, final float y,
+            final int width, final int height,
+            final PolygonBvh.Hit hit) {
+        if (mesh.bvh == null) {
+            mesh.bvh = PolygonBvh.build(mesh);
+        }
+        // обратно из экрана в координаты модели: точки на ближней и дальней плоскости
+        if (!inverse.invert()) {
+            return false;
+        }
+        final float ndcX = (x - width / 2.0F) / width;
+        final float ndcY = -(y - height / 2.0F) / height;
+        Vector3f near = inverse.transformPoint(new Vector3f(ndcX, ndcY, -1), new Vector3f());
+        Vector3f far = inverse.transformPoint(new Vector3f(ndcX, ndcY, 1), new Vector3f());
+        return mesh.bvh.intersect(near.x, near.y, near.z, far.x - near.x, far.y - near.y, far.z - near.z, hit);
+    }
+
+    // Вид и проекцию камера держит уже перемноженными и пересчитывает, только когда сама изменилась
+    static Matrix4f modelViewProjection(final Camera camera) {
+        Matrix4f modelViewProjectionMatrix = rotateScaleTranslate();
+        modelViewProjectionMatrix.mul(camera.getViewProjectionMatrix());
+        return modelViewProjectionMatrix;
+    }
+
+    private static ModelTransform identityTransform() {
+        ModelTransform transform = new ModelTransform();
+        transform.getMatrix();
+        transform.getInverseMatrix();
+        return transform;
+    }
 
-            if (nVerticesInPolygon > 0)
-                graphicsContext.strokeLine(
-                        resultPoints.get(nVerticesInPolygon - 1).x,
-                        resultPoints.get(nVerticesInPolygon - 1).y,
-                        resultPoints.get(0).x,
-                        resultPoints.get(0).y);
+    // Рёбра видимых полигонов (после отбора BVH), каждое ребро - один раз за кадр
+    private static void strokeEdges(final GraphicsContext graphicsContext, final ScreenSpaceBuffer screen, final PackedMesh mesh) {
+        if (mesh.edges == null) {
+            mesh.edges = EdgeList.build(mesh.polygons);
         }
+        final PolygonStore polygons = mesh.polygons;
+        final int[] edgeVertexIndices = mesh.edges.vertexIndices;
+        final int[] cornerEdges = mesh.edges.cornerEdges;
+        final int[] stamps = screen.edgeStamps(mesh.edges.size());
+        final int stamp = screen.edgeStamp();
+        final PolygonClipper clipper = new PolygonClipper();
+        for (int k = 0; k < screen.visiblePolygonCount; ++k) {
+            final int polygonInd = screen.visiblePolygons[k];
+            final int start = polygons.getStart(polygonInd);
+            final int end = start + polygons.getSize(polygonInd);
+            for (int corner = start; corner < end; ++corner) {
+                final int edge = cornerEdges[corner];
+                if (edge < 0 || stamps[edge] == stamp) {
+                    continue;
+                }
+                stamps[edge] = stamp;
+                final int from = edgeVertexIndices[2 * edge];
+                final int to = edgeVertexIndices[2 * edge + 1];
+                if (needsClipping(screen, from, to)) {
+                    if (clipper.clipSegment(screen, mesh, from, to)) {
+                        graphicsContext.strokeLine(clipper.x[0], clipper.y[0], clipper.x[1], clipper.y[1]);
+                    }
+                } else if (isEdgeVisible(screen, from, to)) {
+                    strokeEdge(graphicsContext, screen, from, to);
+                }
+            }
+        }
+    }
+
+    // Оба конца за одной плоскостью пирамиды видимости - ребро не видно
+    private static boolean isEdgeVisible(final ScreenSpaceBuffer screen, final int from, final int to) {
+        return (screen.outcodes[from] & screen.outcodes[to]) == 0;
+    }
+
+    // Хоть один конец за ближней или дальней плоскостью, а целиком за одной из них ребро не лежит
+    private static boolean needsClipping(final ScreenSpaceBuffer screen, final int from, final int to) {
+        return ((screen.outcodes[from] | screen.outcodes[to]) & PolygonClipper.OUTSIDE_DEPTH) != 0
+                && isEdgeVisible(screen, from, to);
+    }
+
+    private static void strokePolygon(
+            final GraphicsContext graphicsContext, final ScreenSpaceBuffer screen,
+            final int[] vertexIndices, final int start, final int end) {
+        for (int i = start + 1; i < end; ++i) {
+            strokeEdge(graphicsContext, screen, vertexIndices[i - 1], vertexIndices[i]);
+        }
+        strokeEdge(graphicsContext, screen, vertexIndices[end - 1], vertexIndices[start]);
+    }
+
+    // Рёбра, которые появились на плоскости отсечения, не рисуются: в модели их нет
+    private static void strokeClipped(
+            final GraphicsContext graphicsContext, final PolygonClipper clipper, final int n, final boolean backFaceCulling) {
+        if (n < 2 || backFaceCulling && !Culling.isFrontFacing(clipper, n)) {
+            return;
+        }
+        for (int i = 0; i < n; ++i) {
+            final int next = i + 1 == n ? 0 : i + 1;
+            if (!clipper.onPlane[i]) {
+                graphicsContext.strokeLine(clipper.x[i], clipper.y[i], clipper.x[next], clipper.y[next]);
+            }
+        }
+    }
+
+    private static void strokeEdge(final GraphicsContext graphicsContext, final ScreenSpaceBuffer screen, int from, int to) {
+        graphicsContext.strokeLine(screen.x[from], screen.y[from], screen.x[to], screen.y[to]);
     }
-}
\ No newline at end of file
+}
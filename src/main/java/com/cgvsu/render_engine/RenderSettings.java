@@ -0,0 +1,26 @@
+package com.cgvsu.render_engine;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Настройки отрисовки, которые окно просмотра держит у себя и передаёт в RenderEngine каждый кадр
+public class RenderSettings {
+
+    // false - вершины преобразуются в одном потоке, на котором вызван render
+    public boolean parallelTransform = true;
+    public ForkJoinPool pool = ForkJoinPool.commonPool();
+    // преобразовывать вершины по 8-16 сразу через Vector API (VectorTransform), если JVM запущена
+    // с --add-modules jdk.incubator.vector; иначе настройка ни на что не влияет
+    public boolean vectorTransform = true;
+
+    // true - заливка полигонов с z-буфером (RenderEngine.rasterize), false - каркас линиями Canvas
+    public boolean rasterize = false;
+    // заливка по тайлам TiledRasterizer.TILE_SIZE параллельно в pool; false - одним потоком
+    public boolean parallelRasterize = true;
+
+    // не рисовать полигоны, повёрнутые к камере изнанкой (обход по часовой стрелке).
+    // Выключено по умолчанию: в чужих моделях обход граней бывает перепутан
+    public boolean backFaceCulling = false;
+
+    // издалека рисовать упрощённые копии модели (PackedMesh.lods), если они уже построены
+    public boolean levelOfDetail = true;
+}
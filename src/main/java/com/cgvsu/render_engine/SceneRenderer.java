@@ -0,0 +1,171 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.PackedMesh;
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Сцена из нескольких моделей за кадр. Преобразование и отбор каждой модели - отдельная задача
+// в ForkJoinPool из RenderSettings, у каждой модели свой буфер из ScreenBufferPool, так что задачи
+// ничего не делят. Задачи отдаются в пул от большей модели к меньшей: крупная начинается первой,
+// а её вершины ParallelTransform ещё и режет на куски, которые забирают потоки, освободившиеся
+// на мелких моделях. Рисование идёт потом, в вызывающем потоке, строго в порядке списка,
+// поэтому кадр не зависит от того, какая задача закончилась раньше.
+// Моделей больше, чем буферов в пуле, - сцена идёт партиями по ёмкости пула: партия готовится
+// параллельно и рисуется, следующая берёт её буферы. Неподвижные модели под неподвижной камерой
+// заново не преобразуются, пока им хватает буферов.
+public class SceneRenderer {
+
+    private final ScreenBufferPool screenBuffers;
+    // по моделям в порядке списка: буфер, какой уровень детализации преобразован и сколько заняли этапы
+    private ScreenSpaceBuffer[] screens = new ScreenSpaceBuffer[0];
+    private PackedMesh[] levels = new PackedMesh[0];
+    private long[] transformNanos = new long[0];
+    private long[] drawNanos = new long[0];
+    // ключи сортировки партии: в старших битах - минус число вершин, в младших - номер модели
+    private long[] order = new long[0];
+    private int modelCount = 0;
+    private long frameNanos = 0;
+
+    public SceneRenderer(final ScreenBufferPool screenBuffers) {
+        this.screenBuffers = screenBuffers;
+    }
+
+    // Заливка всех моделей в один кадр (очищает его вызывающий) с общим z-буфером
+    public void rasterize(
+            final FrameBuffer frame,
+            final Camera camera,
+            final List<ModelInstance> instances,
+            final int width,
+            final int height,
+            final RenderSettings settings) {
+        final long start = System.nanoTime();
+        begin(camera, instances);
+        for (int from = 0; from < modelCount; from += screenBuffers.getCapacity()) {
+            final int to = Math.min(modelCount, from + screenBuffers.getCapacity());
+            prepare(camera, instances, from, to, width, height, settings);
+            for (int i = from; i < to; ++i) {
+                final long drawStart = System.nanoTime();
+                RenderEngine.fill(frame, camera, instances.get(i).transform, screens[i], levels[i], settings);
+                drawNanos[i] = System.nanoTime() - drawStart;
+            }
+        }
+        frameNanos = System.nanoTime() - start;
+    }
+
+    // Каркас всех моделей; линии Canvas рисуются в вызывающем (FX) потоке
+    public void render(
+            final GraphicsContext graphicsContext,
+            final Camera camera,
+            final List<ModelInstance> instances,
+            final int width,
+            final int height,
+            final RenderSettings settings) {
+        final long start = System.nanoTime();
+        begin(camera, instances);
+        for (int from = 0; from < modelCount; from += screenBuffers.getCapacity()) {
+            final int to = Math.min(modelCount, from + screenBuffers.getCapacity());
+            prepare(camera, instances, from, to, width, height, settings);
+            for (int i = from; i < to; ++i) {
+                final long drawStart = System.nanoTime();
+                RenderEngine.stroke(graphicsContext, screens[i], levels[i], settings);
+                drawNanos[i] = System.nanoTime() - drawStart;
+            }
+        }
+        frameNanos = System.nanoTime() - start;
+    }
+
+    // Замеры последнего кадра; model - номер в списке, переданном в render/rasterize
+    public int getModelCount() {
+        return modelCount;
+    }
+
+    public long getTransformNanos(final int model) {
+        return transformNanos[model];
+    }
+
+    public long getDrawNanos(final int model) {
+        return drawNanos[model];
+    }
+
+    public long getFrameNanos() {
+        return frameNanos;
+    }
+
+    private void begin(final Camera camera, final List<ModelInstance> instances) {
+        modelCount = instances.size();
+        ensureCapacity(modelCount);
+        // матрицы камеры считаются лениво: досчитываем их до задач, чтобы потоки пула их только читали
+        camera.getViewProjectionMatrix();
+        camera.getProjectionMatrix();
+    }
+
+    // Модели [from, to): в партии не больше моделей, чем буферов в пуле, так что буферы партии
+    // берутся у моделей прошлых партий, а не друг у друга
+    private void prepare(
+            final Camera camera,
+            final List<ModelInstance> instances,
+            final int from,
+            final int to,
+            final int width,
+            final int height,
+            final RenderSettings settings) {
+        for (int i = from; i < to; ++i) {
+            screens[i] = screenBuffers.acquire(instances.get(i));
+        }
+
+        final ForkJoinPool pool = settings.pool;
+        if (!settings.parallelTransform || to - from < 2 || pool.getParallelism() == 1) {
+            for (int i = from; i < to; ++i) {
+                prepareModel(camera, instances.get(i), i, width, height, settings);
+            }
+            return;
+        }
+
+        sortBySize(instances, from, to);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(to - from);
+        for (int k = from; k < to; ++k) {
+            final int i = (int) order[k];
+            final ModelInstance instance = instances.get(i);
+            tasks.add(pool.submit(() -> prepareModel(camera, instance, i, width, height, settings)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    private void prepareModel(
+            final Camera camera,
+            final ModelInstance instance,
+            final int i,
+            final int width,
+            final int height,
+            final RenderSettings settings) {
+        final long start = System.nanoTime();
+        levels[i] = RenderEngine.prepare(camera, instance, width, height, screens[i], settings);
+        transformNanos[i] = System.nanoTime() - start;
+    }
+
+    // Копий на сцене могут быть сотни, поэтому сортируются числа, а не объекты: ключ - число вершин
+    // со знаком минус в старших битах (большие модели первыми) и номер модели в младших
+    private void sortBySize(final List<ModelInstance> instances, final int from, final int to) {
+        for (int i = from; i < to; ++i) {
+            order[i] = ((long) -instances.get(i).mesh.getVertexCount() << 32) | i;
+        }
+        Arrays.sort(order, from, to);
+    }
+
+    private void ensureCapacity(final int nModels) {
+        if (levels.length < nModels) {
+            screens = new ScreenSpaceBuffer[nModels];
+            levels = new PackedMesh[nModels];
+            transformNanos = new long[nModels];
+            drawNanos = new long[nModels];
+            order = new long[nModels];
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.cgvsu.render_engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Буферы экранных координат для экземпляров моделей, не больше capacity штук. Пока экземпляров
+// не больше ёмкости, у каждого свой буфер, и неподвижная копия берёт координаты прошлого кадра,
+// даже если соседнюю сдвинули. Когда копий больше, новому экземпляру отдаётся буфер того,
+// что рисовался давнее всех: память растёт до capacity буферов, а не с числом копий,
+// зато вытесненная копия в следующий раз преобразуется заново.
+public class ScreenBufferPool {
+
+    private final int capacity;
+    // в порядке использования: первым идёт экземпляр, который рисовался давнее всех
+    private final LinkedHashMap<ModelInstance, ScreenSpaceBuffer> buffers = new LinkedHashMap<>(16, 0.75F, true);
+
+    public ScreenBufferPool(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Буферов должно быть хотя бы один: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    // Буфер экземпляра: тот же, что в прошлый раз, если его ещё не отдали другому
+    public ScreenSpaceBuffer acquire(final ModelInstance instance) {
+        ScreenSpaceBuffer screen = buffers.get(instance);
+        if (screen != null) {
+            return screen;
+        }
+        if (buffers.size() < capacity) {
+            screen = new ScreenSpaceBuffer();
+        } else {
+            // у чужого буфера другой ModelTransform, так что старые координаты не примутся за свои
+            Iterator<Map.Entry<ModelInstance, ScreenSpaceBuffer>> eldest = buffers.entrySet().iterator();
+            screen = eldest.next().getValue();
+            eldest.remove();
+        }
+        buffers.put(instance, screen);
+        return screen;
+    }
+
+    // Следующий кадр преобразует все экземпляры заново, даже если ни они, ни камера не двигались
+    public void invalidate() {
+        for (ScreenSpaceBuffer screen : buffers.values()) {
+            screen.invalidate();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getBufferCount() {
+        return buffers.size();
+    }
+
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (ScreenSpaceBuffer screen : buffers.values()) {
+            bytes += screen.getMemoryBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,123 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonBvh;
+
+import java.util.Arrays;
+
+// Экранные координаты всех вершин модели за один кадр: каждая вершина преобразуется один раз,
+// сколько бы полигонов на неё ни ссылалось. Массивы переиспользуются между кадрами
+// и пересоздаются, только когда у модели становится больше вершин. Если ни камера, ни модель с её положением,
+// ни размер кадра не менялись, следующий кадр берёт координаты отсюда же без пересчёта.
+public class ScreenSpaceBuffer {
+
+    public float[] x = new float[0];
+    public float[] y = new float[0];
+    // глубина после перспективного деления
+    public float[] z = new float[0];
+    // биты PolygonClipper.OUTSIDE_*: за какими плоскостями пирамиды видимости лежит вершина
+    public byte[] outcodes = new byte[0];
+
+    // чем и в кадр какого размера преобразованы вершины: по ним PolygonClipper заново
+    // считает вершины полигонов, которые пересекают ближнюю или дальнюю плоскость
+    public final Matrix4f modelViewProjection = new Matrix4f();
+    public int width = 0;
+    public int height = 0;
+
+    // номера полигонов, которые остались после отбора узлов BVH пирамидой видимости, в порядке отрисовки;
+    // без BVH - все полигоны по порядку
+    public int[] visiblePolygons = new int[0];
+    public int visiblePolygonCount = 0;
+
+    // каркас без отбора изнанки: ребро уже нарисовано в этом кадре, если его отметка равна edgeStamp.
+    // Номер кадра растёт, поэтому массив не чистится каждый кадр
+    private int[] edgeStamps = new int[0];
+    private int edgeStamp = 0;
+
+    private int size = 0;
+
+    // для какой модели (и её BVH), в каком положении и при какой версии камеры посчитан буфер
+    private PackedMesh transformedMesh = null;
+    private PolygonBvh transformedBvh = null;
+    private ModelTransform transformedTransform = null;
+    private long transformedTransformVersion = 0;
+    private Camera transformedCamera = null;
+    private long transformedCameraVersion = 0;
+
+    public void resize(int nVertices) {
+        if (x.length < nVertices) {
+            x = new float[nVertices];
+            y = new float[nVertices];
+            z = new float[nVertices];
+            outcodes = new byte[nVertices];
+        }
+        size = nVertices;
+    }
+
+    public void resizePolygons(int nPolygons) {
+        if (visiblePolygons.length < nPolygons) {
+            visiblePolygons = new int[nPolygons];
+        }
+        visiblePolygonCount = 0;
+    }
+
+    public void setProjection(Matrix4f modelViewProjection, int width, int height) {
+        this.modelViewProjection.set(modelViewProjection);
+        this.width = width;
+        this.height = height;
+    }
+
+    // Вершины модели поменяли на месте: следующий кадр преобразует их заново.
+    // Заодно буфер отпускает ссылки на модель, её положение и камеру
+    public void invalidate() {
+        transformedMesh = null;
+        transformedBvh = null;
+        transformedTransform = null;
+        transformedCamera = null;
+    }
+
+    boolean isTransformed(final PackedMesh mesh, final ModelTransform transform, final Camera camera,
+                          final int width, final int height) {
+        return mesh == transformedMesh && mesh.bvh == transformedBvh
+                && transform == transformedTransform && transform.getVersion() == transformedTransformVersion
+                && camera == transformedCamera && camera.getVersion() == transformedCameraVersion
+                && width == this.width && height == this.height;
+    }
+
+    void setTransformed(final PackedMesh mesh, final ModelTransform transform, final Camera camera) {
+        transformedMesh = mesh;
+        transformedBvh = mesh.bvh;
+        transformedTransform = transform;
+        transformedTransformVersion = transform.getVersion();
+        transformedCamera = camera;
+        transformedCameraVersion = camera.getVersion();
+    }
+
+    // Отметки рёбер для нового кадра; вернувшийся номер у ещё не нарисованных рёбер не встречается
+    int[] edgeStamps(int nEdges) {
+        if (edgeStamps.length < nEdges) {
+            edgeStamps = new int[nEdges];
+            edgeStamp = 0;
+        } else if (edgeStamp == Integer.MAX_VALUE) {
+            Arrays.fill(edgeStamps, 0);
+            edgeStamp = 0;
+        }
+        ++edgeStamp;
+        return edgeStamps;
+    }
+
+    int edgeStamp() {
+        return edgeStamp;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Сколько занимают массивы буфера
+    public long getMemoryBytes() {
+        return 3L * Float.BYTES * x.length + outcodes.length
+                + (long) Integer.BYTES * (visiblePolygons.length + edgeStamps.length);
+    }
+}
@@ -0,0 +1,205 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.PolygonStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Параллельная заливка: кадр делится на квадратные тайлы, полигоны раскладываются по тайлам,
+// которые задевает их ограничивающий прямоугольник, и каждый тайл заливается своей задачей.
+// Тайлы не пересекаются, поэтому каждая задача пишет только в свой кусок цвета и глубины кадра,
+// и блокировки не нужны. Внутри тайла полигоны идут в исходном порядке, так что картинка
+// совпадает с последовательным Rasterizer.drawPolygons пиксель в пиксель.
+// Массивы раскладки переиспользуются между кадрами.
+public class TiledRasterizer {
+
+    public static final int TILE_SIZE = 64;
+
+    // по тайлам: полигоны тайла t лежат в tilePolygons с tileStarts[t] до tileStarts[t + 1].
+    // Здесь и ниже полигон - это его место k в ScreenSpaceBuffer.visiblePolygons, а не номер в модели
+    private int[] tileStarts = new int[1];
+    private int[] tilePolygons = new int[0];
+    private int[] tileFill = new int[0];
+
+    // по полигонам: диапазон тайлов, -1 в polygonTileMinX - полигон целиком за кадром;
+    // отсекаемые полигоны и яркость углов каждый тайл считает заново, зато их не нужно нигде хранить
+    private boolean[] polygonClipped = new boolean[0];
+    private int[] polygonTileMinX = new int[0];
+    private int[] polygonTileMinY = new int[0];
+    private int[] polygonTileMaxX = new int[0];
+    private int[] polygonTileMaxY = new int[0];
+
+    public void drawPolygons(
+            final FrameBuffer frame,
+            final ScreenSpaceBuffer screen,
+            final PackedMesh mesh,
+            final float lightX, final float lightY, final float lightZ,
+            final RenderSettings settings) {
+        final int nTilesX = (frame.width + TILE_SIZE - 1) / TILE_SIZE;
+        final int nTilesY = (frame.height + TILE_SIZE - 1) / TILE_SIZE;
+        final int nPolygons = screen.visiblePolygonCount;
+        if (nTilesX == 0 || nTilesY == 0) {
+            return;
+        }
+
+        ensurePolygonCapacity(nPolygons);
+        ParallelTransform.run(nPolygons, settings,
+                (from, to) -> measurePolygons(frame, screen, mesh, from, to, nTilesX, nTilesY, settings.backFaceCulling));
+        binPolygons(nPolygons, nTilesX * nTilesY, nTilesX);
+
+        final ForkJoinPool pool = settings.pool;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(nTilesX * nTilesY);
+        for (int tileY = 0; tileY < nTilesY; ++tileY) {
+            for (int tileX = 0; tileX < nTilesX; ++tileX) {
+                final int tile = tileY * nTilesX + tileX;
+                if (tileStarts[tile] == tileStarts[tile + 1]) {
+                    continue;
+                }
+                final int minX = tileX * TILE_SIZE;
+                final int minY = tileY * TILE_SIZE;
+                final int maxX = Math.min(frame.width, minX + TILE_SIZE);
+                final int maxY = Math.min(frame.height, minY + TILE_SIZE);
+                tasks.add(pool.submit(() -> drawTile(frame, screen, mesh, tile, minX, minY, maxX, maxY,
+                        lightX, lightY, lightZ)));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    private void measurePolygons(
+            final FrameBuffer frame, final ScreenSpaceBuffer screen, final PackedMesh mesh,
+            final int from, final int to, final int nTilesX, final int nTilesY,
+            final boolean backFaceCulling) {
+        final PolygonStore polygons = mesh.polygons;
+        final int[] vertexIndices = polygons.vertexIndices;
+        final PolygonClipper clipper = new PolygonClipper();
+        for (int k = from; k < to; ++k) {
+            final int polygonInd = screen.visiblePolygons[k];
+            final int start = polygons.getStart(polygonInd);
+            final int end = start + polygons.getSize(polygonInd);
+            polygonTileMinX[k] = -1;
+            if (end - start < 3) {
+                continue;
+            }
+            final int visibility = Culling.classify(screen, vertexIndices, start, end, backFaceCulling);
+            if (visibility == Culling.CULLED) {
+                continue;
+            }
+
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+            if (visibility == Culling.VISIBLE) {
+                for (int i = start; i < end; ++i) {
+                    final int vertexInd = vertexIndices[i];
+                    minX = Math.min(minX, screen.x[vertexInd]);
+                    minY = Math.min(minY, screen.y[vertexInd]);
+                    maxX = Math.max(maxX, screen.x[vertexInd]);
+                    maxY = Math.max(maxY, screen.y[vertexInd]);
+                }
+            } else {
+                final int nClipped = clipper.clip(screen, mesh, vertexIndices, start, end);
+                if (nClipped < 3 || backFaceCulling && !Culling.isFrontFacing(clipper, nClipped)) {
+                    continue;
+                }
+                for (int i = 0; i < nClipped; ++i) {
+                    minX = Math.min(minX, clipper.x[i]);
+                    minY = Math.min(minY, clipper.y[i]);
+                    maxX = Math.max(maxX, clipper.x[i]);
+                    maxY = Math.max(maxY, clipper.y[i]);
+                }
+            }
+            // NaN в координатах не пройдёт ни одно из сравнений
+            if (!(maxX >= 0 && maxY >= 0 && minX < frame.width && minY < frame.height)) {
+                continue;
+            }
+            polygonTileMinX[k] = Math.max(0, (int) minX / TILE_SIZE);
+            polygonTileMinY[k] = Math.max(0, (int) minY / TILE_SIZE);
+            polygonTileMaxX[k] = Math.min(nTilesX - 1, (int) Math.ceil(maxX) / TILE_SIZE);
+            polygonTileMaxY[k] = Math.min(nTilesY - 1, (int) Math.ceil(maxY) / TILE_SIZE);
+            polygonClipped[k] = visibility == Culling.NEEDS_CLIPPING;
+        }
+    }
+
+    // Два прохода: сначала считаем полигоны в каждом тайле, потом раскладываем их номера по порядку
+    private void binPolygons(final int nPolygons, final int nTiles, final int nTilesX) {
+        if (tileStarts.length < nTiles + 1) {
+            tileStarts = new int[nTiles + 1];
+            tileFill = new int[nTiles];
+        }
+        Arrays.fill(tileStarts, 0, nTiles + 1, 0);
+
+        for (int k = 0; k < nPolygons; ++k) {
+            if (polygonTileMinX[k] < 0) {
+                continue;
+            }
+            for (int tileY = polygonTileMinY[k]; tileY <= polygonTileMaxY[k]; ++tileY) {
+                for (int tileX = polygonTileMinX[k]; tileX <= polygonTileMaxX[k]; ++tileX) {
+                    ++tileStarts[tileY * nTilesX + tileX + 1];
+                }
+            }
+        }
+        for (int tile = 0; tile < nTiles; ++tile) {
+            tileStarts[tile + 1] += tileStarts[tile];
+            tileFill[tile] = tileStarts[tile];
+        }
+
+        if (tilePolygons.length < tileStarts[nTiles]) {
+            tilePolygons = new int[tileStarts[nTiles]];
+        }
+        for (int k = 0; k < nPolygons; ++k) {
+            if (polygonTileMinX[k] < 0) {
+                continue;
+            }
+            for (int tileY = polygonTileMinY[k]; tileY <= polygonTileMaxY[k]; ++tileY) {
+                for (int tileX = polygonTileMinX[k]; tileX <= polygonTileMaxX[k]; ++tileX) {
+                    tilePolygons[tileFill[tileY * nTilesX + tileX]++] = k;
+                }
+            }
+        }
+    }
+
+    private void drawTile(
+            final FrameBuffer frame, final ScreenSpaceBuffer screen, final PackedMesh mesh, final int tile,
+            final int minX, final int minY, final int maxX, final int maxY,
+            final float lightX, final float lightY, final float lightZ) {
+        final PolygonStore polygons = mesh.polygons;
+        final int[] vertexIndices = polygons.vertexIndices;
+        PolygonClipper clipper = null;
+        float[] intensity = new float[16];
+        for (int i = tileStarts[tile]; i < tileStarts[tile + 1]; ++i) {
+            final int k = tilePolygons[i];
+            final int polygonInd = screen.visiblePolygons[k];
+            final int start = polygons.getStart(polygonInd);
+            final int end = start + polygons.getSize(polygonInd);
+            if (intensity.length < end - start) {
+                intensity = new float[end - start];
+            }
+            Rasterizer.shadeCorners(mesh, polygonInd, lightX, lightY, lightZ, intensity);
+            if (!polygonClipped[k]) {
+                Rasterizer.fillPolygon(frame, screen, vertexIndices, start, end, intensity, minX, minY, maxX, maxY);
+                continue;
+            }
+            if (clipper == null) {
+                clipper = new PolygonClipper();
+            }
+            final int nClipped = clipper.clip(screen, mesh, vertexIndices, start, end, intensity);
+            Rasterizer.fillClipped(frame, clipper, nClipped, minX, minY, maxX, maxY);
+        }
+    }
+
+    private void ensurePolygonCapacity(int nPolygons) {
+        if (polygonClipped.length < nPolygons) {
+            polygonClipped = new boolean[nPolygons];
+            polygonTileMinX = new int[nPolygons];
+            polygonTileMinY = new int[nPolygons];
+            polygonTileMaxX = new int[nPolygons];
+            polygonTileMaxY = new int[nPolygons];
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// GraphicConveyor.transformVertices на Vector API: умножение на матрицу, деление на w, перевод в пиксели
+// и коды отсечения сразу для 8 (AVX2) или 16 (AVX-512) вершин. Операции те же и в том же порядке,
+// что в скалярном цикле, и без FMA, поэтому результат совпадает с ним бит в бит - на этом держится
+// PolygonClipper, который пересчитывает вершины скалярно.
+//
+// jdk.incubator.vector - инкубаторный модуль, по умолчанию JVM его не подключает: нужен ключ
+// --add-modules jdk.incubator.vector. Без него (и на процессорах, где в вектор входит меньше 8 чисел)
+// isAvailable() - false, и transformVertices просто вызывает скалярный вариант. Классы Vector API
+// упоминаются только во вложенном Kernel, который загружается, лишь когда модуль есть.
+public class VectorTransform {
+
+    private static final boolean AVAILABLE = detect();
+
+    private VectorTransform() {
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    // сколько вершин за одну итерацию; 1 - векторного пути нет
+    public static int lanes() {
+        return AVAILABLE ? Kernel.FLOATS.length() : 1;
+    }
+
+    public static void transformVertices(
+            final Matrix4f matrix,
+            final float[] vertexX, final float[] vertexY, final float[] vertexZ,
+            final int from, final int to,
+            final int width, final int height,
+            final ScreenSpaceBuffer result) {
+        if (AVAILABLE) {
+            Kernel.transformVertices(matrix, vertexX, vertexY, vertexZ, from, to, width, height, result);
+        } else {
+            GraphicConveyor.transformVertices(matrix, vertexX, vertexY, vertexZ, from, to, width, height, result);
+        }
+    }
+
+    private static boolean detect() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return Kernel.FLOATS.length() >= Kernel.MIN_LANES;
+        } catch (LinkageError error) {
+            return false;
+        }
+    }
+
+    private static class Kernel {
+        // коды отсечения пишутся в byte[] вектором той же длины: 8 байт - самая короткая форма
+        static final int MIN_LANES = 8;
+
+        static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+        static final VectorSpecies<Integer> INTS = FLOATS.withLanes(int.class);
+        static final VectorSpecies<Byte> BYTES = FLOATS.length() >= MIN_LANES
+                ? VectorSpecies.of(byte.class, VectorShape.forBitSize(FLOATS.length() * Byte.SIZE))
+                : null;
+
+        static void transformVertices(
+                final Matrix4f matrix,
+                final float[] vertexX, final float[] vertexY, final float[] vertexZ,
+                final int from, final int to,
+                final int width, final int height,
+                final ScreenSpaceBuffer result) {
+            final float halfWidth = width / 2.0F;
+            final float halfHeight = height / 2.0F;
+            final FloatVector m00 = FloatVector.broadcast(FLOATS, matrix.m00), m01 = FloatVector.broadcast(FLOATS, matrix.m01);
+            final FloatVector m02 = FloatVector.broadcast(FLOATS, matrix.m02), m03 = FloatVector.broadcast(FLOATS, matrix.m03);
+            final FloatVector m10 = FloatVector.broadcast(FLOATS, matrix.m10), m11 = FloatVector.broadcast(FLOATS, matrix.m11);
+            final FloatVector m12 = FloatVector.broadcast(FLOATS, matrix.m12), m13 = FloatVector.broadcast(FLOATS, matrix.m13);
+            final FloatVector m20 = FloatVector.broadcast(FLOATS, matrix.m20), m21 = FloatVector.broadcast(FLOATS, matrix.m21);
+            final FloatVector m22 = FloatVector.broadcast(FLOATS, matrix.m22), m23 = FloatVector.broadcast(FLOATS, matrix.m23);
+            final FloatVector m30 = FloatVector.broadcast(FLOATS, matrix.m30), m31 = FloatVector.broadcast(FLOATS, matrix.m31);
+            final FloatVector m32 = FloatVector.broadcast(FLOATS, matrix.m32), m33 = FloatVector.broadcast(FLOATS, matrix.m33);
+            final IntVector noPlanes = IntVector.zero(INTS);
+
+            int i = from;
+            final int bound = from + FLOATS.loopBound(to - from);
+            for (; i < bound; i += FLOATS.length()) {
+                final FloatVector vx = FloatVector.fromArray(FLOATS, vertexX, i);
+                final FloatVector vy = FloatVector.fromArray(FLOATS, vertexY, i);
+                final FloatVector vz = FloatVector.fromArray(FLOATS, vertexZ, i);
+                final FloatVector x = vx.mul(m00).add(vy.mul(m10)).add(vz.mul(m20)).add(m30);
+                final FloatVector y = vx.mul(m01).add(vy.mul(m11)).add(vz.mul(m21)).add(m31);
+                final FloatVector z = vx.mul(m02).add(vy.mul(m12)).add(vz.mul(m22)).add(m32);
+                final FloatVector w = vx.mul(m03).add(vy.mul(m13)).add(vz.mul(m23)).add(m33);
+
+                x.div(w).mul(width).add(halfWidth).intoArray(result.x, i);
+                y.div(w).neg().mul(height).add(halfHeight).intoArray(result.y, i);
+                z.div(w).intoArray(result.z, i);
+
+                // PolygonClipper.outcode по маскам сравнений. Всё тело цикла - без своих вспомогательных методов:
+                // если C2 не встроит хоть один (а в таком большом цикле он упирается в лимит узлов),
+                // векторы и маски станут объектами в куче и путь окажется медленнее скалярного
+                final FloatVector halfW = w.mul(0.5F);
+                final FloatVector minusHalfW = halfW.neg();
+                final FloatVector minusW = w.neg();
+                IntVector outcode = noPlanes
+                        .lanewise(VectorOperators.OR, PolygonClipper.OUTSIDE_LEFT, x.lt(minusHalfW).cast(INTS))
+                        .lanewise(VectorOperators.OR, PolygonClipper.OUTSIDE_RIGHT, x.compare(VectorOperators.GT, halfW).cast(INTS))
+                        .lanewise(VectorOperators.OR, PolygonClipper.OUTSIDE_BOTTOM, y.lt(minusHalfW).cast(INTS))
+                        .lanewise(VectorOperators.OR, PolygonClipper.OUTSIDE_TOP, y.compare(VectorOperators.GT, halfW).cast(INTS))
+                        .lanewise(VectorOperators.OR, PolygonClipper.OUTSIDE_NEAR, z.lt(minusW).cast(INTS))
+                        .lanewise(VectorOperators.OR, PolygonClipper.OUTSIDE_FAR, z.compare(VectorOperators.GT, w).cast(INTS));
+                ((ByteVector) outcode.castShape(BYTES, 0)).intoArray(result.outcodes, i);
+            }
+            // хвост короче вектора
+            GraphicConveyor.transformVertices(matrix, vertexX, vertexY, vertexZ, i, to, width, height, result);
+        }
+    }
+}
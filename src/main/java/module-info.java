@@ -1,8 +1,9 @@
 module com.cgvsu {
     requires javafx.controls;
     requires javafx.fxml;
-    requires vecmath;
     requires java.desktop;
+    // необязательно: VectorTransform работает и без него, см. там
+    requires static jdk.incubator.vector;
 
 
     opens com.cgvsu to javafx.fxml;
@@ -0,0 +1,79 @@
+package com.cgvsu;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class BatchRendererTest {
+
+    @Test
+    public void testRenderAll_PngPerFileAndReport(@TempDir Path directory) throws Exception {
+        Path input = Files.createDirectory(directory.resolve("in"));
+        Files.writeString(input.resolve("quad.obj"), "v -1 -1 0\nv 1 -1 0\nv 1 1 0\nv -1 1 0\nf 1 2 3 4\n");
+        Files.writeString(input.resolve("broken.obj"), "v 1 2\n");
+        Files.writeString(input.resolve("notes.txt"), "не модель");
+
+        BatchRenderer.Options options = BatchRenderer.parse(new String[]{
+                "-o", directory.resolve("out").toString(), "-size", "64x48", "-threads", "2", input.toString()});
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        final int failed = BatchRenderer.renderAll(options, new PrintStream(report, true, StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(1, failed);
+        final String text = report.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(text.contains("quad.obj: 1 полигонов"));
+        Assertions.assertTrue(text.contains("broken.obj: ошибка"));
+        Assertions.assertFalse(text.contains("notes.txt"));
+
+        BufferedImage image = ImageIO.read(directory.resolve("out").resolve("quad.png").toFile());
+        Assertions.assertEquals(64, image.getWidth());
+        Assertions.assertEquals(48, image.getHeight());
+        // квадрат вписан в кадр: центр закрашен, угол прозрачный
+        Assertions.assertEquals(0xFF, image.getRGB(32, 24) >>> 24);
+        Assertions.assertEquals(0, image.getRGB(0, 0) >>> 24);
+        Assertions.assertFalse(Files.exists(directory.resolve("out").resolve("broken.png")));
+    }
+
+    // Одноимённые модели из разных папок получают разные превью
+    @Test
+    public void testRenderAll_SameNamesDoNotOverwrite(@TempDir Path directory) throws Exception {
+        Path first = Files.createDirectory(directory.resolve("a"));
+        Path second = Files.createDirectory(directory.resolve("b"));
+        Files.writeString(first.resolve("model.obj"), "v -1 -1 0\nv 1 -1 0\nv 1 1 0\nf 1 2 3\n");
+        Files.writeString(second.resolve("model.obj"), "v -1 -1 0\nv 1 1 0\nv -1 1 0\nf 1 2 3\n");
+        Files.writeString(second.resolve("model_2.obj"), "v -1 -1 0\nv 1 -1 0\nv 0 1 0\nf 1 2 3\n");
+
+        Assertions.assertEquals(List.of("model.png", "model_3.png", "model_2.png"), BatchRenderer.thumbnailNames(
+                List.of(first.resolve("model.obj"), second.resolve("model.obj"), second.resolve("model_2.obj"))));
+
+        BatchRenderer.Options options = BatchRenderer.parse(new String[]{
+                "-o", directory.resolve("out").toString(), "-size", "32x32", "-threads", "1",
+                first.toString(), second.toString()});
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        Assertions.assertEquals(0, BatchRenderer.renderAll(options, new PrintStream(report, true, StandardCharsets.UTF_8)));
+        Assertions.assertTrue(report.toString(StandardCharsets.UTF_8).contains("превью model_3.png"));
+        for (String name : List.of("model.png", "model_2.png", "model_3.png")) {
+            Assertions.assertTrue(Files.exists(directory.resolve("out").resolve(name)), name);
+        }
+    }
+
+    @Test
+    public void testParse_RejectsBadArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchRenderer.parse(new String[]{"-size", "64", "a.obj"}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchRenderer.parse(new String[]{"-camera", "1,2,3", "a.obj"}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchRenderer.parse(new String[]{"-o", "out"}));
+
+        BatchRenderer.Options options = BatchRenderer.parse(new String[]{"-camera", "0,0,10,0,0,0", "-fov", "0.5", "a.obj", "b"});
+        Assertions.assertArrayEquals(new float[]{0, 0, 10, 0, 0, 0}, options.camera);
+        Assertions.assertEquals(0.5F, options.fov);
+        Assertions.assertEquals(2, options.inputs.size());
+    }
+}
@@ -0,0 +1,161 @@
+package com.cgvsu.math;
+
+import com.cgvsu.render_engine.GraphicConveyor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+// Сверка с javax.vecmath, на которой рендер работал раньше
+class Matrix4fTest {
+
+    private static final float EPSILON = 1e-4F;
+
+    @Test
+    public void testMulAndInvert_MatchVecmath() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100; ++i) {
+            final float[] a = randomValues(random);
+            final float[] b = randomValues(random);
+
+            Matrix4f product = new Matrix4f(a).mul(new Matrix4f(b));
+            javax.vecmath.Matrix4f expected = new javax.vecmath.Matrix4f(a);
+            expected.mul(new javax.vecmath.Matrix4f(b));
+            assertMatches(expected, product, EPSILON);
+
+            Matrix4f inverse = new Matrix4f(a);
+            Assertions.assertTrue(inverse.invert());
+            javax.vecmath.Matrix4f expectedInverse = new javax.vecmath.Matrix4f(a);
+            expectedInverse.invert();
+            // обратная к случайной матрице может быть большой - сравниваем относительно
+            assertMatches(expectedInverse, inverse, EPSILON * Math.max(1, maxAbs(expectedInverse)));
+            Assertions.assertTrue(new Matrix4f(a).mul(inverse).epsilonEquals(Matrix4f.identity(), 1e-3F));
+        }
+    }
+
+    @Test
+    public void testInvert_SingularMatrixUnchanged() {
+        Matrix4f matrix = new Matrix4f(new float[]{
+                1, 2, 3, 4,
+                2, 4, 6, 8,
+                0, 1, 0, 1,
+                5, 0, 1, 0});
+        Matrix4f copy = new Matrix4f(matrix);
+        Assertions.assertFalse(matrix.invert());
+        Assertions.assertEquals(copy, matrix);
+    }
+
+    @Test
+    public void testTransformPoint_MatchesVecmath() {
+        Random random = new Random(11);
+        final float[] values = randomValues(random);
+        Matrix4f matrix = new Matrix4f(values);
+        // vecmath умножает на вектор-столбец справа, у нас вектор-строка слева: M^T * p
+        javax.vecmath.Matrix4f transposed = new javax.vecmath.Matrix4f(values);
+        transposed.transpose();
+        for (int i = 0; i < 100; ++i) {
+            Vector3f point = new Vector3f(random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5);
+            javax.vecmath.Vector4f expected = new javax.vecmath.Vector4f(point.x, point.y, point.z, 1);
+            transposed.transform(expected);
+
+            Vector4f result = matrix.transform(point.x, point.y, point.z, new Vector4f());
+            Assertions.assertEquals(expected.x, result.x, EPSILON);
+            Assertions.assertEquals(expected.w, result.w, EPSILON);
+
+            Vector3f projected = GraphicConveyor.multiplyMatrix4ByVector3(matrix, point);
+            Assertions.assertEquals(expected.y / expected.w, projected.y, EPSILON * Math.max(1, Math.abs(projected.y)));
+            Assertions.assertEquals(expected.z / expected.w, projected.z, EPSILON * Math.max(1, Math.abs(projected.z)));
+        }
+    }
+
+    @Test
+    public void testTransformPoints_SameAsOneByOne() {
+        Random random = new Random(3);
+        Matrix4f matrix = GraphicConveyor.lookAt(new Vector3f(3, 4, 50), new Vector3f(0, 0, 0));
+        matrix.mul(GraphicConveyor.perspective(1.0F, 1.5F, 0.1F, 100));
+        final int n = 37;
+        float[] x = new float[n], y = new float[n], z = new float[n];
+        float[] interleaved = new float[3 * n];
+        for (int i = 0; i < n; ++i) {
+            x[i] = interleaved[3 * i] = random.nextFloat() * 20 - 10;
+            y[i] = interleaved[3 * i + 1] = random.nextFloat() * 20 - 10;
+            z[i] = interleaved[3 * i + 2] = random.nextFloat() * 20 - 10;
+        }
+        float[] outX = new float[n], outY = new float[n], outZ = new float[n];
+        float[] outInterleaved = new float[3 * n];
+        matrix.transformPoints(x, y, z, outX, outY, outZ, 0, n);
+        matrix.transformPoints(interleaved, 0, outInterleaved, 0, n);
+
+        Vector3f point = new Vector3f();
+        for (int i = 0; i < n; ++i) {
+            matrix.transformPoint(point.set(x[i], y[i], z[i]), point);
+            Assertions.assertEquals(point.x, outX[i]);
+            Assertions.assertEquals(point.y, outY[i]);
+            Assertions.assertEquals(point.z, outZ[i]);
+            Assertions.assertEquals(point.x, outInterleaved[3 * i]);
+            Assertions.assertEquals(point.z, outInterleaved[3 * i + 2]);
+        }
+    }
+
+    @Test
+    public void testLookAtAndPerspective_MatchVecmathVersion() {
+        Vector3f eye = new Vector3f(10, 20, 30);
+        Vector3f target = new Vector3f(-1, 2, 0.5F);
+
+        // прежняя реализация на javax.vecmath
+        javax.vecmath.Vector3f eyeOld = new javax.vecmath.Vector3f(eye.x, eye.y, eye.z);
+        javax.vecmath.Vector3f resultX = new javax.vecmath.Vector3f();
+        javax.vecmath.Vector3f resultY = new javax.vecmath.Vector3f();
+        javax.vecmath.Vector3f resultZ = new javax.vecmath.Vector3f();
+        resultZ.sub(new javax.vecmath.Vector3f(target.x, target.y, target.z), eyeOld);
+        resultX.cross(new javax.vecmath.Vector3f(0, 1, 0), resultZ);
+        resultY.cross(resultZ, resultX);
+        resultX.normalize();
+        resultY.normalize();
+        resultZ.normalize();
+        javax.vecmath.Matrix4f expected = new javax.vecmath.Matrix4f(new float[]{
+                resultX.x, resultY.x, resultZ.x, 0,
+                resultX.y, resultY.y, resultZ.y, 0,
+                resultX.z, resultY.z, resultZ.z, 0,
+                -resultX.dot(eyeOld), -resultY.dot(eyeOld), -resultZ.dot(eyeOld), 1});
+        assertMatches(expected, GraphicConveyor.lookAt(eye, target), EPSILON);
+
+        // в переданную матрицу пишется то же самое, что возвращается новой
+        Matrix4f result = Matrix4f.identity();
+        Assertions.assertSame(result, GraphicConveyor.perspective(1.2F, 1.5F, 0.1F, 100, result));
+        Assertions.assertEquals(GraphicConveyor.perspective(1.2F, 1.5F, 0.1F, 100), result);
+        Assertions.assertEquals(0, result.m33);
+    }
+
+    private static float[] randomValues(Random random) {
+        float[] values = new float[16];
+        for (int i = 0; i < 16; ++i) {
+            values[i] = random.nextFloat() * 4 - 2;
+        }
+        return values;
+    }
+
+    private static float maxAbs(javax.vecmath.Matrix4f matrix) {
+        float max = 0;
+        for (int row = 0; row < 4; ++row) {
+            for (int column = 0; column < 4; ++column) {
+                max = Math.max(max, Math.abs(matrix.getElement(row, column)));
+            }
+        }
+        return max;
+    }
+
+    private static void assertMatches(javax.vecmath.Matrix4f expected, Matrix4f actual, float epsilon) {
+        final float[][] values = {
+                {actual.m00, actual.m01, actual.m02, actual.m03},
+                {actual.m10, actual.m11, actual.m12, actual.m13},
+                {actual.m20, actual.m21, actual.m22, actual.m23},
+                {actual.m30, actual.m31, actual.m32, actual.m33}};
+        for (int row = 0; row < 4; ++row) {
+            for (int column = 0; column < 4; ++column) {
+                Assertions.assertEquals(expected.getElement(row, column), values[row][column], epsilon,
+                        "m" + row + column);
+            }
+        }
+    }
+}
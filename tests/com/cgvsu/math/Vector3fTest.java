@@ -0,0 +1,51 @@
+package com.cgvsu.math;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class Vector3fTest {
+
+    @Test
+    public void testOperations_MatchVecmath() {
+        Vector3f a = new Vector3f(1.5F, -2, 3);
+        Vector3f b = new Vector3f(-4, 0.25F, 7);
+        javax.vecmath.Vector3f expectedA = new javax.vecmath.Vector3f(a.x, a.y, a.z);
+        javax.vecmath.Vector3f expectedB = new javax.vecmath.Vector3f(b.x, b.y, b.z);
+
+        javax.vecmath.Vector3f expected = new javax.vecmath.Vector3f();
+        expected.cross(expectedA, expectedB);
+        assertMatches(expected, new Vector3f().cross(a, b));
+        Assertions.assertEquals(expectedA.dot(expectedB), a.dot(b));
+        Assertions.assertEquals(expectedA.length(), a.length(), 1e-6F);
+
+        expected.sub(expectedA, expectedB);
+        expected.normalize();
+        assertMatches(expected, new Vector3f().sub(a, b).normalize());
+
+        // результат можно писать в один из аргументов
+        expected.cross(expectedA, expectedB);
+        Vector3f inPlace = new Vector3f(a);
+        assertMatches(expected, inPlace.cross(inPlace, b));
+
+        Assertions.assertTrue(new Vector3f().normalize().equals(new Vector3f(0, 0, 0)));
+    }
+
+    @Test
+    public void testImmutable_OperationsReturnNewVector() {
+        ImmutableVector3f x = ImmutableVector3f.UNIT_X;
+        ImmutableVector3f z = x.cross(ImmutableVector3f.UNIT_Y);
+        Assertions.assertEquals(ImmutableVector3f.UNIT_Z, z);
+        Assertions.assertEquals(new ImmutableVector3f(1, 0, 0), ImmutableVector3f.UNIT_X);
+        Assertions.assertEquals(new ImmutableVector3f(3, 0, 4), new ImmutableVector3f(3, 0, 4).normalize().scale(5));
+
+        Vector3f mutable = x.toMutable().scale(2);
+        Assertions.assertEquals(2, mutable.x);
+        Assertions.assertEquals(1, ImmutableVector3f.UNIT_X.x());
+    }
+
+    private static void assertMatches(javax.vecmath.Vector3f expected, Vector3f actual) {
+        Assertions.assertEquals(expected.x, actual.x, 1e-5F);
+        Assertions.assertEquals(expected.y, actual.y, 1e-5F);
+        Assertions.assertEquals(expected.z, actual.z, 1e-5F);
+    }
+}
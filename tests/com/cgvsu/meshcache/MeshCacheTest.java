@@ -0,0 +1,108 @@
+package com.cgvsu.meshcache;
+
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.VertexNormals;
+import com.cgvsu.objWriter.objWriter;
+import com.cgvsu.objreader.ReadProgress;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+class MeshCacheTest {
+
+    private static final String OBJ = """
+            v 0 0 0
+            v 1 0 0
+            v 1 1 0
+            v 0 1 0
+            vt 0 0
+            vt 1 0
+            vt 1 1
+            vn 0 0 1
+            f 1/1/1 2/2/1 3/3/1
+            f 1 3 4
+            """;
+
+    @Test
+    public void testRead_SecondOpenComesFromCache(@TempDir Path directory) throws Exception {
+        Path source = directory.resolve("model.obj");
+        Files.writeString(source, OBJ);
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+
+        PackedMesh parsed = cache.read(source);
+        Assertions.assertTrue(Files.isRegularFile(cache.cacheFileFor(source)));
+
+        PackedMesh cached = BinaryMeshFormat.read(cache.cacheFileFor(source), SourceStamp.of(source));
+        Assertions.assertNotNull(cached);
+        objWriter writer = new objWriter();
+        Assertions.assertEquals(writer.writeToString(parsed), writer.writeToString(cached));
+        Assertions.assertEquals(writer.writeToString(parsed), writer.writeToString(cache.read(source)));
+    }
+
+    @Test
+    public void testRead_ChangedSourceIsParsedAgain(@TempDir Path directory) throws Exception {
+        Path source = directory.resolve("model.obj");
+        Files.writeString(source, OBJ);
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+        cache.read(source);
+
+        Files.writeString(source, OBJ + "v 5 5 5\n");
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 2000));
+        Assertions.assertNull(BinaryMeshFormat.read(cache.cacheFileFor(source), SourceStamp.of(source)));
+
+        PackedMesh reparsed = cache.read(source);
+        Assertions.assertEquals(5, reparsed.getVertexCount());
+        Assertions.assertNotNull(BinaryMeshFormat.read(cache.cacheFileFor(source), SourceStamp.of(source)));
+    }
+
+    // Нормали, построенные в afterParse, попадают в кэш, и открытие из кэша получает их готовыми
+    @Test
+    public void testRead_AfterParseResultIsCached(@TempDir Path directory) throws Exception {
+        Path source = directory.resolve("triangle.obj");
+        Files.writeString(source, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+
+        PackedMesh parsed = cache.read(source, ReadProgress.NONE, VertexNormals::build);
+        Assertions.assertEquals(3, parsed.getNormalCount());
+        Assertions.assertTrue(parsed.polygons.hasNormalIndices(0));
+
+        PackedMesh cached = BinaryMeshFormat.read(cache.cacheFileFor(source), SourceStamp.of(source));
+        Assertions.assertNotNull(cached);
+        Assertions.assertArrayEquals(parsed.normalZ, cached.normalZ);
+        Assertions.assertArrayEquals(parsed.polygons.normalIndices, cached.polygons.normalIndices);
+        Assertions.assertArrayEquals(new float[]{1, 1, 1}, cached.normalZ);
+
+        // при попадании в кэш afterParse не вызывается
+        cache.read(source, ReadProgress.NONE, mesh -> Assertions.fail("модель должна прийти из кэша"));
+    }
+
+    // Размер файла верный, а содержимое испорчено: read сообщает об ошибке, кэш разбирает OBJ заново
+    @Test
+    public void testRead_CorruptedIndicesAreCacheMiss(@TempDir Path directory) throws Exception {
+        Path source = directory.resolve("model.obj");
+        Files.writeString(source, OBJ);
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+        final String expected = new objWriter().writeToString(cache.read(source));
+        Path cacheFile = cache.cacheFileFor(source);
+
+        // после заголовка 4 вершины, 3 текстурные вершины и 1 нормаль, потом 3 начала полигонов
+        final int faceOffsets = 52 + 4 * (3 * 4 + 2 * 3 + 3);
+        final int vertexIndices = faceOffsets + 4 * 3;
+        for (int[] corruption : new int[][]{{vertexIndices, 1000}, {vertexIndices, -2}, {faceOffsets + 4, 7}}) {
+            byte[] bytes = Files.readAllBytes(cacheFile);
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(corruption[0], corruption[1]);
+            Files.write(cacheFile, bytes);
+            Assertions.assertThrows(IOException.class, () -> BinaryMeshFormat.read(cacheFile, SourceStamp.of(source)));
+
+            Assertions.assertEquals(expected, new objWriter().writeToString(cache.read(source)));
+            Assertions.assertNotNull(BinaryMeshFormat.read(cacheFile, SourceStamp.of(source)));
+        }
+    }
+}
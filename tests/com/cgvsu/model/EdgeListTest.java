@@ -0,0 +1,104 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+class EdgeListTest {
+
+    @Test
+    public void testBuild_SharedEdgesOnce() {
+        // куб из шести четырёхугольников: 24 стороны полигонов, 12 рёбер
+        PolygonStore cube = new PolygonStore();
+        cube.faceOffsets = new int[]{0, 4, 8, 12, 16, 20, 24};
+        cube.vertexIndices = new int[]{
+                0, 1, 2, 3,
+                4, 7, 6, 5,
+                0, 4, 5, 1,
+                1, 5, 6, 2,
+                2, 6, 7, 3,
+                3, 7, 4, 0};
+        EdgeList edges = EdgeList.build(cube);
+        Assertions.assertEquals(12, edges.size());
+
+        HashSet<Long> unique = new HashSet<>();
+        for (int i = 0; i < edges.size(); ++i) {
+            final int from = edges.vertexIndices[2 * i];
+            final int to = edges.vertexIndices[2 * i + 1];
+            Assertions.assertTrue(unique.add((long) Math.min(from, to) << 32 | Math.max(from, to)));
+        }
+
+        // у каждого угла - ребро от предыдущего угла полигона, и каждое ребро ровно у двух углов
+        int[] cornersPerEdge = new int[edges.size()];
+        for (int polygonInd = 0; polygonInd < cube.size(); ++polygonInd) {
+            final int start = cube.getStart(polygonInd);
+            final int end = start + cube.getSize(polygonInd);
+            for (int i = start; i < end; ++i) {
+                final int from = cube.vertexIndices[i == start ? end - 1 : i - 1];
+                final int to = cube.vertexIndices[i];
+                final int edge = edges.cornerEdges[i];
+                Assertions.assertEquals(Math.min(from, to),
+                        Math.min(edges.vertexIndices[2 * edge], edges.vertexIndices[2 * edge + 1]));
+                Assertions.assertEquals(Math.max(from, to),
+                        Math.max(edges.vertexIndices[2 * edge], edges.vertexIndices[2 * edge + 1]));
+                ++cornersPerEdge[edge];
+            }
+        }
+        for (int count : cornersPerEdge) {
+            Assertions.assertEquals(2, count);
+        }
+
+        // тот же куб через списки полигонов объектной модели
+        List<Polygon> polygons = new ArrayList<>();
+        for (int polygonInd = 0; polygonInd < cube.size(); ++polygonInd) {
+            polygons.add(cube.get(polygonInd));
+        }
+        EdgeList fromModel = EdgeList.build(polygons);
+        Assertions.assertArrayEquals(edges.vertexIndices, fromModel.vertexIndices);
+        Assertions.assertArrayEquals(edges.cornerEdges, fromModel.cornerEdges);
+    }
+
+    // Пустой полигон (две одинаковые границы подряд) рёбер не даёт и не ломает построение
+    @Test
+    public void testBuild_EmptyPolygonSkipped() {
+        PolygonStore polygons = new PolygonStore();
+        polygons.faceOffsets = new int[]{0, 0, 3, 3};
+        polygons.vertexIndices = new int[]{0, 1, 2};
+        EdgeList edges = EdgeList.build(polygons);
+        Assertions.assertEquals(3, edges.size());
+        Assertions.assertArrayEquals(new int[]{0, 1, 2}, edges.cornerEdges);
+    }
+
+    // Номера те же, что у HashMap, где новый ключ получает номер по размеру карты
+    @Test
+    public void testLongHashSet_SameAsHashMap() {
+        Random random = new Random(11);
+        LongHashSet set = new LongHashSet(16);
+        HashMap<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; ++i) {
+            // много повторов и соседних ключей, таблица несколько раз растёт
+            final long key = ((long) random.nextInt(300) << 32) | random.nextInt(1000);
+            Integer number = expected.get(key);
+            if (number == null) {
+                number = expected.size();
+                expected.put(key, number);
+            }
+            Assertions.assertEquals(number, set.insert(key));
+        }
+        Assertions.assertEquals(expected.size(), set.size());
+
+        // номера добавления переживают рост таблицы
+        LongHashSet numbered = new LongHashSet(4);
+        for (int i = 0; i < 1000; ++i) {
+            Assertions.assertEquals(i, numbered.insert(7L * i));
+        }
+        for (int i = 0; i < 1000; ++i) {
+            Assertions.assertEquals(i, numbered.insert(7L * i));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+class LodChainTest {
+
+    @Test
+    public void testSimplify_SphereKeepsShape() {
+        PackedMesh sphere = createSphere(100, 200, 10);
+        final int nTriangles = 2 * 100 * 200 - 2 * 200;
+
+        PackedMesh simplified = MeshSimplifier.simplify(sphere, nTriangles / 20);
+        Assertions.assertTrue(simplified.getPolygonCount() <= nTriangles / 20);
+        Assertions.assertTrue(simplified.getPolygonCount() > nTriangles / 40);
+        // вершины остаются на сфере, а сфера остаётся замкнутой: каждое ребро в двух треугольниках
+        for (int i = 0; i < simplified.getVertexCount(); ++i) {
+            final double radius = Math.sqrt(simplified.vertexX[i] * simplified.vertexX[i]
+                    + simplified.vertexY[i] * simplified.vertexY[i] + simplified.vertexZ[i] * simplified.vertexZ[i]);
+            Assertions.assertEquals(10, radius, 0.1);
+        }
+        Assertions.assertEquals(2 * simplified.getVertexCount() - 4, simplified.getPolygonCount());
+
+        // цель больше, чем есть - сетка не меняется
+        Assertions.assertEquals(nTriangles, MeshSimplifier.simplify(sphere, nTriangles).getPolygonCount());
+    }
+
+    @Test
+    public void testSelectLevel_CoarserWhenSmallerOnScreen() {
+        PackedMesh sphere = createSphere(100, 200, 10);
+        LodChain lods = LodChain.build(sphere);
+
+        Assertions.assertSame(sphere, lods.levels[0]);
+        Assertions.assertTrue(lods.getLevelCount() >= 3);
+        for (int level = 1; level < lods.getLevelCount(); ++level) {
+            Assertions.assertTrue(lods.triangleCounts[level] <= lods.triangleCounts[level - 1] / LodChain.REDUCTION);
+        }
+        Assertions.assertEquals(10, lods.radius, 1e-3);
+
+        Assertions.assertEquals(0, lods.selectLevel(1000));
+        Assertions.assertEquals(lods.getLevelCount() - 1, lods.selectLevel(1));
+        int previous = 0;
+        for (float projectedRadius = 500; projectedRadius >= 1; projectedRadius /= 2) {
+            final int level = lods.selectLevel(projectedRadius);
+            Assertions.assertTrue(level >= previous);
+            Assertions.assertTrue(level == 0
+                    || lods.triangleCounts[level] >= LodChain.TRIANGLES_PER_PIXEL * Math.PI * projectedRadius * projectedRadius);
+            previous = level;
+        }
+    }
+
+    // UV-сфера: rings поясов по segments четырёхугольников, у полюсов - треугольники
+    private static PackedMesh createSphere(int rings, int segments, float radius) {
+        final int nVertices = 2 + (rings - 1) * segments;
+        PackedMesh mesh = new PackedMesh();
+        mesh.vertexX = new float[nVertices];
+        mesh.vertexY = new float[nVertices];
+        mesh.vertexZ = new float[nVertices];
+        mesh.vertexY[0] = radius;
+        mesh.vertexY[nVertices - 1] = -radius;
+        for (int ring = 1; ring < rings; ++ring) {
+            final double theta = Math.PI * ring / rings;
+            for (int segment = 0; segment < segments; ++segment) {
+                final double phi = 2 * Math.PI * segment / segments;
+                final int v = 1 + (ring - 1) * segments + segment;
+                mesh.vertexX[v] = (float) (radius * Math.sin(theta) * Math.cos(phi));
+                mesh.vertexY[v] = (float) (radius * Math.cos(theta));
+                mesh.vertexZ[v] = (float) (radius * Math.sin(theta) * Math.sin(phi));
+            }
+        }
+
+        final int nPolygons = rings * segments;
+        mesh.polygons.faceOffsets = new int[nPolygons + 1];
+        mesh.polygons.vertexIndices = new int[4 * nPolygons];
+        int polygonInd = 0;
+        int corner = 0;
+        for (int ring = 0; ring < rings; ++ring) {
+            for (int segment = 0; segment < segments; ++segment) {
+                final int next = (segment + 1) % segments;
+                if (ring == 0) {
+                    corner = add(mesh, corner, 0, 1 + next, 1 + segment);
+                } else if (ring == rings - 1) {
+                    final int base = 1 + (ring - 1) * segments;
+                    corner = add(mesh, corner, base + segment, base + next, nVertices - 1);
+                } else {
+                    final int base = 1 + (ring - 1) * segments;
+                    corner = add(mesh, corner, base + segment, base + next, base + segments + next, base + segments + segment);
+                }
+                mesh.polygons.faceOffsets[++polygonInd] = corner;
+            }
+        }
+        mesh.polygons.vertexIndices = Arrays.copyOf(mesh.polygons.vertexIndices, corner);
+        return mesh;
+    }
+
+    private static int add(PackedMesh mesh, int corner, int... vertexIndices) {
+        for (int vertexInd : vertexIndices) {
+            mesh.polygons.vertexIndices[corner++] = vertexInd;
+        }
+        return corner;
+    }
+}
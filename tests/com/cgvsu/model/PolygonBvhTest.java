@@ -0,0 +1,140 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.RenderEngine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+class PolygonBvhTest {
+
+    @Test
+    public void testIntersect_SameAsLinearScan() {
+        Random random = new Random(7);
+        PackedMesh mesh = createRandomTriangles(random, 20000);
+        PolygonBvh bvh = PolygonBvh.build(mesh);
+
+        PolygonBvh.Hit hit = new PolygonBvh.Hit();
+        for (int ray = 0; ray < 500; ++ray) {
+            final float ox = random.nextFloat() * 200 - 100, oy = random.nextFloat() * 200 - 100, oz = 150;
+            final float dx = random.nextFloat() - 0.5F, dy = random.nextFloat() - 0.5F, dz = -1;
+
+            // та же проверка по всем полигонам подряд, без дерева
+            int expectedPolygon = -1;
+            float expectedDistance = Float.POSITIVE_INFINITY;
+            for (int t = 0; t < mesh.getPolygonCount(); ++t) {
+                final float distance = intersectTriangle(mesh, 3 * t, ox, oy, oz, dx, dy, dz);
+                if (distance < expectedDistance) {
+                    expectedDistance = distance;
+                    expectedPolygon = t;
+                }
+            }
+
+            Assertions.assertEquals(expectedPolygon >= 0, bvh.intersect(ox, oy, oz, dx, dy, dz, hit));
+            Assertions.assertEquals(expectedPolygon, hit.polygon);
+            Assertions.assertEquals(expectedDistance, hit.distance);
+        }
+    }
+
+    @Test
+    public void testCollect_AllPolygonsOnce() {
+        PackedMesh mesh = createRandomTriangles(new Random(3), 50000);
+        PolygonBvh bvh = PolygonBvh.build(mesh);
+
+        int[] result = new int[mesh.getPolygonCount()];
+        final int count = bvh.collect((minX, minY, minZ, maxX, maxY, maxZ) -> PolygonBvh.BoxTest.INTERSECTS, result);
+        Assertions.assertEquals(mesh.getPolygonCount(), count);
+        Arrays.sort(result);
+        for (int i = 0; i < count; ++i) {
+            Assertions.assertEquals(i, result[i]);
+        }
+
+        // узлы, лежащие целиком в левой половине, отбрасываются вместе с поддеревьями
+        final int right = bvh.collect((minX, minY, minZ, maxX, maxY, maxZ) ->
+                maxX < 0 ? PolygonBvh.BoxTest.OUTSIDE : PolygonBvh.BoxTest.INTERSECTS, result);
+        boolean[] collected = new boolean[mesh.getPolygonCount()];
+        for (int i = 0; i < right; ++i) {
+            collected[result[i]] = true;
+        }
+        for (int t = 0; t < mesh.getPolygonCount(); ++t) {
+            if (maxX(mesh, t) >= 0) {
+                Assertions.assertTrue(collected[t]);
+            }
+        }
+        Assertions.assertTrue(right < count);
+    }
+
+    @Test
+    public void testPick_PolygonUnderCursor() {
+        PackedMesh mesh = new PackedMesh();
+        mesh.vertexX = new float[]{-10, 10, 0, 20, 30, 20};
+        mesh.vertexY = new float[]{-10, -10, 10, 20, 20, 30};
+        mesh.vertexZ = new float[]{0, 0, 0, 0, 0, 0};
+        mesh.polygons.faceOffsets = new int[]{0, 3, 6};
+        mesh.polygons.vertexIndices = new int[]{0, 1, 2, 3, 4, 5};
+        mesh.bvh = PolygonBvh.build(mesh);
+
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0F, 1, 0.1F, 1000);
+        PolygonBvh.Hit hit = new PolygonBvh.Hit();
+        Assertions.assertTrue(RenderEngine.pick(camera, mesh, 200, 200, 400, 400, hit));
+        Assertions.assertEquals(0, hit.polygon);
+        Assertions.assertEquals(0, hit.x, 1e-3);
+        Assertions.assertEquals(0, hit.y, 1e-3);
+        Assertions.assertEquals(0, hit.z, 1e-3);
+
+        Assertions.assertFalse(RenderEngine.pick(camera, mesh, 5, 5, 400, 400, hit));
+    }
+
+    // Мёллер-Трумбор для треугольника из углов first, first + 1, first + 2; +inf - промах
+    private static float intersectTriangle(PackedMesh mesh, int first,
+                                           float ox, float oy, float oz, float dx, float dy, float dz) {
+        final int[] indices = mesh.polygons.vertexIndices;
+        final float x0 = mesh.vertexX[indices[first]], y0 = mesh.vertexY[indices[first]], z0 = mesh.vertexZ[indices[first]];
+        final float e1x = mesh.vertexX[indices[first + 1]] - x0, e1y = mesh.vertexY[indices[first + 1]] - y0, e1z = mesh.vertexZ[indices[first + 1]] - z0;
+        final float e2x = mesh.vertexX[indices[first + 2]] - x0, e2y = mesh.vertexY[indices[first + 2]] - y0, e2z = mesh.vertexZ[indices[first + 2]] - z0;
+        final float px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        final float determinant = e1x * px + e1y * py + e1z * pz;
+        if (determinant == 0) {
+            return Float.POSITIVE_INFINITY;
+        }
+        final float inverseDeterminant = 1 / determinant;
+        final float sx = ox - x0, sy = oy - y0, sz = oz - z0;
+        final float u = (sx * px + sy * py + sz * pz) * inverseDeterminant;
+        final float qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        final float v = (dx * qx + dy * qy + dz * qz) * inverseDeterminant;
+        final float distance = (e2x * qx + e2y * qy + e2z * qz) * inverseDeterminant;
+        return u < 0 || u > 1 || v < 0 || u + v > 1 || distance < 0 ? Float.POSITIVE_INFINITY : distance;
+    }
+
+    private static float maxX(PackedMesh mesh, int polygonInd) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = mesh.polygons.getStart(polygonInd); i < mesh.polygons.getStart(polygonInd + 1); ++i) {
+            max = Math.max(max, mesh.vertexX[mesh.polygons.vertexIndices[i]]);
+        }
+        return max;
+    }
+
+    // Маленькие треугольники, разбросанные в кубе со стороной 200
+    private static PackedMesh createRandomTriangles(Random random, int nTriangles) {
+        PackedMesh mesh = new PackedMesh();
+        mesh.vertexX = new float[3 * nTriangles];
+        mesh.vertexY = new float[3 * nTriangles];
+        mesh.vertexZ = new float[3 * nTriangles];
+        mesh.polygons.faceOffsets = new int[nTriangles + 1];
+        mesh.polygons.vertexIndices = new int[3 * nTriangles];
+        for (int t = 0; t < nTriangles; ++t) {
+            final float cx = random.nextFloat() * 200 - 100, cy = random.nextFloat() * 200 - 100, cz = random.nextFloat() * 200 - 100;
+            for (int k = 0; k < 3; ++k) {
+                mesh.vertexX[3 * t + k] = cx + random.nextFloat() * 6 - 3;
+                mesh.vertexY[3 * t + k] = cy + random.nextFloat() * 6 - 3;
+                mesh.vertexZ[3 * t + k] = cz + random.nextFloat() * 6 - 3;
+                mesh.polygons.vertexIndices[3 * t + k] = 3 * t + k;
+            }
+            mesh.polygons.faceOffsets[t + 1] = 3 * (t + 1);
+        }
+        return mesh;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class PolygonStoreTest {
+
+    private static final int N_POLYGONS = 100_000;
+    private static final int N_VERTICES_IN_POLYGON = 4;
+
+    @Test
+    public void testGet_ViewOverArrays() {
+        PolygonStore store = new PolygonStore();
+        store.faceOffsets = new int[]{0, 3, 7};
+        store.vertexIndices = new int[]{0, 1, 2, 2, 3, 4, 5};
+        store.normalIndices = new int[]{-1, -1, -1, 0, 1, 2, 3};
+
+        Polygon triangle = store.get(0);
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), triangle.getVertexIndices());
+        Assertions.assertNull(triangle.getTextureVertexIndices());
+        Assertions.assertNull(triangle.getNormalIndices());
+
+        Polygon quad = store.get(1);
+        Assertions.assertEquals(Arrays.asList(2, 3, 4, 5), quad.getVertexIndices());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), quad.getNormalIndices());
+        Assertions.assertEquals(0, quad.getLineNumber());
+    }
+
+    @Test
+    public void testFromPolygons_RoundTrip() {
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(Arrays.asList(5, 6, 7)));
+        polygon.setTextureVertexIndices(new ArrayList<>(Arrays.asList(1, 2, 3)));
+        polygon.setLineNumber(12);
+
+        PolygonStore store = PolygonStore.fromPolygons(List.of(polygon));
+        Assertions.assertArrayEquals(new int[]{5, 6, 7}, store.vertexIndices);
+        Assertions.assertArrayEquals(new int[]{1, 2, 3}, store.textureVertexIndices);
+        Assertions.assertNull(store.normalIndices);
+        Assertions.assertEquals(polygon.getVertexIndices(), store.get(0).getVertexIndices());
+        Assertions.assertEquals(12, store.get(0).getLineNumber());
+    }
+
+    // Те же четырёхугольники с текстурами и нормалями: три ArrayList<Integer> на полигон против плоских int[]
+    @Test
+    public void testMemoryFootprint_SmallerThanBoxedLists() {
+        long before = usedMemory();
+        List<List<ArrayList<Integer>>> boxed = createBoxedPolygons();
+        long boxedBytes = usedMemory() - before;
+
+        before = usedMemory();
+        PolygonStore store = createStore();
+        long storeBytes = usedMemory() - before;
+
+        Assertions.assertEquals(N_POLYGONS, boxed.size());
+        Assertions.assertEquals(N_POLYGONS, store.size());
+        // ArrayList + Integer на каждый индекс - это порядка 80 байт на угол, в хранилище - 12
+        Assertions.assertTrue(storeBytes * 4 < boxedBytes,
+                "PolygonStore: " + storeBytes + " байт, ArrayList<Integer>: " + boxedBytes + " байт");
+    }
+
+    private static List<List<ArrayList<Integer>>> createBoxedPolygons() {
+        List<List<ArrayList<Integer>>> polygons = new ArrayList<>(N_POLYGONS);
+        for (int polygonInd = 0; polygonInd < N_POLYGONS; ++polygonInd) {
+            ArrayList<Integer> vertices = new ArrayList<>();
+            ArrayList<Integer> textures = new ArrayList<>();
+            ArrayList<Integer> normals = new ArrayList<>();
+            for (int i = 0; i < N_VERTICES_IN_POLYGON; ++i) {
+                // индексы больше 127, чтобы Integer не брались из кэша, как в настоящих моделях
+                final int index = 1000 + polygonInd * N_VERTICES_IN_POLYGON + i;
+                vertices.add(index);
+                textures.add(index);
+                normals.add(index);
+            }
+            polygons.add(List.of(vertices, textures, normals));
+        }
+        return polygons;
+    }
+
+    private static PolygonStore createStore() {
+        final int nCorners = N_POLYGONS * N_VERTICES_IN_POLYGON;
+        PolygonStore store = new PolygonStore();
+        store.faceOffsets = new int[N_POLYGONS + 1];
+        store.vertexIndices = new int[nCorners];
+        store.textureVertexIndices = new int[nCorners];
+        store.normalIndices = new int[nCorners];
+        for (int polygonInd = 0; polygonInd < N_POLYGONS; ++polygonInd) {
+            store.faceOffsets[polygonInd + 1] = (polygonInd + 1) * N_VERTICES_IN_POLYGON;
+        }
+        for (int i = 0; i < nCorners; ++i) {
+            store.vertexIndices[i] = 1000 + i;
+            store.textureVertexIndices[i] = 1000 + i;
+            store.normalIndices[i] = 1000 + i;
+        }
+        return store;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,163 @@
+package com.cgvsu.model;
+
+import com.cgvsu.objWriter.objWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class VertexNormalsTest {
+
+    // У куба с гранями наружу нормаль вершины смотрит из центра на эту вершину
+    @Test
+    public void testCube_NormalsPointOutward() {
+        PackedMesh cube = new PackedMesh();
+        cube.vertexX = new float[]{0, 1, 1, 0, 0, 1, 1, 0};
+        cube.vertexY = new float[]{0, 0, 1, 1, 0, 0, 1, 1};
+        cube.vertexZ = new float[]{0, 0, 0, 0, 1, 1, 1, 1};
+        cube.polygons.faceOffsets = new int[]{0, 4, 8, 12, 16, 20, 24};
+        cube.polygons.vertexIndices = new int[]{
+                0, 3, 2, 1,
+                4, 5, 6, 7,
+                0, 1, 5, 4,
+                1, 2, 6, 5,
+                2, 3, 7, 6,
+                3, 0, 4, 7};
+
+        VertexNormals.build(cube);
+        Assertions.assertEquals(8, cube.getNormalCount());
+        Assertions.assertTrue(cube.polygons.hasNormalIndices(0));
+        final float component = (float) (1 / Math.sqrt(3));
+        for (int i = 0; i < 8; ++i) {
+            Assertions.assertEquals((2 * cube.vertexX[i] - 1) * component, cube.normalX[i], 1e-6F);
+            Assertions.assertEquals((2 * cube.vertexY[i] - 1) * component, cube.normalY[i], 1e-6F);
+            Assertions.assertEquals((2 * cube.vertexZ[i] - 1) * component, cube.normalZ[i], 1e-6F);
+        }
+    }
+
+    // Несколько кусков полигонов с перекрывающимися окнами; число потоков на результат не влияет
+    @Test
+    public void testSeveralChunks_SameOnAnyPool() {
+        PackedMesh first = createWavyGrid(300);
+        PackedMesh second = createWavyGrid(300);
+        Assertions.assertTrue(first.getPolygonCount() > 2 * VertexNormals.FACES_PER_CHUNK);
+
+        VertexNormals.build(first, ForkJoinPool.commonPool());
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            VertexNormals.build(second, pool);
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertArrayEquals(first.normalX, second.normalX);
+        Assertions.assertArrayEquals(first.normalY, second.normalY);
+        Assertions.assertArrayEquals(first.normalZ, second.normalZ);
+
+        // сетка почти плоская и обходится против часовой стрелки, если смотреть сверху
+        for (int i = 0; i < first.getVertexCount(); ++i) {
+            final float x = first.normalX[i], y = first.normalY[i], z = first.normalZ[i];
+            Assertions.assertEquals(1, x * x + y * y + z * z, 1e-5F);
+            Assertions.assertTrue(y > 0.5F);
+        }
+    }
+
+    // Вершины перенумерованы вразброс: окна кусков накрывают почти всю модель, и суммы копятся
+    // в одном потоке. Нормали те же, что у сетки с соседними номерами, только под новыми номерами
+    @Test
+    public void testScatteredIndices_SerialFallbackSameNormals() {
+        PackedMesh ordered = createWavyGrid(410);
+        PackedMesh scattered = createWavyGrid(410);
+        final int nVertices = ordered.getVertexCount();
+        int[] newIndex = new int[nVertices];
+        for (int i = 0; i < nVertices; ++i) {
+            newIndex[i] = i;
+        }
+        Random random = new Random(5);
+        for (int i = nVertices - 1; i > 0; --i) {
+            final int j = random.nextInt(i + 1);
+            final int swap = newIndex[i];
+            newIndex[i] = newIndex[j];
+            newIndex[j] = swap;
+        }
+        for (int i = 0; i < nVertices; ++i) {
+            scattered.vertexX[newIndex[i]] = ordered.vertexX[i];
+            scattered.vertexY[newIndex[i]] = ordered.vertexY[i];
+            scattered.vertexZ[newIndex[i]] = ordered.vertexZ[i];
+        }
+        final int[] indices = scattered.polygons.vertexIndices;
+        for (int i = 0; i < indices.length; ++i) {
+            indices[i] = newIndex[indices[i]];
+        }
+        Assertions.assertTrue(VertexNormals.windowsSize(scattered.polygons) > (long) VertexNormals.MAX_WINDOW_OVERLAP * nVertices);
+        Assertions.assertTrue(VertexNormals.windowsSize(ordered.polygons) <= (long) VertexNormals.MAX_WINDOW_OVERLAP * nVertices);
+
+        VertexNormals.build(ordered);
+        VertexNormals.build(scattered);
+        for (int i = 0; i < nVertices; ++i) {
+            Assertions.assertEquals(ordered.normalX[i], scattered.normalX[newIndex[i]], 1e-6F);
+            Assertions.assertEquals(ordered.normalY[i], scattered.normalY[newIndex[i]], 1e-6F);
+            Assertions.assertEquals(ordered.normalZ[i], scattered.normalZ[newIndex[i]], 1e-6F);
+        }
+    }
+
+    @Test
+    public void testWriter_WritesGeneratedNormals() throws IOException {
+        PackedMesh triangle = new PackedMesh();
+        triangle.vertexX = new float[]{0, 1, 0};
+        triangle.vertexY = new float[]{0, 0, 1};
+        triangle.vertexZ = new float[]{0, 0, 0};
+        triangle.polygons.faceOffsets = new int[]{0, 3};
+        triangle.polygons.vertexIndices = new int[]{0, 1, 2};
+        VertexNormals.build(triangle);
+
+        Path file = Files.createTempFile("normals", ".obj");
+        try {
+            new objWriter().write(triangle, file.toString());
+            String text = Files.readString(file);
+            Assertions.assertEquals(3, text.split("vn 0.0 0.0 1.0", -1).length - 1);
+            Assertions.assertTrue(text.contains("f 1//1 2//2 3//3"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // n x n треугольников-пар в плоскости XZ с небольшими волнами по высоте
+    private static PackedMesh createWavyGrid(int n) {
+        PackedMesh mesh = new PackedMesh();
+        final int side = n + 1;
+        mesh.vertexX = new float[side * side];
+        mesh.vertexY = new float[side * side];
+        mesh.vertexZ = new float[side * side];
+        for (int row = 0; row < side; ++row) {
+            for (int column = 0; column < side; ++column) {
+                mesh.vertexX[row * side + column] = column;
+                mesh.vertexY[row * side + column] = 0.2F * (float) Math.sin(0.3 * column + 0.7 * row);
+                mesh.vertexZ[row * side + column] = -row;
+            }
+        }
+        mesh.polygons.faceOffsets = new int[2 * n * n + 1];
+        mesh.polygons.vertexIndices = new int[6 * n * n];
+        int face = 0;
+        for (int row = 0; row < n; ++row) {
+            for (int column = 0; column < n; ++column) {
+                final int corner = row * side + column;
+                final int[] indices = mesh.polygons.vertexIndices;
+                indices[3 * face] = corner;
+                indices[3 * face + 1] = corner + 1;
+                indices[3 * face + 2] = corner + side + 1;
+                mesh.polygons.faceOffsets[face + 1] = 3 * (face + 1);
+                ++face;
+                indices[3 * face] = corner;
+                indices[3 * face + 1] = corner + side + 1;
+                indices[3 * face + 2] = corner + side;
+                mesh.polygons.faceOffsets[face + 1] = 3 * (face + 1);
+                ++face;
+            }
+        }
+        return mesh;
+    }
+}
@@ -1,12 +1,19 @@
 package com.cgvsu.objreader;
 
 import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
 import com.cgvsu.model.Polygon;
+import com.cgvsu.objWriter.objWriter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 class ObjReaderTest {
 
@@ -148,4 +155,150 @@ class ObjReaderTest {
             Assertions.assertTrue(e.getMessage().contains("Polygon must have at least 3 vertices"));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParseFace_AllFormats() {
+        // f 1//1 2//2 3//3 и хвостовые '/' как у split("/")
+        ArrayList<String> words = new ArrayList<>(Arrays.asList("1//1", "2//2/", "3//3"));
+        Polygon polygon = ObjReader.parseFace(words, 7);
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), polygon.getVertexIndices());
+        Assertions.assertNull(polygon.getTextureVertexIndices());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), polygon.getNormalIndices());
+
+        words = new ArrayList<>(Arrays.asList("1/1/1", "2/2/2", "3/3/3/4"));
+        try {
+            ObjReader.parseFace(words, 7);
+            Assertions.fail("Должно быть исключение");
+        } catch (ObjReaderException e) {
+            Assertions.assertEquals("Error parsing OBJ file on line: 7. Invalid element size.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParseFace_MixedFormats() {
+        // f 1/1 2 3 - у части вершин нет текстуры
+        ArrayList<String> words = new ArrayList<>(Arrays.asList("1/1", "2", "3"));
+        try {
+            ObjReader.parseFace(words, 8);
+            Assertions.fail("Должно быть исключение");
+        } catch (ObjReaderException e) {
+            Assertions.assertEquals("Error parsing OBJ file on line: 8. Polygon must have texture indices for every vertex.", e.getMessage());
+        }
+    }
+
+    //================= разбор чисел без строк =================
+
+    @Test
+    public void testParseFloat_SameAsJdk() {
+        String[] values = {"0", "-0", "1.0", "-12.345678", "0.000001", "1e-5", "3.4E+38", "123.456789", ".5", "7.", "1f", "NaN"};
+        for (String value : values) {
+            byte[] bytes = value.getBytes();
+            Assertions.assertEquals(Float.parseFloat(value), AsciiNumbers.parseFloat(bytes, 0, bytes.length), value);
+        }
+    }
+
+    @Test
+    public void testParseInt_Overflow() {
+        byte[] bytes = "2147483648".getBytes();
+        Assertions.assertThrows(NumberFormatException.class, () -> AsciiNumbers.parseInt(bytes, 0, bytes.length));
+    }
+
+    @Test
+    public void testRead_LineNumbersWithCrLf() {
+        try {
+            ObjReader.read("v 1 2 3\r\nv 1 2 3\r\n\r\nv 1 2 3\r\nf 1 2 x\r\n");
+            Assertions.fail("Должно быть исключение");
+        } catch (ObjReaderException e) {
+            Assertions.assertEquals("Error parsing OBJ file on line: 5. Failed to parse int value.", e.getMessage());
+        }
+    }
+
+    //================= параллельное чтение =================
+
+    private static final String PARALLEL_FIXTURE = String.join("\r\n",
+            "# куб",
+            "v 1.01 1.02 1.03",
+            "v -1.0 0.5 2.5",
+            "v 0.0 1.0 0.0",
+            "v 4.0 5.0 6.0",
+            "vt 0.5 0.5",
+            "vt 1 0",
+            "vn 0.0 1.0 0.0",
+            "",
+            "f 1 2 3",
+            "f 1/1 2/2 3/1 4/2",
+            "f 1//1 2//1 3//1",
+            "f 1/2/1 2/1/1 4/2/1",
+            "");
+
+    @Test
+    public void testReadParallel_SameAsSerial() throws Exception {
+        Path file = Files.createTempFile("parallel", ".obj");
+        try {
+            Files.writeString(file, PARALLEL_FIXTURE.repeat(50));
+            Model serial = ObjReader.read(file);
+            // маленькие куски, чтобы границы попадали в середину файла
+            Model parallel = ParallelObjReader.read(file, ForkJoinPool.commonPool(), 100, true, ReadProgress.NONE).toModel();
+
+            objWriter writer = new objWriter();
+            Assertions.assertEquals(writer.writeToString(serial), writer.writeToString(parallel));
+            for (int i = 0; i < serial.getPolygons().size(); i++) {
+                Assertions.assertEquals(serial.getPolygons().get(i).getLineNumber(), parallel.getPolygons().get(i).getLineNumber());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadParallel_SameErrorAsSerial() throws Exception {
+        Path file = Files.createTempFile("parallel", ".obj");
+        try {
+            Files.writeString(file, PARALLEL_FIXTURE.repeat(30) + "f 1 2 9999\r\n" + PARALLEL_FIXTURE.repeat(30));
+            ObjReaderException serial = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read(file));
+            ObjReaderException parallel = Assertions.assertThrows(ObjReaderException.class,
+                    () -> ParallelObjReader.read(file, ForkJoinPool.commonPool(), 100, true, ReadProgress.NONE));
+            Assertions.assertEquals(serial.getMessage(), parallel.getMessage());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadParallel_ProgressAndCancel() throws Exception {
+        Path file = Files.createTempFile("parallel", ".obj");
+        try {
+            Files.writeString(file, PARALLEL_FIXTURE.repeat(50));
+            final long size = Files.size(file);
+            AtomicLong lastParsed = new AtomicLong();
+            ParallelObjReader.read(file, ForkJoinPool.commonPool(), 100, false, new ReadProgress() {
+                @Override
+                public void update(long bytesParsed, long totalBytes) {
+                    Assertions.assertEquals(size, totalBytes);
+                    lastParsed.accumulateAndGet(bytesParsed, Math::max);
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return false;
+                }
+            });
+            Assertions.assertEquals(size, lastParsed.get());
+
+            // отменённое чтение не возвращает модель
+            Assertions.assertThrows(CancellationException.class,
+                    () -> ParallelObjReader.read(file, ForkJoinPool.commonPool(), 100, false, new ReadProgress() {
+                        @Override
+                        public void update(long bytesParsed, long totalBytes) {
+                        }
+
+                        @Override
+                        public boolean isCancelled() {
+                            return true;
+                        }
+                    }));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
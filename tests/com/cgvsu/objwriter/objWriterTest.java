@@ -5,11 +5,12 @@ import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
 import com.cgvsu.model.Polygon;
 import com.cgvsu.objWriter.objWriter;
-import org.junit.Test;
+import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Random;
 
-import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class objWriterTest {
 
@@ -19,8 +20,8 @@ public class objWriterTest {
         objWriter writer = new objWriter();
 
         String result = writer.writeToString(model);
-        assertNotNull("Результат не должен быть null", result);
-        assertTrue("Результат должен быть пустым", result.trim().isEmpty());
+        assertNotNull(result, "Результат не должен быть null");
+        assertTrue(result.trim().isEmpty(), "Результат должен быть пустым");
     }
 
     @Test
@@ -32,7 +33,7 @@ public class objWriterTest {
         objWriter writer = new objWriter();
         String content = writer.writeToString(model);
 
-        assertTrue("Должно записаться v 1.0 2.0 3.0", content.contains("v 1.0 2.0 3.0"));
+        assertTrue(content.contains("v 1.0 2.0 3.0"), "Должно записаться v 1.0 2.0 3.0");
     }
 
     @Test
@@ -65,7 +66,7 @@ public class objWriterTest {
         objWriter writer = new objWriter();
         String content = writer.writeToString(model);
 
-        assertTrue("Должно быть f 1 2 3 4", content.contains("f 1 2 3 4"));
+        assertTrue(content.contains("f 1 2 3 4"), "Должно быть f 1 2 3 4");
     }
 
     @Test
@@ -109,7 +110,7 @@ public class objWriterTest {
         objWriter writer = new objWriter();
         String content = writer.writeToString(model);
 
-        assertTrue("Должно быть f 1/1 2/2 3/3", content.contains("f 1/1 2/2 3/3"));
+        assertTrue(content.contains("f 1/1 2/2 3/3"), "Должно быть f 1/1 2/2 3/3");
     }
 
     @Test
@@ -153,7 +154,7 @@ public class objWriterTest {
         objWriter writer = new objWriter();
         String content = writer.writeToString(model);
 
-        assertTrue("Должно быть f 1//1 2//2 3//3", content.contains("f 1//1 2//2 3//3"));
+        assertTrue(content.contains("f 1//1 2//2 3//3"), "Должно быть f 1//1 2//2 3//3");
     }
 
     @Test
@@ -206,27 +207,46 @@ public class objWriterTest {
         objWriter writer = new objWriter();
         String content = writer.writeToString(model);
 
-        assertTrue("Должно быть f 1/1/1 2/2/2 3/3/3", content.contains("f 1/1/1 2/2/2 3/3/3"));
+        assertTrue(content.contains("f 1/1/1 2/2/2 3/3/3"), "Должно быть f 1/1/1 2/2/2 3/3/3");
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
     public void testNullModel() throws Exception {
         Model model = null;
         objWriter writer = new objWriter();
-        writer.writeToString(model);
+        assertThrows(IllegalArgumentException.class, () -> writer.writeToString(model));
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
     public void testNullPath() throws Exception {
         Model model = new Model();
         objWriter writer = new objWriter();
-        writer.write(model, null);
+        assertThrows(IllegalArgumentException.class, () -> writer.write(model, null));
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
     public void testEmptyPath() throws Exception {
         Model model = new Model();
         objWriter writer = new objWriter();
-        writer.write(model, "");
+        assertThrows(IllegalArgumentException.class, () -> writer.write(model, ""));
+    }
+
+    @Test
+    public void testFloatFormat_SameAsFloatToString() throws Exception {
+        Model model = new Model();
+        StringBuilder expected = new StringBuilder();
+        Random random = new Random(7);
+        float[] special = {0.0f, -0.0f, 1.0f, -1.5f, 0.1f, 0.001f, 9999999.0f, 1.0e7f, 1.0e-4f, 3.4028235e38f, Float.MIN_VALUE};
+        for (int i = 0; i < 3000; i++) {
+            float x = i < special.length ? special[i] : (float) ((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(10) - 3));
+            float y = Float.intBitsToFloat(random.nextInt());
+            float z = Math.round(random.nextFloat() * 100000) / 10000.0f;
+            model.vertices.add(new Vector3f(x, y, z));
+            expected.append("v ").append(Float.toString(x)).append(" ").append(Float.toString(y)).append(" ")
+                    .append(Float.toString(z)).append(System.lineSeparator());
+        }
+
+        objWriter writer = new objWriter();
+        assertEquals(expected.toString(), writer.writeToString(model));
     }
-}
\ No newline at end of file
+}
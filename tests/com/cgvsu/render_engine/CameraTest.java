@@ -0,0 +1,65 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CameraTest {
+
+    @Test
+    public void testMatrices_RecomputedOnlyAfterChange() {
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0F, 1.5F, 0.1F, 1000);
+        final Matrix4f viewProjection = new Matrix4f(camera.getViewProjectionMatrix());
+        final long version = camera.getVersion();
+
+        camera.setAspectRatio(1.5F);
+        Assertions.assertEquals(version, camera.getVersion());
+        Assertions.assertSame(camera.getViewMatrix(), camera.getViewMatrix());
+
+        camera.movePosition(new Vector3f(0, 0, 10));
+        Assertions.assertNotEquals(version, camera.getVersion());
+        Matrix4f expected = GraphicConveyor.lookAt(new Vector3f(0, 0, 110), new Vector3f(0, 0, 0));
+        expected.mul(GraphicConveyor.perspective(1.0F, 1.5F, 0.1F, 1000));
+        Assertions.assertEquals(expected, camera.getViewProjectionMatrix());
+        Assertions.assertNotEquals(viewProjection, camera.getViewProjectionMatrix());
+
+        // сдвигается цель на переданный вектор, а не сама на себя
+        camera.moveTarget(new Vector3f(1, 2, 3));
+        Assertions.assertTrue(camera.getTarget().equals(new Vector3f(1, 2, 3)));
+    }
+
+    @Test
+    public void testTransform_SkippedWhileCameraStill() {
+        PackedMesh mesh = new PackedMesh();
+        mesh.vertexX = new float[]{0, 10, 0};
+        mesh.vertexY = new float[]{0, 0, 10};
+        mesh.vertexZ = new float[]{0, 0, 0};
+        mesh.polygons.faceOffsets = new int[]{0, 3};
+        mesh.polygons.vertexIndices = new int[]{0, 1, 2};
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0F, 1, 0.1F, 1000);
+        ScreenSpaceBuffer screen = new ScreenSpaceBuffer();
+        RenderSettings settings = new RenderSettings();
+        FrameBuffer frame = new FrameBuffer();
+        frame.resize(100, 100);
+
+        RenderEngine.rasterize(frame, camera, mesh, 100, 100, screen, settings);
+        final float x = screen.x[1];
+
+        // вершину подвинули на месте, а камера та же: кадр берёт старые координаты, пока буфер не сброшен
+        mesh.vertexX[1] = 20;
+        RenderEngine.rasterize(frame, camera, mesh, 100, 100, screen, settings);
+        Assertions.assertEquals(x, screen.x[1]);
+
+        screen.invalidate();
+        RenderEngine.rasterize(frame, camera, mesh, 100, 100, screen, settings);
+        Assertions.assertNotEquals(x, screen.x[1]);
+
+        // камера сдвинулась - пересчёт без всякого сброса
+        final float moved = screen.x[1];
+        camera.movePosition(new Vector3f(5, 0, 0));
+        RenderEngine.rasterize(frame, camera, mesh, 100, 100, screen, settings);
+        Assertions.assertNotEquals(moved, screen.x[1]);
+    }
+}
@@ -0,0 +1,58 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.PackedMesh;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CullingTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+
+    @Test
+    public void testBackFaceCulling_CounterClockwiseIsFront() {
+        PackedMesh front = RenderTestSupport.createPolygon(new float[]{0, 0, 0, 10, 0, 0, 0, 10, 0}, 0, 1, 2);
+        PackedMesh back = RenderTestSupport.createPolygon(new float[]{0, 0, 0, 10, 0, 0, 0, 10, 0}, 0, 2, 1);
+
+        RenderSettings settings = RenderTestSupport.serialSettings();
+        settings.backFaceCulling = true;
+        Assertions.assertTrue(RenderTestSupport.countPixels(rasterize(front, settings)) > 0);
+        Assertions.assertEquals(0, RenderTestSupport.countPixels(rasterize(back, settings)));
+
+        settings.backFaceCulling = false;
+        Assertions.assertEquals(RenderTestSupport.countPixels(rasterize(front, settings)), RenderTestSupport.countPixels(rasterize(back, settings)));
+    }
+
+    @Test
+    public void testPolygonBehindCamera_Culled() {
+        PackedMesh mesh = RenderTestSupport.createPolygon(new float[]{0, 0, 150, 10, 0, 150, 0, 10, 150}, 0, 1, 2);
+        Assertions.assertEquals(0, RenderTestSupport.countPixels(rasterize(mesh, RenderTestSupport.serialSettings())));
+
+        ScreenSpaceBuffer screen = new ScreenSpaceBuffer();
+        RenderEngine.rasterize(new FrameBuffer(), RenderTestSupport.createCamera(WIDTH, HEIGHT), mesh, WIDTH, HEIGHT, screen, RenderTestSupport.serialSettings());
+        Assertions.assertEquals(Culling.CULLED, Culling.classify(screen, mesh.polygons.vertexIndices, 0, 3, false));
+    }
+
+    // Пол, уходящий из-под камеры назад, без отсечения по ближней плоскости не рисовался совсем
+    @Test
+    public void testPolygonCrossingNearPlane_ClippedAndSameWhenTiled() {
+        PackedMesh floor = RenderTestSupport.createPolygon(new float[]{-50, -5, -100, 50, -5, -100, 50, -5, 200, -50, -5, 200}, 0, 1, 2, 3);
+
+        FrameBuffer serial = rasterize(floor, RenderTestSupport.serialSettings());
+        FrameBuffer tiled = rasterize(floor, new RenderSettings());
+        Assertions.assertTrue(RenderTestSupport.countPixels(serial) > 0);
+        for (int i = 0; i < WIDTH * HEIGHT; ++i) {
+            Assertions.assertEquals(serial.color[i], tiled.color[i]);
+            Assertions.assertEquals(serial.depth[i], tiled.depth[i]);
+            Assertions.assertTrue(serial.depth[i] == Float.POSITIVE_INFINITY || Math.abs(serial.depth[i]) <= 1);
+        }
+        // пол под камерой: нижняя строка кадра закрашена вся
+        for (int x = 0; x < WIDTH; ++x) {
+            Assertions.assertNotEquals(0, serial.color[(HEIGHT - 1) * WIDTH + x]);
+        }
+    }
+
+    private static FrameBuffer rasterize(PackedMesh mesh, RenderSettings settings) {
+        return RenderTestSupport.rasterize(mesh, WIDTH, HEIGHT, settings);
+    }
+}
@@ -0,0 +1,159 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ModelInstanceTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+
+    // Готовая матрица совпадает с произведением масштаба, трёх поворотов и переноса
+    @Test
+    public void testRotateScaleTranslate_SameAsElementaryMatrices() {
+        final float rx = 0.3F, ry = -1.2F, rz = 2.5F;
+        Matrix4f scale = new Matrix4f(new float[]{
+                2, 0, 0, 0,
+                0, 3, 0, 0,
+                0, 0, 0.5F, 0,
+                0, 0, 0, 1});
+        Matrix4f rotationX = new Matrix4f(new float[]{
+                1, 0, 0, 0,
+                0, cos(rx), sin(rx), 0,
+                0, -sin(rx), cos(rx), 0,
+                0, 0, 0, 1});
+        Matrix4f rotationY = new Matrix4f(new float[]{
+                cos(ry), 0, -sin(ry), 0,
+                0, 1, 0, 0,
+                sin(ry), 0, cos(ry), 0,
+                0, 0, 0, 1});
+        Matrix4f rotationZ = new Matrix4f(new float[]{
+                cos(rz), sin(rz), 0, 0,
+                -sin(rz), cos(rz), 0, 0,
+                0, 0, 1, 0,
+                0, 0, 0, 1});
+        Matrix4f translation = new Matrix4f(new float[]{
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, 1, 0,
+                4, -5, 6, 1});
+        Matrix4f expected = new Matrix4f(scale).mul(rotationX).mul(rotationY).mul(rotationZ).mul(translation);
+
+        Matrix4f actual = GraphicConveyor.rotateScaleTranslate(2, 3, 0.5F, rx, ry, rz, 4, -5, 6, new Matrix4f());
+        Assertions.assertTrue(expected.epsilonEquals(actual, 1e-5F));
+    }
+
+    @Test
+    public void testModelViewProjection_CachedUntilTransformOrCameraChanges() {
+        Camera camera = RenderTestSupport.createCamera(WIDTH, HEIGHT);
+        ModelInstance instance = new ModelInstance(createTriangle());
+
+        Matrix4f first = instance.getModelViewProjection(camera);
+        Matrix4f copy = new Matrix4f(first);
+        Assertions.assertSame(first, instance.getModelViewProjection(camera));
+        Assertions.assertEquals(copy, instance.getModelViewProjection(camera));
+
+        instance.transform.translate(10, 0, 0);
+        Assertions.assertNotEquals(copy, instance.getModelViewProjection(camera));
+        Matrix4f expected = new Matrix4f().mul(instance.transform.getMatrix(), camera.getViewProjectionMatrix());
+        Assertions.assertEquals(expected, instance.getModelViewProjection(camera));
+
+        copy.set(instance.getModelViewProjection(camera));
+        camera.movePosition(new Vector3f(0, 0, 10));
+        Assertions.assertNotEquals(copy, instance.getModelViewProjection(camera));
+    }
+
+    // Две копии одной сетки рисуются в разных местах кадра, а сетка в памяти одна
+    @Test
+    public void testInstances_ShareMeshAndDrawAtOwnPlaces() {
+        ModelInstance left = new ModelInstance(createTriangle());
+        left.transform.setTranslation(-30, 0, 0);
+        ModelInstance right = left.copy();
+        right.transform.setTranslation(30, 0, 0);
+        right.transform.setRotation(0, 0, (float) Math.PI / 2);
+        Assertions.assertSame(left.mesh, right.mesh);
+
+        RenderSettings settings = RenderTestSupport.serialSettings();
+        FrameBuffer frame = RenderTestSupport.createFrame(WIDTH, HEIGHT);
+        Camera camera = RenderTestSupport.createCamera(WIDTH, HEIGHT);
+        for (ModelInstance instance : List.of(left, right)) {
+            RenderEngine.rasterize(frame, camera, instance, WIDTH, HEIGHT, new ScreenSpaceBuffer(), settings);
+        }
+
+        int leftPixels = 0, middlePixels = 0, rightPixels = 0;
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (frame.color[y * WIDTH + x] == 0) {
+                    continue;
+                }
+                if (x < WIDTH / 3) {
+                    ++leftPixels;
+                } else if (x < 2 * WIDTH / 3) {
+                    ++middlePixels;
+                } else {
+                    ++rightPixels;
+                }
+            }
+        }
+        Assertions.assertTrue(leftPixels > 0);
+        Assertions.assertEquals(0, middlePixels);
+        Assertions.assertTrue(rightPixels > 0);
+    }
+
+    // Сотни копий рисуются через пул из 16 буферов: память не растёт с числом копий,
+    // а копии, которым хватило буфера, не преобразуются заново из-за сдвига соседней
+    @Test
+    public void testScreenBufferPool_BoundedForHundredsOfCopies() {
+        ModelInstance original = new ModelInstance(createTriangle());
+        List<ModelInstance> copies = new ArrayList<>();
+        for (int i = 0; i < 500; ++i) {
+            ModelInstance copy = original.copy();
+            copy.transform.setTranslation(-50 + 0.2F * i, 0, 0);
+            copies.add(copy);
+        }
+
+        Camera camera = RenderTestSupport.createCamera(WIDTH, HEIGHT);
+        RenderSettings settings = new RenderSettings();
+        FrameBuffer frame = new FrameBuffer();
+        frame.resize(WIDTH, HEIGHT);
+        ScreenBufferPool pool = new ScreenBufferPool(16);
+        for (ModelInstance instance : copies) {
+            RenderEngine.rasterize(frame, camera, instance, WIDTH, HEIGHT, pool.acquire(instance), settings);
+        }
+        ScreenSpaceBuffer single = new ScreenSpaceBuffer();
+        RenderEngine.rasterize(frame, camera, original, WIDTH, HEIGHT, single, settings);
+        Assertions.assertEquals(16, pool.getBufferCount());
+        Assertions.assertTrue(pool.getMemoryBytes() <= 16 * single.getMemoryBytes());
+
+        ModelInstance last = copies.get(499);
+        ModelInstance previous = copies.get(498);
+        ScreenSpaceBuffer lastScreen = pool.acquire(last);
+        Assertions.assertTrue(lastScreen.isTransformed(last.mesh, last.transform, camera, WIDTH, HEIGHT));
+        last.transform.translate(5, 0, 0);
+        Assertions.assertFalse(lastScreen.isTransformed(last.mesh, last.transform, camera, WIDTH, HEIGHT));
+        Assertions.assertTrue(pool.acquire(previous).isTransformed(previous.mesh, previous.transform, camera, WIDTH, HEIGHT));
+
+        // вытесненная копия получает буфер другой копии и преобразуется заново
+        ModelInstance first = copies.get(0);
+        Assertions.assertFalse(pool.acquire(first).isTransformed(first.mesh, first.transform, camera, WIDTH, HEIGHT));
+        Assertions.assertEquals(16, pool.getBufferCount());
+    }
+
+    private static PackedMesh createTriangle() {
+        return RenderTestSupport.createPolygon(new float[]{-5, -5, 0, 5, -5, 0, 0, 5, 0}, 0, 1, 2);
+    }
+
+    private static float cos(float angle) {
+        return (float) Math.cos(angle);
+    }
+
+    private static float sin(float angle) {
+        return (float) Math.sin(angle);
+    }
+}
@@ -0,0 +1,141 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.PackedMesh;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+class RasterizerTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+
+    // Тайлы в нескольких потоках дают тот же кадр, что заливка без тайлов, пиксель в пиксель
+    @Test
+    public void testTiled_SameAsSerial() {
+        PackedMesh mesh = createRandomTriangles(new Random(11), 400);
+        assertTiledSameAsSerial(mesh);
+    }
+
+    // То же с нормалями вершин: яркость углов считается и в тайлах, и при отсечении ближней плоскостью
+    @Test
+    public void testTiled_SameAsSerialWithVertexNormals() {
+        Random random = new Random(12);
+        PackedMesh mesh = createRandomTriangles(random, 400);
+        final int nVertices = mesh.getVertexCount();
+        mesh.normalX = new float[nVertices];
+        mesh.normalY = new float[nVertices];
+        mesh.normalZ = new float[nVertices];
+        for (int i = 0; i < nVertices; ++i) {
+            mesh.normalX[i] = random.nextFloat() - 0.5F;
+            mesh.normalY[i] = random.nextFloat() - 0.5F;
+            mesh.normalZ[i] = random.nextFloat() - 0.5F;
+        }
+        mesh.polygons.normalIndices = mesh.polygons.vertexIndices.clone();
+        assertTiledSameAsSerial(mesh);
+    }
+
+    // По нормалям вершин яркость плавно меняется внутри треугольника (Гуро), без них он залит одним цветом
+    @Test
+    public void testGouraud_IntensityInterpolatedFromVertexNormals() {
+        // свет идёт от камеры вдоль z: первая вершина освещена полностью, вторая - только фоновым светом
+        float[] coordinates = {-60, -60, 0, 60, -60, 0, 0, 60, 0};
+        PackedMesh flat = RenderTestSupport.createTriangles(coordinates, 0, 1, 2);
+        PackedMesh smooth = RenderTestSupport.createTriangles(coordinates, 0, 1, 2);
+        smooth.normalX = new float[]{0, 1, 0};
+        smooth.normalY = new float[]{0, 0, 1};
+        smooth.normalZ = new float[]{1, 0, 1};
+        smooth.polygons.normalIndices = new int[]{0, 1, 2};
+
+        FrameBuffer flatFrame = rasterize(flat, RenderTestSupport.serialSettings());
+        FrameBuffer smoothFrame = rasterize(smooth, RenderTestSupport.serialSettings());
+        Assertions.assertEquals(1, countColors(flatFrame));
+        Assertions.assertTrue(countColors(smoothFrame) > 10);
+        Assertions.assertArrayEquals(flatFrame.depth, smoothFrame.depth);
+
+        // камера смотрит вдоль -z, и ось x мира на экране идёт справа налево
+        final int nearFirst = toPixel(flatFrame, 5, -5);
+        final int nearSecond = toPixel(flatFrame, -5, -5);
+        Assertions.assertEquals(flatFrame.color[nearFirst], flatFrame.color[nearSecond]);
+        Assertions.assertTrue((smoothFrame.color[nearFirst] & 0xFF) > (smoothFrame.color[nearSecond] & 0xFF));
+    }
+
+    private static void assertTiledSameAsSerial(PackedMesh mesh) {
+        FrameBuffer serial = rasterize(mesh, RenderTestSupport.serialSettings());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RenderSettings tiledSettings = new RenderSettings();
+            tiledSettings.pool = pool;
+            FrameBuffer tiled = rasterize(mesh, tiledSettings);
+            Assertions.assertArrayEquals(serial.color, tiled.color);
+            Assertions.assertArrayEquals(serial.depth, tiled.depth);
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertTrue(RenderTestSupport.countPixels(serial) > WIDTH * HEIGHT / 4);
+    }
+
+    // Отдельные треугольники со случайными вершинами, часть пересекает ближнюю плоскость
+    private static PackedMesh createRandomTriangles(Random random, int nTriangles) {
+        float[] coordinates = new float[9 * nTriangles];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            coordinates[i] = -60 + 120 * random.nextFloat();
+            coordinates[i + 1] = -40 + 80 * random.nextFloat();
+            coordinates[i + 2] = -80 + 180 * random.nextFloat();
+        }
+        int[] vertexIndices = new int[3 * nTriangles];
+        for (int i = 0; i < vertexIndices.length; ++i) {
+            vertexIndices[i] = i;
+        }
+        return RenderTestSupport.createTriangles(coordinates, vertexIndices);
+    }
+
+    // Ближний треугольник закрывает дальний, в каком бы порядке они ни шли в модели
+    @Test
+    public void testDepth_NearTriangleWinsInAnyOrder() {
+        // ближний смотрит прямо на камеру, дальний повёрнут - у них разная яркость
+        float[] near = {-20, -20, 10, 20, -20, 10, 0, 20, 10};
+        float[] far = {-30, -30, -20, 30, -30, 0, 0, 30, -10};
+        FrameBuffer nearOnly = rasterize(RenderTestSupport.createTriangles(near, 0, 1, 2), RenderTestSupport.serialSettings());
+        FrameBuffer farOnly = rasterize(RenderTestSupport.createTriangles(far, 0, 1, 2), RenderTestSupport.serialSettings());
+
+        final int center = HEIGHT / 2 * WIDTH + WIDTH / 2;
+        Assertions.assertNotEquals(0, nearOnly.color[center]);
+        Assertions.assertNotEquals(nearOnly.color[center], farOnly.color[center]);
+        Assertions.assertTrue(nearOnly.depth[center] < farOnly.depth[center]);
+
+        float[] both = new float[18];
+        System.arraycopy(near, 0, both, 0, 9);
+        System.arraycopy(far, 0, both, 9, 9);
+        for (int[] order : new int[][]{{0, 1, 2, 3, 4, 5}, {3, 4, 5, 0, 1, 2}}) {
+            for (RenderSettings settings : new RenderSettings[]{RenderTestSupport.serialSettings(), new RenderSettings()}) {
+                FrameBuffer frame = rasterize(RenderTestSupport.createTriangles(both, order), settings);
+                Assertions.assertEquals(nearOnly.color[center], frame.color[center]);
+                Assertions.assertEquals(nearOnly.depth[center], frame.depth[center]);
+            }
+        }
+    }
+
+    private static FrameBuffer rasterize(PackedMesh mesh, RenderSettings settings) {
+        return RenderTestSupport.rasterize(mesh, WIDTH, HEIGHT, settings);
+    }
+
+    private static int countColors(FrameBuffer frame) {
+        Set<Integer> colors = new HashSet<>();
+        for (int i = 0; i < frame.width * frame.height; ++i) {
+            if (frame.color[i] != 0) {
+                colors.add(frame.color[i]);
+            }
+        }
+        return colors.size();
+    }
+
+    // Пиксель со смещением (dx, dy) от центра кадра, dy - вверх
+    private static int toPixel(FrameBuffer frame, int dx, int dy) {
+        return (frame.height / 2 - dy) * frame.width + frame.width / 2 + dx;
+    }
+}
@@ -0,0 +1,86 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+
+// Общее для тестов отрисовки: камера, настройки без потоков, кадр и маленькие модели
+final class RenderTestSupport {
+
+    private RenderTestSupport() {
+    }
+
+    // Камера в (0, 0, 100) смотрит на начало координат
+    static Camera createCamera(int width, int height) {
+        return createCamera(new Vector3f(0, 0, 100), width, height);
+    }
+
+    static Camera createCamera(Vector3f position, int width, int height) {
+        return new Camera(position, new Vector3f(0, 0, 0), 1.0F, (float) width / height, 0.1F, 1000);
+    }
+
+    // Всё в одном потоке: с этим кадром сравниваются многопоточные варианты
+    static RenderSettings serialSettings() {
+        RenderSettings settings = new RenderSettings();
+        settings.parallelTransform = false;
+        settings.parallelRasterize = false;
+        return settings;
+    }
+
+    static FrameBuffer createFrame(int width, int height) {
+        FrameBuffer frame = new FrameBuffer();
+        frame.resize(width, height);
+        frame.clear(0);
+        return frame;
+    }
+
+    // Заливка модели в чистый кадр камерой createCamera
+    static FrameBuffer rasterize(PackedMesh mesh, int width, int height, RenderSettings settings) {
+        FrameBuffer frame = createFrame(width, height);
+        RenderEngine.rasterize(frame, createCamera(width, height), mesh, width, height, new ScreenSpaceBuffer(), settings);
+        return frame;
+    }
+
+    static int countPixels(FrameBuffer frame) {
+        int count = 0;
+        for (int i = 0; i < frame.width * frame.height; ++i) {
+            if (frame.color[i] != 0) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    // Один полигон из перечисленных вершин, координаты подряд по три
+    static PackedMesh createPolygon(float[] coordinates, int... vertexIndices) {
+        PackedMesh mesh = createVertices(coordinates);
+        mesh.polygons.faceOffsets = new int[]{0, vertexIndices.length};
+        mesh.polygons.vertexIndices = vertexIndices;
+        return mesh;
+    }
+
+    // Треугольники по три угла из vertexIndices, координаты вершин подряд по три
+    static PackedMesh createTriangles(float[] coordinates, int... vertexIndices) {
+        PackedMesh mesh = createVertices(coordinates);
+        final int nTriangles = vertexIndices.length / 3;
+        mesh.polygons.faceOffsets = new int[nTriangles + 1];
+        for (int i = 0; i <= nTriangles; ++i) {
+            mesh.polygons.faceOffsets[i] = 3 * i;
+        }
+        mesh.polygons.vertexIndices = vertexIndices;
+        return mesh;
+    }
+
+    private static PackedMesh createVertices(float[] coordinates) {
+        final int nVertices = coordinates.length / 3;
+        PackedMesh mesh = new PackedMesh();
+        mesh.vertexX = new float[nVertices];
+        mesh.vertexY = new float[nVertices];
+        mesh.vertexZ = new float[nVertices];
+        for (int i = 0; i < nVertices; ++i) {
+            mesh.vertexX[i] = coordinates[3 * i];
+            mesh.vertexY[i] = coordinates[3 * i + 1];
+            mesh.vertexZ[i] = coordinates[3 * i + 2];
+        }
+        return mesh;
+    }
+}
@@ -0,0 +1,86 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.PackedMesh;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+class SceneRendererTest {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+
+    // Модели готовятся параллельно и в другом порядке, но кадр тот же, что при рисовании по одной
+    @Test
+    public void testParallelScene_SameAsSequential() {
+        List<ModelInstance> scene = new ArrayList<>();
+        PackedMesh tiny = createGrid(1);
+        PackedMesh huge = createGrid(300);
+        for (int i = 0; i < 5; ++i) {
+            ModelInstance instance = new ModelInstance(i == 2 ? huge : tiny);
+            instance.transform.setTranslation(-40 + 20 * i, 5 * (i % 2), -10 * i);
+            instance.transform.setRotation(0.3F * i, 0.5F, 0);
+            scene.add(instance);
+        }
+
+        RenderSettings serial = RenderTestSupport.serialSettings();
+        FrameBuffer expected = RenderTestSupport.createFrame(WIDTH, HEIGHT);
+        Camera camera = RenderTestSupport.createCamera(new Vector3f(0, 20, 100), WIDTH, HEIGHT);
+        for (ModelInstance instance : scene) {
+            RenderEngine.rasterize(expected, camera, instance, WIDTH, HEIGHT, new ScreenSpaceBuffer(), serial);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RenderSettings parallel = new RenderSettings();
+            parallel.pool = pool;
+            // в пуле из 3 буферов сцена рисуется двумя партиями, из 8 - одной
+            for (int capacity : new int[]{3, 8}) {
+                SceneRenderer renderer = new SceneRenderer(new ScreenBufferPool(capacity));
+                for (int frame = 0; frame < 2; ++frame) {
+                    FrameBuffer actual = RenderTestSupport.createFrame(WIDTH, HEIGHT);
+                    renderer.rasterize(actual, camera, scene, WIDTH, HEIGHT, parallel);
+                    Assertions.assertArrayEquals(expected.color, actual.color);
+                    Assertions.assertArrayEquals(expected.depth, actual.depth);
+                }
+                Assertions.assertEquals(scene.size(), renderer.getModelCount());
+                Assertions.assertTrue(renderer.getFrameNanos() > 0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Квадрат 10 x 10 в плоскости XY из n x n четырёхугольников
+    private static PackedMesh createGrid(int n) {
+        PackedMesh mesh = new PackedMesh();
+        final int side = n + 1;
+        mesh.vertexX = new float[side * side];
+        mesh.vertexY = new float[side * side];
+        mesh.vertexZ = new float[side * side];
+        for (int row = 0; row < side; ++row) {
+            for (int column = 0; column < side; ++column) {
+                mesh.vertexX[row * side + column] = -5 + 10.0F * column / n;
+                mesh.vertexY[row * side + column] = -5 + 10.0F * row / n;
+            }
+        }
+        mesh.polygons.faceOffsets = new int[n * n + 1];
+        mesh.polygons.vertexIndices = new int[4 * n * n];
+        for (int row = 0; row < n; ++row) {
+            for (int column = 0; column < n; ++column) {
+                final int face = row * n + column;
+                final int corner = row * side + column;
+                mesh.polygons.faceOffsets[face + 1] = 4 * (face + 1);
+                mesh.polygons.vertexIndices[4 * face] = corner;
+                mesh.polygons.vertexIndices[4 * face + 1] = corner + 1;
+                mesh.polygons.vertexIndices[4 * face + 2] = corner + side + 1;
+                mesh.polygons.vertexIndices[4 * face + 3] = corner + side;
+            }
+        }
+        return mesh;
+    }
+}
@@ -0,0 +1,47 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+// Без --add-modules jdk.incubator.vector проверяет скалярный запасной путь, с ним - сам векторный
+class VectorTransformTest {
+
+    @Test
+    public void testTransformVertices_SameBitsAsScalar() {
+        final int n = 1000 + 13; // с хвостом, который не кратен длине вектора
+        final int width = 640, height = 480;
+        Random random = new Random(5);
+        float[] x = new float[n], y = new float[n], z = new float[n];
+        for (int i = 0; i < n; ++i) {
+            // часть вершин за камерой, за краями кадра и за дальней плоскостью
+            x[i] = random.nextFloat() * 300 - 150;
+            y[i] = random.nextFloat() * 300 - 150;
+            z[i] = random.nextFloat() * 1400 - 1200;
+        }
+        Matrix4f matrix = GraphicConveyor.lookAt(new Vector3f(10, 20, 100), new Vector3f(0, 0, 0));
+        matrix.mul(GraphicConveyor.perspective(1.0F, (float) width / height, 0.1F, 1000));
+
+        ScreenSpaceBuffer expected = new ScreenSpaceBuffer();
+        expected.resize(n);
+        GraphicConveyor.transformVertices(matrix, x, y, z, 0, n, width, height, expected);
+        ScreenSpaceBuffer result = new ScreenSpaceBuffer();
+        result.resize(n);
+        // начало не с нуля: диапазоны ParallelTransform тоже начинаются где угодно
+        GraphicConveyor.transformVertices(matrix, x, y, z, 0, 3, width, height, result);
+        VectorTransform.transformVertices(matrix, x, y, z, 3, n, width, height, result);
+
+        int outside = 0;
+        for (int i = 0; i < n; ++i) {
+            Assertions.assertEquals(Float.floatToIntBits(expected.x[i]), Float.floatToIntBits(result.x[i]), "x " + i);
+            Assertions.assertEquals(Float.floatToIntBits(expected.y[i]), Float.floatToIntBits(result.y[i]), "y " + i);
+            Assertions.assertEquals(Float.floatToIntBits(expected.z[i]), Float.floatToIntBits(result.z[i]), "z " + i);
+            Assertions.assertEquals(expected.outcodes[i], result.outcodes[i], "outcode " + i);
+            outside |= expected.outcodes[i];
+        }
+        Assertions.assertEquals(0x3F, outside);
+    }
+}